@@ -1,12 +1,266 @@
 package edu.uiowa.cs.warp;
 
+import java.util.AbstractCollection;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public abstract class AbstractMap<T,E> extends HashMap<T, E> {
 	private static final long serialVersionUID = 1L;
 
+	private boolean frozen; // true for the maps of a workload snapshot, see freeze()
+	private transient Runnable changeListener; // told when the map is changed, or null
+
 		// default constructor
 		public AbstractMap() {
 			super();
 		}
+
+	/**
+	 * Makes the map read-only, for a workload snapshot. Methods that would change it, including
+	 * those of its key, value and entry views, then throw UnsupportedOperationException.
+	 */
+	void freeze() {
+		frozen = true;
+	}
+
+	/**
+	 * Sets what is told when the map is changed, through its own methods or its views, e.g., the
+	 * WorkLoad the map is in.
+	 * 
+	 * @param changeListener run after each change, or null
+	 */
+	void setChangeListener(Runnable changeListener) {
+		this.changeListener = changeListener;
+	}
+
+	private void checkMutable() {
+		if (frozen) {
+			throw new UnsupportedOperationException("Map is in a workload snapshot, which can't be changed");
+		}
+	}
+
+	private void changed() {
+		if (changeListener != null) {
+			changeListener.run();
+		}
+	}
+
+	@Override
+	public E put(T key, E value) {
+		checkMutable();
+		var previous = super.put(key, value);
+		changed();
+		return previous;
+	}
+
+	@Override
+	public void putAll(Map<? extends T, ? extends E> map) {
+		checkMutable();
+		super.putAll(map);
+		changed();
+	}
+
+	@Override
+	public E putIfAbsent(T key, E value) {
+		checkMutable();
+		var previous = super.putIfAbsent(key, value);
+		changed();
+		return previous;
+	}
+
+	@Override
+	public E remove(Object key) {
+		checkMutable();
+		var previous = super.remove(key);
+		changed();
+		return previous;
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		checkMutable();
+		var removed = super.remove(key, value);
+		changed();
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		checkMutable();
+		super.clear();
+		changed();
+	}
+
+	@Override
+	public E replace(T key, E value) {
+		checkMutable();
+		var previous = super.replace(key, value);
+		changed();
+		return previous;
+	}
+
+	@Override
+	public boolean replace(T key, E oldValue, E newValue) {
+		checkMutable();
+		var replaced = super.replace(key, oldValue, newValue);
+		changed();
+		return replaced;
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super T, ? super E, ? extends E> function) {
+		checkMutable();
+		super.replaceAll(function);
+		changed();
+	}
+
+	@Override
+	public E computeIfAbsent(T key, Function<? super T, ? extends E> mappingFunction) {
+		checkMutable();
+		var value = super.computeIfAbsent(key, mappingFunction);
+		changed();
+		return value;
+	}
+
+	@Override
+	public E computeIfPresent(T key, BiFunction<? super T, ? super E, ? extends E> remappingFunction) {
+		checkMutable();
+		var value = super.computeIfPresent(key, remappingFunction);
+		changed();
+		return value;
+	}
+
+	@Override
+	public E compute(T key, BiFunction<? super T, ? super E, ? extends E> remappingFunction) {
+		checkMutable();
+		var value = super.compute(key, remappingFunction);
+		changed();
+		return value;
+	}
+
+	@Override
+	public E merge(T key, E value, BiFunction<? super E, ? super E, ? extends E> remappingFunction) {
+		checkMutable();
+		var merged = super.merge(key, value, remappingFunction);
+		changed();
+		return merged;
+	}
+
+	@Override
+	public Set<T> keySet() {
+		return new ViewSet<T>(super.keySet());
+	}
+
+	@Override
+	public Collection<E> values() {
+		return new View<E>(super.values());
+	}
+
+	@Override
+	public Set<Map.Entry<T, E>> entrySet() {
+		return new ViewSet<Map.Entry<T, E>>(super.entrySet()) {
+			@Override
+			Map.Entry<T, E> wrap(Map.Entry<T, E> entry) {
+				return new java.util.AbstractMap.SimpleEntry<T, E>(entry) {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public E setValue(E value) {
+						checkMutable();
+						var previous = entry.setValue(value);
+						super.setValue(value);
+						changed();
+						return previous;
+					}
+				};
+			}
+		};
+	}
+
+	/*
+	 * View of the keys, values or entries of the map. Removing is the only way a view can change the
+	 * map, so removals (and setValue() of an entry) are checked and reported like the map's own
+	 * changes.
+	 */
+	private class View<V> extends AbstractCollection<V> {
+		final Collection<V> view;
+
+		View(Collection<V> view) {
+			this.view = view;
+		}
+
+		/* the element returned by the iterator for element */
+		V wrap(V element) {
+			return element;
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			var iterator = view.iterator();
+			return new Iterator<V>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public V next() {
+					return wrap(iterator.next());
+				}
+
+				@Override
+				public void remove() {
+					checkMutable();
+					iterator.remove();
+					changed();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return view.size();
+		}
+
+		@Override
+		public boolean contains(Object element) {
+			return view.contains(element);
+		}
+
+		@Override
+		public boolean remove(Object element) {
+			checkMutable();
+			var removed = view.remove(element);
+			changed();
+			return removed;
+		}
+
+		@Override
+		public void clear() {
+			checkMutable();
+			view.clear();
+			changed();
+		}
+	}
+
+	private class ViewSet<V> extends View<V> implements Set<V> {
+		ViewSet(Set<V> view) {
+			super(view);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other == this || view.equals(other);
+		}
+
+		@Override
+		public int hashCode() {
+			return view.hashCode();
+		}
+	}
 }
@@ -1,38 +1,35 @@
 package edu.uiowa.cs.warp;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.PriorityQueue;
-import java.util.Set;
 
 public class Activation extends SchedulableObject implements Comparable<Activation> { 
 
-	private ArrayList<String> coordinators;
+	private ArrayList<Integer> coordinators; // coordinator node ids
 	private ArrayList<Edge> edges;
 	private ArrayList<ScheduleTime> additionalScheduleTimes;
 
-	private Set<String> conflicts; // nodes with conflicts
+	private BitSet conflicts; // ids of nodes with conflicts
 	
 
 	Activation (String name){
 		super();
 		setName(name);
 		this.edges = new ArrayList<Edge>();
-		this.coordinators = new ArrayList<String>();
-		this.conflicts = new HashSet<String>();
+		this.coordinators = new ArrayList<Integer>();
+		this.conflicts = new BitSet();
 		this.additionalScheduleTimes = new ArrayList<ScheduleTime>();
 	}
 	
-	Activation (Activation elem, Integer time){
+	Activation (Activation elem, int time){
 		super(elem, time);
 		this.edges = new ArrayList<Edge>();
 		this.edges.addAll(elem.getEdges());
-		this.coordinators = new ArrayList<String>();
+		this.coordinators = new ArrayList<Integer>();
 		this.coordinators.addAll(elem.getCoordinators());
-		// conflicts = new Set<String>();
-		this.conflicts = new HashSet<String>();
-		this.conflicts.addAll(elem.getConflicts());
+		this.conflicts = (BitSet) elem.getConflicts().clone();
 		this.additionalScheduleTimes = new ArrayList<ScheduleTime>();
 		this.additionalScheduleTimes.addAll(elem.getAdditionalScheduleTimes());
 	}
@@ -101,7 +98,7 @@ public class Activation extends SchedulableObject implements Comparable<Activati
 	 * 
 	 * @param additionalOffset
 	 */
-	public void increaseEdgePhases(Integer additionalOffset) {
+	public void increaseEdgePhases(int additionalOffset) {
 		if (additionalOffset > 0) { // make sure increase is needed
 			for (Edge edge: this.edges) {
 				var oldPhase = edge.getPhase();
@@ -122,7 +119,7 @@ public class Activation extends SchedulableObject implements Comparable<Activati
 	 * edge priority with the earliest release time.
 	 * Thus, it can change dynamically. <br>
 	 */
-	public void updatePriorityAndRelease(Integer currentTime) {
+	public void updatePriorityAndRelease(int currentTime) {
 		var lastUpdateTime = getLastUpdateTime();
 		if (currentTime >= lastUpdateTime) {
 			for(Edge edge: edges) {
@@ -156,36 +153,39 @@ public class Activation extends SchedulableObject implements Comparable<Activati
 	}
 	
 	/**
-	 * @return the conflicts
+	 * @return the conflicts, a bit set indexed by node id
 	 */
-	public Set<String> getConflicts() {
+	public BitSet getConflicts() {
 		return conflicts;
 	}
 
 	/**
 	 * @param conflicts the conflicts to set
 	 */
-	public void setConflicts(Set<String> conflicts) {
+	public void setConflicts(BitSet conflicts) {
 		this.conflicts = conflicts;
 	}
 
-	public void addConflict(String name) {
-    	conflicts.add(name);
+	public void addConflict(int nodeId) {
+    	conflicts.set(nodeId);
     }
 	
-	public void addConflicts(Set<String> conflicts) {
-		this.conflicts.addAll(conflicts);
+	public void addConflicts(BitSet conflicts) {
+		this.conflicts.or(conflicts); // union of the two sets
 	}
 	
-	public void addCoordinator(String coordinator) {
+	public void addCoordinator(int coordinator) {
 		coordinators.add(coordinator);
 	}
 	
-	public ArrayList<String> getCoordinators() {
+	/**
+	 * @return the ids of the coordinator nodes
+	 */
+	public ArrayList<Integer> getCoordinators() {
 		return coordinators;
 	}
 
-	public void addCoordinators(ArrayList<String> coordinators) {
+	public void addCoordinators(ArrayList<Integer> coordinators) {
 		this.coordinators.addAll(coordinators);
 	}
 	
@@ -304,7 +304,7 @@ public class Activation extends SchedulableObject implements Comparable<Activati
 		return nextEndTime;
 	}
 	
-	public Integer getNumEdges() {
+	public int getNumEdges() {
 		return edges.size();
 	}
 	
@@ -314,21 +314,11 @@ public class Activation extends SchedulableObject implements Comparable<Activati
 	}
 	
 	public Boolean conflictExists(Activation obj) {
-		Boolean result = false;
-		/* create a copy of this.conflicts and obj.conflicts
-		 * and then check the intersection of the two 
-		 * sets. 
-		 * Conflicts exists if |intersection| > 0
+		/* Conflicts exists if |intersection| > 0. 
+		 * intersects() ANDs the two sets a word at a time
+		 * without creating a new set.
 		 */
-		var conflicts = new HashSet<String>();
-		conflicts.addAll(getConflicts());
-		var objConflicts = new HashSet<String>();
-		objConflicts.addAll(obj.getConflicts());
-		conflicts.retainAll(objConflicts); // get the intersection
-		if (conflicts.size() > 0) {
-			result = true; // |intersection| > 0 => conflict
-		}
-		return result;
+		return conflicts.intersects(obj.getConflicts());
 	}
 	
 	public Boolean canCombine(Activation a2) {
@@ -352,15 +342,15 @@ public class Activation extends SchedulableObject implements Comparable<Activati
 	 * needed on any link in activation to ensure e2e 
 	 * reliability is met.
 	 */
-	public Integer getDelta() {
-		Integer maxTxPerLink = 0;
+	public int getDelta() {
+		int maxTxPerLink = 0;
 		for (Edge edge: getEdges()) {
 			maxTxPerLink = Math.max(maxTxPerLink, edge.getNumTx());
 		}
 		return maxTxPerLink;
 	}
 
-	public Integer getExecutionDuration() {
+	public int getExecutionDuration() {
 		/* Each edge requires delta time units. However, assuming 
 		 * the WARP pipeline scheduling approach, the activation only
 		 * executes for Delta + (numEdges - 1) time units, because
@@ -370,7 +360,7 @@ public class Activation extends SchedulableObject implements Comparable<Activati
 		return getDelta() + (getNumEdges() - 1);
 	}
 
-	public Integer getCombinedExecutionDuration(Activation a2) {
+	public int getCombinedExecutionDuration(Activation a2) {
 		/* Each edge requires delta time units. However, assuming 
 		 * the WARP pipeline scheduling approach, the activation only
 		 * executes for Delta + (numEdges - 1) time units, because
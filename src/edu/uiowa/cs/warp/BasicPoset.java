@@ -8,7 +8,7 @@ package edu.uiowa.cs.warp;
  * @author sgoddard
  */
 public class BasicPoset extends Poset {
-	BasicPoset(WorkLoad workload) {
-		super(workload);
+	BasicPoset(SynthesisContext context) {
+		super(context);
 	}
 }
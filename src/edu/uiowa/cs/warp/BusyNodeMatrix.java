@@ -0,0 +1,94 @@
+package edu.uiowa.cs.warp;
+
+import java.util.BitSet;
+
+/**
+ * BusyNodeMatrix records, for each time slot of a Schedule, the nodes that
+ * are busy on any channel in that slot. Each slot has two node-id bit sets:
+ * the union of the conflict sets of the activations scheduled in the slot,
+ * and the union of their coordinators. With them, checking whether an
+ * activation conflicts with anything in a slot is one bit set test,
+ * no matter how many channels there are.
+ *
+ * Slots with nothing scheduled have no bit sets (null).
+ *
+ * @version 1.0
+ */
+public class BusyNodeMatrix {
+
+	private BitSet[] conflicts; // union of entry conflicts, indexed by slot
+	private BitSet[] coordinators; // union of entry coordinators, indexed by slot
+
+	BusyNodeMatrix(Integer numSlots) {
+		this.conflicts = new BitSet[numSlots];
+		this.coordinators = new BitSet[numSlots];
+	}
+
+	/**
+	 * Adds the conflicts and coordinators of activation to slot.
+	 */
+	public void add(int slot, Activation activation) {
+		if (activation == null || slot < 0 || slot >= conflicts.length) {
+			return;
+		}
+		if (conflicts[slot] == null) {
+			conflicts[slot] = new BitSet();
+			coordinators[slot] = new BitSet();
+		}
+		conflicts[slot].or(activation.getConflicts());
+		for (Integer coordinator: activation.getCoordinators()) {
+			coordinators[slot].set(coordinator);
+		}
+	}
+
+	/**
+	 * Empties slot. Used to rebuild a slot after an entry is replaced or removed,
+	 * since a union can't be undone.
+	 */
+	public void clear(int slot) {
+		if (slot >= 0 && slot < conflicts.length) {
+			conflicts[slot] = null;
+			coordinators[slot] = null;
+		}
+	}
+
+	/**
+	 * @return true if a node in nodes conflicts with an entry in slot
+	 */
+	public Boolean conflictsWith(int slot, BitSet nodes) {
+		return slot >= 0 && slot < conflicts.length && conflicts[slot] != null
+				&& conflicts[slot].intersects(nodes);
+	}
+
+	/**
+	 * @return true if a node in nodes conflicts with an entry in any slot of
+	 * 		the interval [start, end]
+	 */
+	public Boolean conflictsWith(int start, int end, BitSet nodes) {
+		return lastConflict(start, end, nodes) >= 0;
+	}
+
+	/**
+	 * Used to skip ahead in a search: no interval that contains the slot
+	 * returned can be free of conflicts with nodes.
+	 * 
+	 * @return the last slot in the interval [start, end] with an entry that
+	 * 		conflicts with a node in nodes, or -1 if there is none
+	 */
+	public int lastConflict(int start, int end, BitSet nodes) {
+		for (int slot = Math.min(end, conflicts.length-1); slot >= start && slot >= 0; slot--) {
+			if (conflictsWith(slot, nodes)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true if node coordinates an entry in slot
+	 */
+	public Boolean hasCoordinator(int slot, int node) {
+		return slot >= 0 && slot < coordinators.length && coordinators[slot] != null
+				&& coordinators[slot].get(node);
+	}
+}
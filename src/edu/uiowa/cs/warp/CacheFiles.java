@@ -0,0 +1,92 @@
+package edu.uiowa.cs.warp;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+/**
+ * CacheFiles reads and writes the binary files of the caches kept between runs (see WorkLoadCache
+ * and TxCostTable). Files are read with FileChannel.map(), and written to a temporary file that is
+ * then moved in place, so a partly written file is never read.
+ *
+ * @version 1.0
+ */
+final class CacheFiles {
+
+  private CacheFiles() {}
+
+  /**
+   * Reads file with reader. A file that can't be read, or that is cut short or corrupt, is reported
+   * as a warning that names what the file holds.
+   *
+   * @param file file to read
+   * @param contents what the file holds, e.g., "tx costs", for the warning
+   * @param reader reads the contents from the mapped file; returns null if the file isn't one it
+   *        can use, e.g., one written by another version
+   * @return what reader returned, or null if there is no such file or it can't be read
+   */
+  static <T> T read(Path file, String contents, Function<ByteBuffer, T> reader) {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return reader.apply(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException | BufferUnderflowException | IllegalArgumentException
+        | IndexOutOfBoundsException | NegativeArraySizeException e) {
+      System.err.printf("\n\tWarning! Unable to read %s %s: %s\n", contents, file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes the remaining bytes of buffer to file, creating its directory if needed. The bytes are
+   * written to a temporary file in the same directory, which then replaces file in one step.
+   *
+   * @param file file to write
+   * @param contents what the file holds, e.g., "tx costs", for the warning
+   * @param buffer bytes to write
+   * @return true if the file was written
+   */
+  static Boolean writeAtomically(Path file, String contents, ByteBuffer buffer) {
+    var directory = file.toAbsolutePath().getParent();
+    Path tmpFile = null;
+    try {
+      Files.createDirectories(directory);
+      tmpFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try (var channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      System.err.printf("\n\tWarning! Unable to write %s %s: %s\n", contents, file, e);
+      if (tmpFile != null) {
+        try {
+          Files.deleteIfExists(tmpFile);
+        } catch (IOException ignored) {
+          // a stray .tmp file is harmless
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Reads an int count followed by that many ints.
+   */
+  static int[] getInts(ByteBuffer buffer) {
+    var ints = new int[buffer.getInt()];
+    buffer.asIntBuffer().get(ints);
+    buffer.position(buffer.position() + ints.length * Integer.BYTES);
+    return ints;
+  }
+}
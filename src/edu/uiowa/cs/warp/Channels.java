@@ -1,78 +1,134 @@
 package edu.uiowa.cs.warp;
 
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 
 /**
+ * Channels tracks the channels available in each time slot of a program schedule. The set of
+ * channels for a time slot is stored as a bit mask in a growable long[], with bit i set when
+ * channel i is available. So, channels range from 0 to 63.
+ *
  * @author sgoddard
- * @version 1.4
+ * @version 1.5
  *
  */
 public class Channels {
 
-
-  private class ChannelSet extends HashSet<String> {
-    private static final long serialVersionUID = 6725256944325470867L;
-
-    // default constructor
-    private ChannelSet() {
-      super();
-    }
-
-    private ChannelSet(Integer nChannels) {
-      super();
-      for (int i = 0; i < nChannels; i++) { // ASSUMES channels range from 0 to nChannels-1
-        this.add(String.valueOf(i));
-      }
-    }
-  }
-
+  public static final int MAX_CHANNELS = Long.SIZE;
+  public static final int NO_CHANNEL = -1; // returned when no channel is available
+  private static final int INITIAL_SIZE = 64;
 
   Integer nChannels; // size of the full set of channels
   Boolean verbose;
-  ArrayList<ChannelSet> channelsAvailable; // ArrayList to hold channels available in each time slot
+  private long fullSet; // bit mask with all nChannels channels available
+  private long[] channelsAvailable; // channels available in each time slot
+  private int numTimeSlots; // number of time slots in channelsAvailable that are in use
 
   Channels(Integer nChannels, Boolean verbose) {
+    if (nChannels > MAX_CHANNELS) {
+      System.err.printf("ERROR: %d channels requested, but only %d channels are supported\n",
+          nChannels, MAX_CHANNELS);
+      nChannels = MAX_CHANNELS;
+    }
     this.nChannels = nChannels;
     this.verbose = verbose;
-    this.channelsAvailable = new ArrayList<ChannelSet>();
+    this.fullSet = (nChannels == MAX_CHANNELS) ? -1L : (1L << nChannels) - 1;
+    this.channelsAvailable = new long[INITIAL_SIZE];
+    this.numTimeSlots = 0;
   }
 
-  public HashSet<String> getChannelSet(Integer timeSlot) {
-    /* get the channel set for this timeSlot */
-    HashSet<String> channelSet = new HashSet<String>(channelsAvailable.get(timeSlot));
-    return channelSet;
+  /**
+   * @return the bit mask of channels available in timeSlot; bit i is set when channel i is free
+   */
+  public long getChannelSet(int timeSlot) {
+    checkTimeSlot(timeSlot);
+    return channelsAvailable[timeSlot];
   }
 
   public void addNewChannelSet() {
-    var channels = new ChannelSet(nChannels);
-    channelsAvailable.add(channels);
+    if (numTimeSlots == channelsAvailable.length) {
+      channelsAvailable = Arrays.copyOf(channelsAvailable, 2 * numTimeSlots);
+    }
+    channelsAvailable[numTimeSlots++] = fullSet; // all channels are available in a new time slot
   }
 
+  /**
+   * @return the number of time slots with a channel set
+   */
+  public Integer getNumTimeSlots() {
+    return numTimeSlots;
+  }
 
   public Boolean isEmpty(int timeSlot) {
-    ChannelSet channelSet = channelsAvailable.get(timeSlot); // get the channel set for this
-                                                             // timeSlot
-    return channelSet.isEmpty(); // returns true channel set is empty and false if not
+    return getChannelSet(timeSlot) == 0; // returns true channel set is empty and false if not
   }
 
-  public Boolean removeChannel(int timeSlot, String channel) {
-    Boolean result;
-    ChannelSet channels = channelsAvailable.get(timeSlot);
-    result = channels.remove(channel);
+  public Boolean isAvailable(int timeSlot, int channel) {
+    return isValidChannel(channel) && (getChannelSet(timeSlot) & (1L << channel)) != 0;
+  }
+
+  public Boolean removeChannel(int timeSlot, int channel) {
+    var result = isAvailable(timeSlot, channel);
+    if (result) {
+      channelsAvailable[timeSlot] &= ~(1L << channel);
+    }
     return result;
   }
 
-  public Boolean addChannel(int timeSlot, String channel) {
-    Boolean result;
-    ChannelSet channels = channelsAvailable.get(timeSlot); // get a pointer to the channel set
-    result = channels.add(channel); // remove the channel, returning the result
+  public Boolean addChannel(int timeSlot, int channel) {
+    if (!isValidChannel(channel)) {
+      return false;
+    }
+    var result = !isAvailable(timeSlot, channel); // true if the channel wasn't already in the set
+    channelsAvailable[timeSlot] |= 1L << channel;
     return result;
   }
 
+  /**
+   * Finds the first channel available in timeSlot and not in excluded, starting the search at
+   * firstChannel and rotating back to channel 0 after channel nChannels-1. The channel set is not
+   * changed.
+   *
+   * @param timeSlot time slot to search
+   * @param firstChannel channel to start the search from
+   * @param excluded bit mask of channels that cannot be used
+   * @return the channel found, or NO_CHANNEL if none is available
+   */
+  public int findNextAvailableChannel(int timeSlot, int firstChannel, long excluded) {
+    var candidates = getChannelSet(timeSlot) & ~excluded;
+    if (candidates == 0) {
+      return NO_CHANNEL;
+    }
+    if (firstChannel < 0 || firstChannel >= nChannels) {
+      firstChannel = 0;
+    }
+    var rotated = candidates & (-1L << firstChannel); // channels >= firstChannel
+    if (rotated != 0) {
+      return Long.numberOfTrailingZeros(rotated);
+    }
+    return Long.numberOfTrailingZeros(candidates); // wrap around to the lowest channel
+  }
+
+  /**
+   * @return the bit mask for channel, or 0 if channel is not a valid channel
+   */
+  public long channelMask(int channel) {
+    return isValidChannel(channel) ? 1L << channel : 0L;
+  }
+
   public Integer getNumChannels() {
     return nChannels;
   }
 
+  private Boolean isValidChannel(int channel) {
+    return channel >= 0 && channel < nChannels;
+  }
+
+  private void checkTimeSlot(int timeSlot) {
+    if (timeSlot < 0 || timeSlot >= numTimeSlots) {
+      throw new IndexOutOfBoundsException(
+          String.format("Time slot %d is outside the %d channel sets", timeSlot, numTimeSlots));
+    }
+  }
+
 }
@@ -2,15 +2,16 @@ package edu.uiowa.cs.warp;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.regex.Pattern;
+
+import edu.uiowa.cs.warp.Instruction.Guard;
+import edu.uiowa.cs.warp.Instruction.OpCode;
 
 public class CodeFragment {
 	
 	
-	private static final String SLEEP = "sleep";
 	ArrayList<Edge> edges;
-	String coordinator;
-	ArrayList<String> codeFragment;
+	int coordinator; // node id of the coordinator
+	ArrayList<Instruction> codeFragment;
 	Integer delta;
 	Integer channel;
 	
@@ -22,9 +23,9 @@ public class CodeFragment {
 		this.delta = 0;
 		this.channel = 0;
 		this.edges = null;
-		this.coordinator = null;
-		this.codeFragment = new ArrayList<String>();
-		this.codeFragment.add(SLEEP);
+		this.coordinator = SymbolTable.NO_ID;
+		this.codeFragment = new ArrayList<Instruction>();
+		this.codeFragment.add(Instruction.sleep());
 	}
 	
 	/**
@@ -36,16 +37,16 @@ public class CodeFragment {
 	 * 
 	 * @param delta
 	 * @param edges
-	 * @param coordinators
+	 * @param coordinators node ids of the coordinators
 	 * @param channel
 	 */
 	CodeFragment(Integer delta, ArrayList<Edge> edges,
-			ArrayList<String> coordinators, Integer channel) {
+			ArrayList<Integer> coordinators, Integer channel) {
 		this.delta = delta;
 		this.channel = channel;
 		this.edges = edges;
 		this.coordinator = coordinators.get(0);
-		this.codeFragment = new ArrayList<String>();
+		this.codeFragment = new ArrayList<Instruction>();
 		if (multipleCoordinators(coordinators)) {
 			reportIfDifferentCoordinators(coordinators);
 		}	
@@ -53,16 +54,16 @@ public class CodeFragment {
 	}
 	
 	/**
-	 * @return the coordinator
+	 * @return the node id of the coordinator, or SymbolTable.NO_ID for a SLEEP fragment
 	 */
-	public String getCoordinator() {
+	public int getCoordinator() {
 		return coordinator;
 	}
 
 	/**
 	 * @return the codeFragment
 	 */
-	public ArrayList<String> instructions() {
+	public ArrayList<Instruction> instructions() {
 		return codeFragment;
 	}
 
@@ -83,16 +84,13 @@ public class CodeFragment {
 		 * delta + #edges -1
 		 */
 		var codeLength = delta + size -1;
-		var basicInstructions = new ArrayList<String>();
+		var basicInstructions = new ArrayList<Instruction>();
 		/* create basic instructions for each edge 
 		 * and initial receiver set for each instruction
 		 * */
 		while(q.hasNext()) {
 			var edge = edgeQueue.poll();
-			var src = edge.getSrc();
-			var snk = edge.getSnk();
-			var flow = edge.getFlow();
-			var instr = getBaseInstruction(flow,src,snk);
+			var instr = getBaseInstruction(edge);
 			basicInstructions.add(instr);
 		}
 		/* start building code fragments */
@@ -109,12 +107,11 @@ public class CodeFragment {
 		
 		/* build the initial code fragment */
 		Integer localDelta = Math.min(size, delta);
-		var instr = new String();
-		var dropInstr = new String();
-		var priorInstr = new String();
+		Instruction instr;
+		Instruction dropInstr;
+		Instruction priorInstr;
 		for (int i = 1; i < localDelta ; i++) { 
-			instr = codeFragment.get(i-1) +
-					" else " + basicInstructions.get(i);
+			instr = codeFragment.get(i-1).orElse(basicInstructions.get(i));
 			codeFragment.add(instr);
 		}
 		/* now repeat middle stage if size < delta 
@@ -140,9 +137,9 @@ public class CodeFragment {
 		 */
 		for (int i = localDelta + numRepeatStages; (i < numRepeatStages + size)  && i < codeLength ; i++) { 
 			priorInstr = codeFragment.get(i-1);
-			dropInstr =  basicInstructions.get(i-(localDelta + numRepeatStages)) + " else ";
-			instr = priorInstr.replaceFirst(Pattern.quote(dropInstr),"");
-			instr += " else " + basicInstructions.get(i-numRepeatStages);
+			dropInstr =  basicInstructions.get(i-(localDelta + numRepeatStages));
+			instr = priorInstr.without(dropInstr);
+			instr = instr.orElse(basicInstructions.get(i-numRepeatStages));
 			codeFragment.add(instr);
 		}
 		/* Now loop through dropping old instructions, draining
@@ -150,76 +147,57 @@ public class CodeFragment {
 		 */
 		for (int i = numRepeatStages + size; i < codeLength ; i++) { 
 			priorInstr = codeFragment.get(i-1);
-			dropInstr =  basicInstructions.get(i-delta)  + " else ";
-			instr = priorInstr.replaceFirst(Pattern.quote(dropInstr),"");
+			dropInstr =  basicInstructions.get(i-delta);
+			instr = priorInstr.without(dropInstr);
 			codeFragment.add(instr);
 		}
 	}
 	
-	private String getBaseInstruction(String flow, String src, String snk) {
-		var instr = new String();
-		if (coordinator.equals(src)) {
-			/* push instruction */
-			instr += ifHas(flow,src,snk) + push(flow,src,snk);
+	private Instruction getBaseInstruction(Edge edge) {
+		Instruction instr;
+		var flow = edge.getFlowId();
+		var src = edge.getSrcId();
+		var snk = edge.getSnkId();
+		if (coordinator == src) {
+			/* push instruction: if has(flow: src -> snk) push(flow: src -> snk, #channel) */
+			instr = Instruction.transmit(Guard.HAS_EDGE, OpCode.PUSH, flow, src, snk, channel);
 		} else {
-			/* pull instruction */
-			instr += ifNotHas(flow,src,snk) + pull(flow,src,snk);
+			/* pull instruction: if !has(flow: src -> snk) pull(flow: src -> snk, #channel) */
+			instr = Instruction.transmit(Guard.NOT_HAS_EDGE, OpCode.PULL, flow, src, snk, channel);
 		}
 		return instr;
 	}
 	
-	private String push(String flow, String src, String snk) {
-		var instruction = String.format("push(%s: %s -> %s, #%d)", flow, src, snk, channel);
-		return instruction;
-	}
-	
-	private String pull(String flow, String src, String snk) {
-		var instruction = String.format("pull(%s: %s -> %s, #%d)", flow, src, snk, channel);
-		return instruction;
-	}
-	
-	private String ifHas(String flow, String src, String snk) {
-		var instruction = String.format("if has(%s: %s -> %s) ", flow, src, snk);
-		return instruction;
-	}
-	
-	private String ifNotHas(String flow, String src, String snk) {
-		var instruction = String.format("if !has(%s: %s -> %s) ", flow, src, snk);
-		return instruction;
-	}
-	
-	public String wait(int channel) {
-		var instruction = String.format("wait(#%d)", channel);
-		return instruction;
+	public Instruction wait(int channel) {
+		return Instruction.waitOn(channel);
 	}
 	
-	public static String sleep() {
-		var instruction = SLEEP;
-		return instruction;
+	public static Instruction sleep() {
+		return Instruction.sleep();
 	}
 	
-	private void reportIfDifferentCoordinators(ArrayList<String> coordinators) {
+	private void reportIfDifferentCoordinators(ArrayList<Integer> coordinators) {
 		var numUniqueCoordinators = 1;
-		var coordinatorNames = this.coordinator;
+		var coordinatorIds = Integer.toString(this.coordinator);
 		if (coordinators.size() > 1) {
 			for (int i = 1 ; i < coordinators.size(); i++) {
-				if (!this.coordinator.equals(coordinators.get(i))) {
-					coordinatorNames += ", " + coordinators.get(i);
+				if (this.coordinator != coordinators.get(i)) {
+					coordinatorIds += ", " + coordinators.get(i);
 					numUniqueCoordinators++;
 				}
 			}
 			if (numUniqueCoordinators > 1) {
-				System.err.printf("\n%d Coordinators: %s\n", 
-						numUniqueCoordinators, this.coordinator, coordinatorNames);
+				System.err.printf("\n%d Coordinators (node ids): %s\n", 
+						numUniqueCoordinators, coordinatorIds);
 			}
 		}
 	}
 	
-	private Boolean multipleCoordinators(ArrayList<String> coordinators) {
+	private Boolean multipleCoordinators(ArrayList<Integer> coordinators) {
 		var result = false;
 		if (coordinators.size() > 1) {
 			for (int i = 1 ; i < coordinators.size(); i++) {
-				if (!this.coordinator.equals(coordinators.get(i))) {
+				if (this.coordinator != coordinators.get(i)) {
 					result = true;
 				}
 			}
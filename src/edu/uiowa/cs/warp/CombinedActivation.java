@@ -7,7 +7,7 @@ public class CombinedActivation extends Activation implements Comparable<Activat
 		super(name);
 	}
 			
-	CombinedActivation(Activation elem, Integer time) {
+	CombinedActivation(Activation elem, int time) {
 		super(elem, time);	
 	} 
 	
@@ -30,7 +30,7 @@ public class CombinedActivation extends Activation implements Comparable<Activat
 		this.setStartTime(startTime);
 		this.addEdges(next.getEdges());
 		this.addCoordinators(next.getCoordinators());
-		this.addConflicts(next.getConflicts());
+		this.addConflicts(next.getConflicts()); // OR of the conflict bit sets
 		
 	}
 
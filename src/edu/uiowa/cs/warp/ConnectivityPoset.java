@@ -11,8 +11,8 @@ import java.util.ArrayList;
  */
 public class ConnectivityPoset extends Poset {
 
-	ConnectivityPoset(WorkLoad workload) {
-		super(workload);
+	ConnectivityPoset(SynthesisContext context) {
+		super(context);
 		
 	}
 	
@@ -30,11 +30,11 @@ public class ConnectivityPoset extends Poset {
 		var size = nodesInFlow.size();
 		for (Integer i = 0; i < size; i++) {
 			/* get the #connections for this node from the
-			 * connectivity Map and see if it is the max so far
+			 * connectivity array and see if it is the max so far
 			 * if so, store its index in the flow
 			 */
 			var node = nodesInFlow.get(i);
-			var numConnections = nodeConnectivityMap.get(node.getName());
+			var numConnections = nodeConnectivity[node.getId()];
 			if (numConnections > maxConnections) {
 				maxConnections = numConnections;
 				coordinatorIndex = i;
@@ -9,6 +9,6 @@ public class DeadlineComparator<T extends SchedulableObject> implements Comparat
 	@Override
 	public int compare(T obj1, T obj2) {	
 		/* only sort by period, as we only want shortest period */
-		return obj1.deadlineComparison(obj2); 
+		return Integer.compare(obj1.getDeadline(), obj2.getDeadline()); 
 	}
 }
@@ -4,13 +4,13 @@ public class Edge extends SchedulableObject implements Comparable<Edge> {
 
 	private static final String UNKNOWN = "Unknown";
 
-	private String flow;
-	private String src;
-	private String snk;
-	private Integer instance;
+	private int flowId; // SymbolTable ids of flow, src, and snk; names are in the SymbolTable
+	private int srcId;
+	private int snkId;
+	private int instance;
 	private String coordinator;
 	private EdgeState state;
-	private Integer numTx;
+	private int numTx;
 
 	private enum EdgeState {
 		RELEASED, EXECUTING, NOT_READY 
@@ -18,21 +18,21 @@ public class Edge extends SchedulableObject implements Comparable<Edge> {
 
 	Edge() {
 		super();
-		this.flow = UNKNOWN;
-		this.src = UNKNOWN;
-		this.snk = UNKNOWN;
+		this.flowId = SymbolTable.NO_ID;
+		this.srcId = SymbolTable.NO_ID;
+		this.snkId = SymbolTable.NO_ID;
 		this.instance = 0;
 		this.coordinator = UNKNOWN;
 		this.state = EdgeState.NOT_READY;
 		this.numTx = 0;
 	}
 	
-	Edge(String flow, String src, String snk, Integer priority, 
-		Integer period, Integer deadline, Integer phase, Integer numTx) {
+	Edge(Flow flow, Node src, Node snk, int priority, 
+		int period, int deadline, int phase, int numTx) {
 		super(priority, period, deadline, phase);
-		this.flow = flow;
-		this.src =src;
-		this.snk = snk;
+		this.flowId = flow.getId();
+		this.srcId = src.getId();
+		this.snkId = snk.getId();
 		this.instance = 0;
 		this.coordinator = UNKNOWN;
 		this.state = EdgeState.NOT_READY;	
@@ -46,64 +46,43 @@ public class Edge extends SchedulableObject implements Comparable<Edge> {
 
     @Override
     public String toString() {
-    	String result = String.format("%s:(%s,%s)", 
-    			this.flow, this.src, this.snk);
+    	String result = String.format("%d:(%d,%d)", 
+    			this.flowId, this.srcId, this.snkId);
         return result;
     }
 
 	/**
-	 * @return the flow
+	 * @return the flow id
 	 */
-	public String getFlow() {
-		return flow;
+	public int getFlowId() {
+		return flowId;
 	}
 
 	/**
-	 * @param flow the flow to set
+	 * @return the src node id
 	 */
-	public void setFlow(String flow) {
-		this.flow = flow;
+	public int getSrcId() {
+		return srcId;
 	}
 
 	/**
-	 * @return the src
+	 * @return the snk node id
 	 */
-	public String getSrc() {
-		return src;
-	}
-
-	/**
-	 * @param src the src to set
-	 */
-	public void setSrc(String src) {
-		this.src = src;
-	}
-
-	/**
-	 * @return the snk
-	 */
-	public String getSnk() {
-		return snk;
-	}
-
-	/**
-	 * @param snk the snk to set
-	 */
-	public void setSnk(String snk) {
-		this.snk = snk;
+	public int getSnkId() {
+		return snkId;
 	}
 
 	/**
 	 * @return the instance
 	 */
-	public Integer getInstance() {
+	public int getInstance() {
 		return instance;
 	}
 
 	/**
 	 * @param instance the instance to set
 	 */
-	public void setInstance(Integer instance) {
+	public void setInstance(int instance) {
 		this.instance = instance;
 	}
 
@@ -117,7 +96,7 @@ public class Edge extends SchedulableObject implements Comparable<Edge> {
 	/**
 	 * @return the numTx
 	 */
-	public Integer getNumTx() {
+	public int getNumTx() {
 		return numTx;
 	}
 
@@ -151,9 +130,9 @@ public class Edge extends SchedulableObject implements Comparable<Edge> {
 	@Override
 	public void print() {
 		super.print();
-		System.out.printf("\tFlow:%s\n", this.flow);
-		System.out.printf("\tSrc:%s\n", this.src);
-		System.out.printf("\tSnk:%s\n", this.snk);
+		System.out.printf("\tFlow:%d\n", this.flowId);
+		System.out.printf("\tSrc:%d\n", this.srcId);
+		System.out.printf("\tSnk:%d\n", this.snkId);
 	}
 	
     
@@ -13,17 +13,18 @@ import java.util.ArrayList;
  */
 public class Flow extends SchedulableObject implements Comparable<Flow>{
 
-	private static final Integer UNDEFINED = -1;
-	private static final Integer DEFAULT_FAULTS_TOLERATED = 0; 
-	private static final Integer DEFAULT_INDEX = 0;
-	private static final Integer DEFAULT_PERIOD = 100; 
-	private static final Integer DEFAULT_DEADLINE = 100;
-	private static final Integer DEFAULT_PHASE = 0;
+	public static final int UNDEFINED = -1; // initial priority that hasn't been set
+	private static final int DEFAULT_FAULTS_TOLERATED = 0; 
+	private static final int DEFAULT_INDEX = 0;
+	private static final int DEFAULT_PERIOD = 100; 
+	private static final int DEFAULT_DEADLINE = 100;
+	private static final int DEFAULT_PHASE = 0;
 	
 
-    Integer initialPriority = UNDEFINED;
-    Integer index;  // order in which the node was read from the Graph file
-    Integer numTxPerLink; //  determined by fault model
+    int initialPriority = UNDEFINED;
+    int index;  // order in which the node was read from the Graph file
+    int id; // dense id of the flow in the workload SymbolTable
+    int numTxPerLink; //  determined by fault model
     ArrayList<Node> nodes; // Flow src is 1st element and flow snk is last element in array
     /*
      *  nTx needed for each link to reach E2E reliability target. Indexed by src node of the link. 
@@ -33,6 +34,8 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
     ArrayList<Edge> edges; //used in Partition and scheduling
     Node nodePredecessor;
     Edge edgePredecessor;
+    private boolean frozen; // true for the flows of a workload snapshot, see freeze()
+    private Runnable changeListener; // told when the flow is changed, e.g., its WorkLoad; or null
     
     /*
      * Constructor that sets name, priority, and index
@@ -43,8 +46,20 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
      * @param priority  determines order visited
      * @param index  order of which the node was read from the Graph file
      */
-    Flow (String name, Integer priority, Integer index){
+    Flow (String name, int priority, int index){
+    	this(name, SymbolTable.NO_ID, priority, index);
+    }
+    
+    /**
+     * Constructor that sets name, SymbolTable id, priority, and index of Flow.
+     * @param name  name of Flow
+     * @param id  id of the Flow in the workload SymbolTable
+     * @param priority  determines order visited
+     * @param index  order of which the node was read from the Graph file
+     */
+    Flow (String name, int id, int priority, int index){
     	super(name, priority, DEFAULT_PERIOD, DEFAULT_DEADLINE, DEFAULT_PHASE);
+    	this.id = id;
     	this.index = index;
         /*
          *  Default numTxPerLink is 1 transmission per link. Will be updated based
@@ -59,6 +74,25 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
         this.edgePredecessor = null;
     }
     
+    /**
+     * Copy constructor that copies the workload attributes of flow, including
+     * copies of its nodes, but not the edges and release times added when it
+     * is scheduled, so the copy can be scheduled without changing flow.
+     * @param flow  Flow to copy
+     */
+    Flow (Flow flow) {
+    	this(flow.getName(), flow.getId(), flow.getPriority(), flow.getIndex());
+    	setPeriod(flow.getPeriod());
+    	setDeadline(flow.getDeadline());
+    	setPhase(flow.getPhase());
+    	this.initialPriority = flow.getInitialPriority();
+    	this.numTxPerLink = flow.getNumTxPerLink();
+    	this.linkTxAndTotalCost = new ArrayList<>(flow.getLinkTxAndTotalCost());
+    	for (Node node : flow.getNodes()) {
+    		addNode(new Node(node));
+    	}
+    }
+    
     /*
      * Constructor
      */
@@ -71,6 +105,7 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
      */
     Flow () {
     	super();
+    	this.id = SymbolTable.NO_ID;
     	this.index = DEFAULT_INDEX;
     	/*
     	 *  Default numTxPerLink is 1 transmission per link. Will be updated based
@@ -89,7 +124,7 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * 
 	 * @return the initialPriority
 	 */
-	public Integer getInitialPriority() {
+	public int getInitialPriority() {
 		return initialPriority;
 	}
 
@@ -98,21 +133,31 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * 
 	 * @return the index
 	 */
-	public Integer getIndex() {
+	public int getIndex() {
 		return index;
 	}
 
+	/**
+	 * Returns the id of the Flow in the workload SymbolTable.
+	 * 
+	 * @return the id
+	 */
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * Returns the numTxPerLink, determined by fault model, of the Flow.
 	 * 
 	 * @return the numTxPerLink
 	 */
-	public Integer getNumTxPerLink() {
+	public int getNumTxPerLink() {
 		return numTxPerLink;
 	}
 
 	/**
-	 * Returns the nodes of the Flow.
+	 * Returns the nodes of the Flow, which can't be changed if the Flow is frozen. Changes made to
+	 * the list itself aren't seen by the change listener; use addNode() or setNodes().
 	 * 
 	 * @return the nodes
 	 */
@@ -148,14 +193,16 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * @param node node to add to the Flow.
 	 */
 	public void addNode(Node node) {
+		checkMutable();
 		/* set predecessor and add edge to flow */
 		node.setPredecessor(nodePredecessor);
 		nodes.add(node);
 		/* update predecessor for next edge added */
 		nodePredecessor = node;
+		changed();
 	}
 	/**
-	 * Returns the linkTxAndTotalCost of the Flow
+	 * Returns the linkTxAndTotalCost of the Flow, which can't be changed if the Flow is frozen.
 	 * 
 	 * @return the linkTxAndTotalCost
 	 */
@@ -168,8 +215,10 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * 
 	 * @param initialPriority the initialPriority to set
 	 */
-	public void setInitialPriority(Integer initialPriority) {
+	public void setInitialPriority(int initialPriority) {
+		checkMutable();
 		this.initialPriority = initialPriority;
+		changed();
 	}
 
 	/**
@@ -177,8 +226,10 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * 
 	 * @param index the index to set
 	 */
-	public void setIndex(Integer index) {
+	public void setIndex(int index) {
+		checkMutable();
 		this.index = index;
+		changed();
 	}
 
 	/**
@@ -186,8 +237,10 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * 
 	 * @param numTxPerLink the numTxPerLink to set
 	 */
-	public void setNumTxPerLink(Integer numTxPerLink) {
+	public void setNumTxPerLink(int numTxPerLink) {
+		checkMutable();
 		this.numTxPerLink = numTxPerLink;
+		changed();
 	}
 
 	/**
@@ -196,7 +249,9 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * @param nodes the nodes to set
 	 */
 	public void setNodes(ArrayList<Node> nodes) {
+		checkMutable();
 		this.nodes = nodes;
+		changed();
 	}
 
 	/**
@@ -205,7 +260,75 @@ public class Flow extends SchedulableObject implements Comparable<Flow>{
 	 * @param linkTxAndTotalCost the linkTxAndTotalCost to set
 	 */
 	public void setLinkTxAndTotalCost(ArrayList<Integer> linkTxAndTotalCost) {
+		checkMutable();
 		this.linkTxAndTotalCost = linkTxAndTotalCost;
+		changed();
+	}
+	
+	@Override
+	public void setPriority(int priority) {
+		checkMutable();
+		super.setPriority(priority);
+		changed();
+	}
+	
+	@Override
+	public void setPeriod(int period) {
+		checkMutable();
+		super.setPeriod(period);
+		changed();
+	}
+	
+	@Override
+	public void setDeadline(int deadline) {
+		checkMutable();
+		super.setDeadline(deadline);
+		changed();
+	}
+	
+	@Override
+	public void setPhase(int phase) {
+		checkMutable();
+		super.setPhase(phase);
+		changed();
+	}
+	
+	/**
+	 * Makes the workload attributes of the Flow and its nodes read-only, for a workload snapshot.
+	 * The setters then throw UnsupportedOperationException. Copies made with the copy constructor
+	 * can be changed.
+	 */
+	void freeze() {
+		for (Node node : nodes) {
+			node.freeze();
+		}
+		nodes = new ReadOnlyList<>(nodes);
+		linkTxAndTotalCost = new ReadOnlyList<>(linkTxAndTotalCost);
+		frozen = true;
+	}
+	
+	/**
+	 * Sets what is told when the workload attributes of the Flow are changed, e.g., the WorkLoad the
+	 * Flow is in, so what it has computed from the flows is computed again. Copies made with the copy
+	 * constructor have no change listener.
+	 * 
+	 * @param changeListener run after each change, or null
+	 */
+	void setChangeListener(Runnable changeListener) {
+		this.changeListener = changeListener;
+	}
+	
+	private void changed() {
+		if (changeListener != null) {
+			changeListener.run();
+		}
+	}
+	
+	private void checkMutable() {
+		if (frozen) {
+			throw new UnsupportedOperationException(
+					String.format("Flow %s is in a workload snapshot, which can't be changed", getName()));
+		}
 	}
 	
 	/**
@@ -27,26 +27,39 @@ public class GraphViz extends VisualizationObject {
     String gvTitleCaption; // Title Caption to be merged with gvFileContents
     FileManager wfm;  // class to provide basic WARP file management functions
     String graphFile; 
+    WorkLoadLoader loader; // parsed graphFile
     Boolean verbose; // verbose flag
     GraphViz gv;
     
     GraphViz(FileManager wfm, String graphFile) {
-    	super(wfm, EMPTY, GRAPH_VIZ_SUFFIX); // VisualizationObject constructor
-        this.wfm = wfm; // used to access the basic WARP file management functions
-        this.graphFile = graphFile;
-        this.gv = this;
-        verbose = false;
-        createGraphVizContent();
+    	this(wfm, WorkLoadLoader.parse(graphFile), false);
     }
 
     GraphViz(FileManager wfm, String graphFile, Boolean verbose) {
+    	this(wfm, WorkLoadLoader.parse(graphFile), verbose);
+    }
+
+    /**
+     * Creates the GraphViz content for a workload that has already been read,
+     * so the workload description is not parsed again.
+     */
+    GraphViz(FileManager wfm, WorkLoadDescription workLoad) {
+    	this(wfm, workLoad.getWorkLoadLoader(), false);
+    }
+
+    private GraphViz(FileManager wfm, WorkLoadLoader loader, Boolean verbose) {
     	super(wfm, EMPTY, GRAPH_VIZ_SUFFIX); // VisualizationObject constructor
         this.wfm = wfm; // used to access the basic WARP file management functions
-        this.graphFile = graphFile;
+        this.graphFile = loader.getContents();
+        this.loader = loader;
         this.gv = this;
         this.verbose = verbose;
         createGraphVizContent();
     }
+
+    WorkLoadLoader getWorkLoadLoader() {
+    	return loader;
+    }
     
     @Override
 	public Description visualization() {
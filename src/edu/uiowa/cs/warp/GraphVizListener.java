@@ -16,11 +16,14 @@ import edu.uiowa.cs.warpdsls.WARPParser;
  * in this class, as it walks the input graphFile structure to build
  * the GraphViz contents.
  */
-public final class GraphVizListener extends WARPBaseListener {
+public final class GraphVizListener extends WARPBaseListener implements WorkLoadLoader.Handler {
 
 	GraphViz gv; // gv object creating this object. Yes, it is wierd!
 	private GraphVizListener(GraphViz gv){
         this.gv = gv; // use GraphViz object passed to this object
+	}
+
+	private void parse() {
      // Read input file and build AST of graphFile
         try {
         	CharStream inputGraph = CharStreams.fromString(gv.graphFile);
@@ -44,34 +47,65 @@ public final class GraphVizListener extends WARPBaseListener {
     	 * instantiates the workLoad. This object is not needed
     	 * after that.
     	 */
-    	new GraphVizListener(gv); 
+    	var listener = new GraphVizListener(gv);
+    	var loader = gv.getWorkLoadLoader();
+    	if (loader.isParsed()) {
+    		/* the graph file has already been parsed, so don't parse it again */
+    		loader.replay(listener);
+    	} else {
+    		listener.parse();
+    	}
     }
 
     @Override public void enterWarpName(WARPParser.WarpNameContext ctx) {
-        var graphName = ctx.getText();  // get the name of the graph from name
+        warpName(ctx.getText());  // get the name of the graph from name
+    }
+
+    @Override public void warpName(String graphName) {
         gv.initializeGraphVizContent(graphName); // start creating the gv file content
     }
 
     @Override public void exitWarp(WARPParser.WarpContext ctx) {
+        endWarp();
+    }
+
+    @Override public void endWarp() {
         gv.finalizeGraphVizContent();
     }
 
     @Override public void enterFlowName(WARPParser.FlowNameContext ctx) {
-        var currentFlow = ctx.getText();
+        flowName(ctx.getText());
+    }
+
+    @Override public void flowName(String currentFlow) {
         gv.addFlowToGraphViz(currentFlow);
     }
 
+    @Override public void parameters(int priority, int period, int deadline, int phase) {
+        // flow parameters are not shown in the graph
+    }
+
     @Override public void exitSrcNode(WARPParser.SrcNodeContext ctx) {
-        var nodeName = ctx.getText(); // get the src node name
+        srcNode(ctx.getText()); // get the src node name
+    }
+
+    @Override public void srcNode(String nodeName) {
         gv.addSrcNodeToGraphViz(nodeName);
     }
 
     @Override public void exitSnkNode(WARPParser.SnkNodeContext ctx) {
-        var nodeName = ctx.getText(); // get the snk node name
+        snkNode(ctx.getText()); // get the snk node name
+    }
+
+    @Override public void snkNode(String nodeName) {
         gv.addSnkNodeToGraphViz(nodeName);
     }
 
     @Override public void exitFlow(WARPParser.FlowContext ctx) {
+        endFlow();
+    }
+
+    @Override public void endFlow() {
         gv.finalizeCurrentFlowInGraphViz();
     }
 
@@ -49,6 +49,17 @@ public class InputGraphFile {
 		}
 	}
 
+	/**
+	 * Finds the graph file, looking in the working directory if it isn't
+	 * at inputFile. Exits if the file can't be found.
+	 * 
+	 * @return the name of the graph file found
+	 */
+	public String findGraphFile(String inputFile) {
+		verifyGraphFileName(inputFile); // catches exception if a valid file can't be found and exits
+		return getGraphFileName();
+	}
+
 	public String readGraphFile(String inputFile) {
 		/* Read the graph input text file and return its contents */
 		verifyGraphFileName(inputFile); // catches exception if a valid file can't be found and exits
@@ -0,0 +1,399 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * Instruction is the typed form of one WARP DSL program entry. Each instruction is a single
+ * action (push, pull, wait, or sleep), optionally guarded by a has() test, followed by an optional
+ * else clause, which is itself an Instruction. Program schedules are built and analyzed with these
+ * objects. Flows and nodes are held as their SymbolTable ids, and the DSL text is only rendered,
+ * via toString(SymbolTable), when a program is written out.
+ *
+ * Instructions are immutable, so the same object can be shared by many time slots. Methods that
+ * "change" an instruction, such as orElse(), return a new instruction chain.
+ *
+ * @version 1.1
+ */
+public final class Instruction {
+
+  /**
+   * The WARP DSL commands.
+   */
+  public enum OpCode {
+    PUSH, PULL, WAIT, SLEEP
+  }
+
+  /**
+   * The condition tested before the action is executed. HAS tests for the flow, e.g.,
+   * "if has(F0)"; HAS_EDGE and NOT_HAS_EDGE test for the flow on the action's link, e.g., "if
+   * has(F0: A -> B)" and "if !has(F0: A -> B)".
+   */
+  public enum Guard {
+    NONE, HAS, HAS_EDGE, NOT_HAS_EDGE
+  }
+
+  /* channel value used by instructions that do not have a channel, i.e., sleep */
+  public static final int NO_CHANNEL = -1;
+
+  /* a single sleep instruction shared by all empty time slots */
+  public static final Instruction SLEEP =
+      new Instruction(OpCode.SLEEP, Guard.NONE, SymbolTable.NO_ID, SymbolTable.NO_ID,
+          SymbolTable.NO_ID, NO_CHANNEL, null);
+
+  private final OpCode opCode;
+  private final Guard guard;
+  private final int flow; // SymbolTable ids, or NO_ID for wait and sleep
+  private final int src;
+  private final int snk;
+  private final int channel;
+  private final Instruction elseInstruction;
+
+  private Instruction(OpCode opCode, Guard guard, int flow, int src, int snk, int channel, Instruction elseInstruction) {
+    this.opCode = opCode;
+    this.guard = guard;
+    this.flow = flow;
+    this.src = src;
+    this.snk = snk;
+    this.channel = channel;
+    this.elseInstruction = elseInstruction;
+  }
+
+  /**
+   * @return the sleep instruction
+   */
+  public static Instruction sleep() {
+    return SLEEP;
+  }
+
+  /**
+   * @param channel channel to listen on
+   * @return the instruction wait(#channel)
+   */
+  public static Instruction waitOn(int channel) {
+    return new Instruction(OpCode.WAIT, Guard.NONE, SymbolTable.NO_ID, SymbolTable.NO_ID,
+        SymbolTable.NO_ID, channel, null);
+  }
+
+  /**
+   * Creates a push or pull instruction for flow over the link src -> snk.
+   *
+   * @param guard condition tested before the transmission
+   * @param opCode PUSH or PULL
+   * @param flow flow id
+   * @param src src node id of the link
+   * @param snk snk node id of the link
+   * @param channel channel used for the transmission
+   * @return the new instruction
+   */
+  public static Instruction transmit(Guard guard, OpCode opCode, int flow, int src, int snk,
+      int channel) {
+    return new Instruction(opCode, guard, flow, src, snk, channel, null);
+  }
+
+  /**
+   * @return the op code
+   */
+  public OpCode getOpCode() {
+    return opCode;
+  }
+
+  /**
+   * @return the guard
+   */
+  public Guard getGuard() {
+    return guard;
+  }
+
+  /**
+   * @return the flow id, or SymbolTable.NO_ID for wait and sleep
+   */
+  public int getFlowId() {
+    return flow;
+  }
+
+  /**
+   * @return the src node id, or SymbolTable.NO_ID for wait and sleep
+   */
+  public int getSrcId() {
+    return src;
+  }
+
+  /**
+   * @return the snk node id, or SymbolTable.NO_ID for wait and sleep
+   */
+  public int getSnkId() {
+    return snk;
+  }
+
+  /**
+   * @return the channel, or NO_CHANNEL for sleep
+   */
+  public int getChannel() {
+    return channel;
+  }
+
+  /**
+   * @return the else clause, or null when there is none
+   */
+  public Instruction getElse() {
+    return elseInstruction;
+  }
+
+  public Boolean hasElse() {
+    return elseInstruction != null;
+  }
+
+  /**
+   * @return true if this is a plain sleep instruction, with no else clause
+   */
+  public Boolean isSleep() {
+    return opCode == OpCode.SLEEP && elseInstruction == null;
+  }
+
+  /**
+   * @return the number of actions in this instruction, counting each else clause
+   */
+  public Integer length() {
+    var length = 0;
+    for (var clause = this; clause != null; clause = clause.elseInstruction) {
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * @param op op code to look for
+   * @return true if this instruction or any of its else clauses has op as its command
+   */
+  public Boolean contains(OpCode op) {
+    for (var clause = this; clause != null; clause = clause.elseInstruction) {
+      if (clause.opCode == op) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if any of the else clauses of this instruction has op as its command
+   */
+  public Boolean containsElse(OpCode op) {
+    return elseInstruction != null && elseInstruction.contains(op);
+  }
+
+  /**
+   * Checks this instruction and its else clauses for a transmission of flow over the link src ->
+   * snk, ignoring the guard and channel.
+   *
+   * @return true if a matching transmission is found
+   */
+  public Boolean containsTx(OpCode op, int flow, int src, int snk) {
+    for (var clause = this; clause != null; clause = clause.elseInstruction) {
+      if (clause.opCode == op && clause.isTxOn(flow, src, snk)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if this action (push or pull) transmits flow over src -> snk, all given as ids
+   */
+  public Boolean isTxOn(int flow, int src, int snk) {
+    return (opCode == OpCode.PUSH || opCode == OpCode.PULL) && this.flow == flow
+        && this.src == src && this.snk == snk;
+  }
+
+  /**
+   * @return true if this instruction or any of its else clauses guards on has(flow), for flow id
+   */
+  public Boolean hasGuardOn(int flow) {
+    for (var clause = this; clause != null; clause = clause.elseInstruction) {
+      if (clause.guard == Guard.HAS && clause.flow == flow) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the first channel used in this instruction chain, or NO_CHANNEL if there is none
+   */
+  public int getFirstChannel() {
+    for (var clause = this; clause != null; clause = clause.elseInstruction) {
+      if (clause.channel != NO_CHANNEL) {
+        return clause.channel;
+      }
+    }
+    return NO_CHANNEL;
+  }
+
+  /**
+   * The coordinator is the node that initiates the action: the src of a push and the snk of a
+   * pull.
+   *
+   * @return the node id of the coordinator of this action (not its else clauses), or
+   *         SymbolTable.NO_ID for wait and sleep
+   */
+  public int getCoordinatorId() {
+    switch (opCode) {
+      case PUSH:
+        return src;
+      case PULL:
+        return snk;
+      default:
+        return SymbolTable.NO_ID;
+    }
+  }
+
+  /**
+   * The listener is the node that has to wait for the action: the snk of a push and the src of a
+   * pull.
+   *
+   * @return the node id of the listener of this action (not its else clauses), or
+   *         SymbolTable.NO_ID for wait and sleep
+   */
+  public int getListenerId() {
+    switch (opCode) {
+      case PUSH:
+        return snk;
+      case PULL:
+        return src;
+      default:
+        return SymbolTable.NO_ID;
+    }
+  }
+
+  /**
+   * Appends clause as the last else clause of this instruction.
+   *
+   * @param clause instruction to execute when no other action in this chain is executed
+   * @return the new instruction chain
+   */
+  public Instruction orElse(Instruction clause) {
+    var tail = (elseInstruction == null) ? clause : elseInstruction.orElse(clause);
+    return new Instruction(opCode, guard, flow, src, snk, channel, tail);
+  }
+
+  /**
+   * Removes the first action in this chain that matches the action of clause and is followed by
+   * an else clause. Used to drain code fragment pipelines.
+   *
+   * @param clause single action to remove
+   * @return the new instruction chain, or this instruction if no action was removed
+   */
+  public Instruction without(Instruction clause) {
+    if (elseInstruction == null) {
+      return this;
+    }
+    if (sameAction(clause)) {
+      return elseInstruction;
+    }
+    var tail = elseInstruction.without(clause);
+    if (tail == elseInstruction) {
+      return this;
+    }
+    return new Instruction(opCode, guard, flow, src, snk, channel, tail);
+  }
+
+  /**
+   * @return true if the first action of this and other are the same, ignoring else clauses
+   */
+  public Boolean sameAction(Instruction other) {
+    return other != null && opCode == other.opCode && guard == other.guard
+        && channel == other.channel && flow == other.flow && src == other.src && snk == other.snk;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Instruction)) {
+      return false;
+    }
+    var other = (Instruction) obj;
+    return sameAction(other) && Objects.equals(elseInstruction, other.elseInstruction);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(opCode, guard, flow, src, snk, channel, elseInstruction);
+  }
+
+  /**
+   * Renders this instruction as WARP DSL text, e.g., "if has(F0) push(F0: A -> B, #1) else
+   * pull(F1: C -> A, #1)".
+   *
+   * @param symbols table with the names of the flow and node ids in this instruction
+   */
+  public String toString(SymbolTable symbols) {
+    return render(symbols::getFlowName, symbols::getNodeName);
+  }
+
+  /**
+   * Renders this instruction in the DSL form, with the flow and node ids in place of their names,
+   * e.g., "if has(0) push(0: 1 -> 2, #1)". Used for debugging; see toString(SymbolTable).
+   */
+  @Override
+  public String toString() {
+    return render(Integer::toString, Integer::toString);
+  }
+
+  private String render(IntFunction<String> flowName, IntFunction<String> nodeName) {
+    var text = new StringBuilder(64);
+    for (var clause = this; clause != null; clause = clause.elseInstruction) {
+      if (clause != this) {
+        text.append(" else ");
+      }
+      clause.appendAction(text, flowName, nodeName);
+    }
+    return text.toString();
+  }
+
+  private void appendAction(StringBuilder text, IntFunction<String> flowName,
+      IntFunction<String> nodeName) {
+    switch (guard) {
+      case HAS:
+        text.append("if has(").append(flowName.apply(flow)).append(") ");
+        break;
+      case HAS_EDGE:
+        text.append("if has(");
+        appendLink(text, flowName, nodeName);
+        text.append(") ");
+        break;
+      case NOT_HAS_EDGE:
+        text.append("if !has(");
+        appendLink(text, flowName, nodeName);
+        text.append(") ");
+        break;
+      default:
+        break;
+    }
+    switch (opCode) {
+      case PUSH:
+        text.append("push(");
+        appendLink(text, flowName, nodeName);
+        text.append(", #").append(channel).append(')');
+        break;
+      case PULL:
+        text.append("pull(");
+        appendLink(text, flowName, nodeName);
+        text.append(", #").append(channel).append(')');
+        break;
+      case WAIT:
+        text.append("wait(#").append(channel).append(')');
+        break;
+      default:
+        text.append("sleep");
+        break;
+    }
+  }
+
+  private void appendLink(StringBuilder text, IntFunction<String> flowName,
+      IntFunction<String> nodeName) {
+    text.append(flowName.apply(flow)).append(": ").append(nodeName.apply(src)).append(" -> ")
+        .append(nodeName.apply(snk));
+  }
+}
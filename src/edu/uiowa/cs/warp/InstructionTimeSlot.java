@@ -1,6 +1,6 @@
 package edu.uiowa.cs.warp;
 
-public class InstructionTimeSlot extends Row<String> {
+public class InstructionTimeSlot extends Row<Instruction> {
 
 	private static final long serialVersionUID = 1L;
 
@@ -9,11 +9,11 @@ public class InstructionTimeSlot extends Row<String> {
 		super();
 	}
 
-	InstructionTimeSlot (Integer numNodes, String element){
+	InstructionTimeSlot (Integer numNodes, Instruction element){
 		super(numNodes, element);
 	}
 
-	InstructionTimeSlot (String [] rowArray) {
+	InstructionTimeSlot (Instruction [] rowArray) {
 		super(rowArray);
 	}
 }
@@ -1,8 +1,5 @@
 package edu.uiowa.cs.warp;
 
-import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
-import java.util.HashMap;
-
 /**
  * @author sgoddard2
  * @version 1.3
@@ -15,14 +12,14 @@ public class LatencyAnalysis {
   private Program program;
   private WorkLoad workload;
   private ProgramSchedule programTable;
-  private HashMap<String, Integer> nodeIndex;
+  private int[] nodeColumn; // program column of each node, indexed by node id
 
   LatencyAnalysis(WarpInterface warp) {
     this.latencyReport = new Description();
     this.program = warp.toProgram();
     this.workload = warp.toWorkload();
     this.programTable = program.getSchedule();
-    this.nodeIndex = program.getNodeMapIndex();
+    this.nodeColumn = program.getNodeColumns();
   }
 
   LatencyAnalysis(Program program) {
@@ -30,7 +27,7 @@ public class LatencyAnalysis {
     this.program = program;
     this.workload = program.toWorkLoad();
     this.programTable = program.getSchedule();
-    this.nodeIndex = program.getNodeMapIndex();
+    this.nodeColumn = program.getNodeColumns();
   }
 
   public Description latencyReport() {
@@ -50,19 +47,20 @@ public class LatencyAnalysis {
      * 
      */
 
-    var flows = workload.getFlowNamesInPriorityOrder();
+    var flows = program.getFlowNamesInPriorityOrder();
     for (String flowName : flows) {
       var time = 0;
 
-      var nodes = workload.getNodesInFlow(flowName); // names of nodes in flow
-      var flowSnkIndex = nodes.length - 1;
+      var flow = workload.getSymbolTable().getFlowId(flowName);
+      var nodeIds = workload.getNodeIdsInFlow(flowName); // ids of nodes in flow
+      var flowSnkIndex = nodeIds.length - 1;
       /* get snk of last link in the flow, which is also the Flow snk node */
-      String snk = nodes[flowSnkIndex];
+      var snk = nodeIds[flowSnkIndex];
       /* get the src of last link in the flow */
-      String src = nodes[flowSnkIndex - 1];
+      var src = nodeIds[flowSnkIndex - 1];
       /* get (column) indexes into programTable of these nodes */
-      var snkIndex = nodeIndex.get(snk);
-      var srcIndex = nodeIndex.get(src);
+      var snkIndex = nodeColumn[snk];
+      var srcIndex = nodeColumn[src];
       /* get the array containing the number of transmissions required for each link in the flow */
       var numTxAttemptsPerLink = workload.getNumTxAttemptsPerLink(flowName);
       /* get the number of transmission required for the last link in the flow */
@@ -78,11 +76,11 @@ public class LatencyAnalysis {
         time = releaseTime;
         numTxProcessed = 0; // num of Tx seen in the program schedule so far
         while (time < nextReleaseTime) {
-          /* get instruction strings at these to locations */
-          String instr1 = programTable.get(time, srcIndex);
-          String instr2 = programTable.get(time, snkIndex);
-          numTxProcessed += numMatchingTx(flowName, src, snk, instr1);
-          numTxProcessed += numMatchingTx(flowName, src, snk, instr2);
+          /* get instructions at these to locations */
+          Instruction instr1 = programTable.get(time, srcIndex);
+          Instruction instr2 = programTable.get(time, snkIndex);
+          numTxProcessed += numMatchingTx(flow, src, snk, instr1);
+          numTxProcessed += numMatchingTx(flow, src, snk, instr2);
           if (numTxProcessed == numTxRequired) {
             /*
              * all required Tx attempts have been made compute and record latency
@@ -121,32 +119,29 @@ public class LatencyAnalysis {
     return latencyReport;
   }
 
-  public Integer numMatchingTx(String flow, String src, String snk, String instr) {
+  /**
+   * @param flow flow id
+   * @param src src node id of the link
+   * @param snk snk node id of the link
+   * @param instr instruction from the program schedule
+   * @return the number of transmissions of flow over src -> snk in instr and its else clauses
+   */
+  public Integer numMatchingTx(int flow, int src, int snk, Instruction instr) {
     var numTx = 0;
 
-    if (flow == null || src == null || snk == null || instr == null) {
+    if (instr == null) {
       /* make sure all parameters are valid */
       return numTx;
     }
-    /*
-     * get a Warp instruction parser object and then get the instruction parameters from the
-     * instruction string.
-     */
-    var dsl = new WarpDSL();
-    var instructionParametersArray = dsl.getInstructionParameters(instr);
-
-    for (InstructionParameters entry : instructionParametersArray) {
-      String flowName = entry.getFlow();
-      if (flowName.equals(flow)) {
-        /*
-         * This instruction is for the flow we want. (flow name is set for push/pull instructions,
-         * which are all we want. If not push/pull, then we skip this instruction.) If flow, src,
-         * and snk names in instruction match input parameters, then we have a Tx attempt.
-         */
-        if (src.equals(entry.getSrc()) && snk.equals(entry.getSnk())) {
-          /* flow, src, and snk match, so increment Tx attempts */
-          numTx++;
-        }
+    /* walk the instruction and each of its else clauses */
+    for (var entry = instr; entry != null; entry = entry.getElse()) {
+      /*
+       * Only push/pull instructions transmit a flow; wait and sleep are skipped. If flow, src, and
+       * snk ids in instruction match input parameters, then we have a Tx attempt.
+       */
+      if (entry.isTxOn(flow, src, snk)) {
+        /* flow, src, and snk match, so increment Tx attempts */
+        numTx++;
       }
     }
     return numTx;
@@ -8,7 +8,7 @@ public class LatestReleaseTimeComparator <T extends SchedulableObject> implement
 	// for descending order of release time
 	@Override
 	public int compare(T obj1, T obj2) {	
-		var result = obj1.LatestReleaseTimeComparison(obj2);
+		var result = Integer.compare(obj2.getReleaseTime(), obj1.getReleaseTime());
 		return result; // 0 => tie on release time
 	}
 }
@@ -9,22 +9,39 @@ import java.util.*;
 
 public class Node extends SchedulableObject implements Comparable<Node> {
 	
-	private static final Integer DEFAULT_CHANNEL = 0; 
+	private static final int DEFAULT_CHANNEL = 0; 
 	
-	private Integer channel; // used to track the current channel node is using for Tx/Rx
-	private Integer index; // used as an alternate name for the simulator input file
+	private int channel; // used to track the current channel node is using for Tx/Rx
+	private int index; // used as an alternate name for the simulator input file
+	private int id; // dense id of the node in the workload SymbolTable
     private ArrayList<Edge> edges; // edges connected to the node
-    private Set<String> conflicts; // nodes with conflicts
+    private BitSet conflicts; // ids of nodes with conflicts
+    private boolean frozen; // true for the nodes of a workload snapshot, see freeze()
     
     // constructor that sets name, and index
-    Node(String name, Integer priority, Integer index) {
+    Node(String name, int priority, int index) {
+    	this(name, SymbolTable.NO_ID, priority, index);
+    }
+    
+    // constructor that sets name, id, and index
+    Node(String name, int id, int priority, int index) {
     	super();
     	setName(name);
     	setPriority(priority);
+    	this.id = id;
     	this.index = index;
     	this.channel = DEFAULT_CHANNEL;
     	this.edges = new ArrayList<Edge>();
-    	this.conflicts = new HashSet<String>();
+    	this.conflicts = new BitSet();
+    }
+    
+    /*
+     * Copy constructor that copies the workload attributes of node,
+     * but not the edges and conflicts added when it is scheduled
+     */
+    Node(Node node) {
+    	this(node.getName(), node.getId(), node.getPriority(), node.getIndex());
+    	this.channel = node.getChannel();
     }
     
     @Override
@@ -50,50 +67,80 @@ public class Node extends SchedulableObject implements Comparable<Node> {
     }
     
 	/**
-	 * @return the conflicts
+	 * @return the conflicts, a bit set indexed by node id
 	 */
-	public Set<String> getConflicts() {
+	public BitSet getConflicts() {
 		return conflicts;
 	}
 
-	public void addConflict(String name) {
-    	conflicts.add(name);
+	public void addConflict(int nodeId) {
+    	conflicts.set(nodeId);
     }
 	
     /**
 	 * @return the size of edges
 	 */
-    public Integer numEdges() {
+    public int numEdges() {
     	return edges.size();
     }
 
 	/**
 	 * @return the channel
 	 */
-	public Integer getChannel() {
+	public int getChannel() {
 		return channel;
 	}
 
+	/**
+	 * @return the node id in the workload SymbolTable
+	 */
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * @return the index
 	 */
-	public Integer getIndex() {
+	public int getIndex() {
 		return index;
 	}
 
 	/**
 	 * @param channel the channel to set
 	 */
-	public void setChannel(Integer channel) {
+	public void setChannel(int channel) {
+		checkMutable();
 		this.channel = channel;
 	}
 
 	/**
 	 * @param index the index to set
 	 */
-	public void setIndex(Integer index) {
+	public void setIndex(int index) {
+		checkMutable();
 		this.index = index;
 	}
+	
+	@Override
+	public void setPriority(int priority) {
+		checkMutable();
+		super.setPriority(priority);
+	}
+	
+	/*
+	 * Makes the workload attributes of the node (channel, index and priority) read-only, for a
+	 * workload snapshot. Copies made with the copy constructor can be changed.
+	 */
+	void freeze() {
+		frozen = true;
+	}
+	
+	private void checkMutable() {
+		if (frozen) {
+			throw new UnsupportedOperationException(
+					String.format("Node %s is in a workload snapshot, which can't be changed", getName()));
+		}
+	}
 
 	@Override
 	public void print(String headerMsg) {
@@ -0,0 +1,103 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+
+/**
+ * NodeOccupancy is a busy index for a program schedule. For each node (column of the schedule) it
+ * records the time slots in which the node has an instruction other than sleep. Each node's slots
+ * are stored as a bit vector in a long[], so the next time slot in which two nodes are both
+ * sleeping is found 64 slots at a time by OR-ing the two rows.
+ *
+ * Slots that have never been marked are free, which matches the sleep instructions that fill new
+ * time slots.
+ *
+ * @version 1.0
+ */
+public class NodeOccupancy {
+
+  private static final int WORD_SHIFT = 6; // 64 slots per long
+  private static final int INITIAL_WORDS = 4;
+
+  private long[][] busy; // busy[node][word]; bit set when node is busy in that slot
+  private int numWords; // all rows have the same length
+
+  NodeOccupancy(Integer nNodes) {
+    numWords = INITIAL_WORDS;
+    busy = new long[nNodes][numWords];
+  }
+
+  /**
+   * @return the number of nodes tracked
+   */
+  public Integer getNumNodes() {
+    return busy.length;
+  }
+
+  /**
+   * Marks node as busy or free in timeSlot.
+   */
+  public void setBusy(int node, int timeSlot, boolean isBusy) {
+    var word = timeSlot >>> WORD_SHIFT;
+    var bit = 1L << timeSlot; // shift distance is taken mod 64
+    if (isBusy) {
+      ensureCapacity(word);
+      busy[node][word] |= bit;
+    } else if (word < numWords) {
+      busy[node][word] &= ~bit;
+    }
+  }
+
+  /**
+   * @return true if node has an instruction other than sleep in timeSlot
+   */
+  public Boolean isBusy(int node, int timeSlot) {
+    var word = timeSlot >>> WORD_SHIFT;
+    return word < numWords && (busy[node][word] & (1L << timeSlot)) != 0;
+  }
+
+  /**
+   * Updates the busy bits for every node from the instructions stored in timeSlot of the schedule.
+   */
+  public void update(int timeSlot, InstructionTimeSlot instructions) {
+    for (int node = 0; node < busy.length; node++) {
+      setBusy(node, timeSlot, !instructions.get(node).isSleep());
+    }
+  }
+
+  /**
+   * Finds the first time slot at or after fromTimeSlot in which both nodes are free.
+   *
+   * @param node1 index of the first node
+   * @param node2 index of the second node
+   * @param fromTimeSlot first time slot to check
+   * @return the first free time slot. Slots past the last busy slot are always free.
+   */
+  public int nextFreeSlot(int node1, int node2, int fromTimeSlot) {
+    var row1 = busy[node1];
+    var row2 = busy[node2];
+    var word = fromTimeSlot >>> WORD_SHIFT;
+    if (word >= numWords) {
+      return fromTimeSlot;
+    }
+    /* treat the slots before fromTimeSlot in the first word as busy */
+    var occupied = row1[word] | row2[word] | ((1L << fromTimeSlot) - 1);
+    while (occupied == -1L) {
+      word++;
+      if (word == numWords) {
+        return word << WORD_SHIFT;
+      }
+      occupied = row1[word] | row2[word];
+    }
+    return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(~occupied);
+  }
+
+  private void ensureCapacity(int word) {
+    if (word < numWords) {
+      return;
+    }
+    numWords = Math.max(word + 1, 2 * numWords);
+    for (int node = 0; node < busy.length; node++) {
+      busy[node] = Arrays.copyOf(busy[node], numWords);
+    }
+  }
+}
@@ -9,7 +9,7 @@ public class PeriodComparator<T extends SchedulableObject> implements Comparator
 	@Override
 	public int compare(T obj1, T obj2) {	
 		/* only sort by period, as we only want shortest period */
-		return obj1.periodComparison(obj2); 
+		return Integer.compare(obj1.getPeriod(), obj2.getPeriod()); 
 	}
 
 }
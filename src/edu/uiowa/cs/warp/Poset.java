@@ -2,7 +2,6 @@ package edu.uiowa.cs.warp;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.PriorityQueue;
 
@@ -20,11 +19,11 @@ public abstract class Poset {
 
 	private Activations activations;
 	private WorkLoad workload;
+	private SynthesisContext context; // copies of the flows and nodes that get edges added
 	protected Collection<Flow> flows;
 	private Collection<Node> nodes;
-	private NodeMap nodeMap;
 	private PriorityQueue<Activation> priorityQueue;
-	protected HashMap<String, Integer> nodeConnectivityMap;
+	protected int[] nodeConnectivity; // number of connections, indexed by node id
 
 	FlowNodeToActivationMap activationMap;
 	/*
@@ -43,52 +42,54 @@ public abstract class Poset {
 	 * 	Then for each flow with that coordinator
 	 * 		identify other coordinators two away, etc.
 	 */
-	Poset(WorkLoad workload) {
-		this.workload = workload;
+	Poset(SynthesisContext context) {
+		this.context = context;
+		this.workload = context.getWorkLoad();
 		this.activations = new Activations();
 		this.activationMap = new FlowNodeToActivationMap();
 		/* init map to return a null activation if null key intered */
 		this.activationMap.put(null, null);
-		flows = workload.getFlows().values();
-		nodeMap = workload.getNodes();
-		nodes = nodeMap.values();
+		/* edges are added to the copies, so the workload is not changed */
+		flows = context.getFlows();
+		nodes = context.getNodes();
 		priorityQueue = new 
 				SchedulableObjectQueue<Activation>(new 
 						PriorityComparator<Activation>());
 		/* get global node connectivity */
-		nodeConnectivityMap = getNodeConnectivity();
+		nodeConnectivity = getNodeConnectivity();
 		buildPosetOfActivations();
 	}
 
-	private HashMap<String, Integer> getNodeConnectivity() {
-		HashMap<String, Integer> map = new HashMap<>();
+	private int[] getNodeConnectivity() {
+		var connectivity = new int[workload.getSymbolTable().getNumNodes()];
 		
 		for (Flow flow: flows) {
 			var nodesInFlow = flow.getNodes();
 			var size = nodesInFlow.size();
 			for (Integer i =0 ; i < size; i++) {
-				var nodeName = nodesInFlow.get(i).getName();
-				var connectivity = map.get(nodeName);
 				var connections = 2; // default # of connections
 				if (i == 0 || i == size-1) {
 					/* src or snk => connections = 1 */
 					connections = 1;
 				}
-				if (connectivity != null) {
-					connectivity += connections;
-					map.put(nodeName,connectivity);
-				} else {
-					map.put(nodeName,connections); // initial connection
-				}
+				connectivity[nodesInFlow.get(i).getId()] += connections;
 			}
 		}
-		return map;
+		return connectivity;
+	}
+
+	/**
+	 * @return the context of the run that builds this poset
+	 */
+	public SynthesisContext getContext() {
+		return context;
 	}
 
 	public ArrayList<String> getNodeNames() {
-		var keys = nodeMap.keySet();
-		var nodeNames = new ArrayList<String>(keys.size());
-		nodeNames.addAll(keys);
+		var nodeNames = new ArrayList<String>(nodes.size());
+		for (Node node: nodes) {
+			nodeNames.add(node.getName());
+		}
 		return nodeNames;
 	}
 	
@@ -96,6 +97,20 @@ public abstract class Poset {
 		var nodeNames = workload.getNodeNamesOrderedAlphabetically();
 		return nodeNames;
 	}
+	
+	/**
+	 * @return the program schedule column of each node, indexed by node id
+	 */
+	public int[] getNodeColumns() {
+		return workload.getSymbolTable().getNodeColumns();
+	}
+	
+	/**
+	 * @return the number of columns of the program schedule, one per node
+	 */
+	public int getNumNodeColumns() {
+		return workload.getSymbolTable().getNumActiveNodes();
+	}
 
 	public void buildPosetOfActivations() {
 		/* assumes flow priorities have already been set */
@@ -141,12 +156,10 @@ public abstract class Poset {
 				 * flows are updated with the same edge information. 
 				 * This let's us play with partition creation options later.
 				 */
-				var srcNode = nodeMap.get(flowNodes.get(i).getName()); 
-				var snkNode = nodeMap.get(flowNodes.get(i+1).getName());
 				var flowSrc = flowNodes.get(i);  // node in the flow
 				var flowSnk = flowNodes.get(i+1);
-				var src = srcNode.getName();
-				var snk = snkNode.getName();
+				var srcNode = context.getNode(flowSrc.getId()); 
+				var snkNode = context.getNode(flowSnk.getId());
 
 				/*
 				 * Edge priority within a flow is based on position
@@ -164,7 +177,7 @@ public abstract class Poset {
 				/* edge phase = flow phase + edge position in flow */
 				var phase = flowPhase + i; 
 				var numTx = numTxArray[i];
-				edge = new Edge(flow.getName(),src,snk,priority, 
+				edge = new Edge(flow,srcNode,snkNode,priority, 
 						period, deadline, phase, numTx);
 				/* Add edge to the nodes in the NodeMap */
 				srcNode.addEdge(edge);
@@ -190,11 +203,11 @@ public abstract class Poset {
 	private void createGlobalConflictLists() {
 		for (Node node: nodes) {
 			for (Edge edge: node.getEdges()) {
-				/* get src and snk nodes and names */
-				var src = edge.getSrc();
-				var snk = edge.getSnk();
-				var srcNode = nodeMap.get(src);
-				var snkNode = nodeMap.get(snk);
+				/* get src and snk nodes and ids */
+				var src = edge.getSrcId();
+				var snk = edge.getSnkId();
+				var srcNode = context.getNode(src);
+				var snkNode = context.getNode(snk);
 				/* 
 				 * conflict list is a set, so just add
 				 * don't need to worry about duplicates
@@ -212,8 +225,8 @@ public abstract class Poset {
 			for (Integer i = 0; i < flowNodes.size() -1 ; i++) {
 				var srcNode = flowNodes.get(i); 
 				var snkNode = flowNodes.get(i+1);
-				var src = srcNode.getName();
-				var snk = snkNode.getName();
+				var src = srcNode.getId();
+				var snk = snkNode.getId();
 				/* 
 				 * conflict list is a set, so just add
 				 * don't need to worry about duplicates
@@ -317,7 +330,7 @@ public abstract class Poset {
 			activationMap.put(node,newPartition);
 		}
 		/* add the node as the coordinator */
-		newPartition.addCoordinator(node.getName());
+		newPartition.addCoordinator(node.getId());
 		/* set the conflicts */
 		newPartition.setConflicts(node.getConflicts());
 		/* add the edges associated with this coordinator */
@@ -394,32 +407,26 @@ public abstract class Poset {
 		Flow flow = iterator.next();
 		var nodes = flow.getNodes();
 		var srcBaseStation = nodes.get(0);
-		var srcBaseStationName = srcBaseStation.getName();
+		var srcBaseStationId = srcBaseStation.getId();
 		var snkBaseStation = nodes.get(nodes.size()-1);
-		var snkBaseStationName = snkBaseStation.getName(); 
+		var snkBaseStationId = snkBaseStation.getId(); 
 		var found = false;
     
         while (!found && iterator.hasNext()) {
         	flow = iterator.next();
     		nodes = flow.getNodes();
-        	var src = nodes.get(0);
-			var srcName = src.getName();
-			var snk = nodes.get(nodes.size()-1);
-			var snkName = snk.getName();
-			if (!srcBaseStationName.equals(srcName) && 
-					snkBaseStationName.equals(snkName)) {
+        	var src = nodes.get(0).getId();
+			var snk = nodes.get(nodes.size()-1).getId();
+			if (srcBaseStationId != src && snkBaseStationId == snk) {
 				baseStation = snkBaseStation;
 				found = true;
-			} else if (srcBaseStationName.equals(srcName) && 
-					!snkBaseStationName.equals(snkName)) {
+			} else if (srcBaseStationId == src && snkBaseStationId != snk) {
 				baseStation = srcBaseStation;
 				found = true;
-			} else if (!srcBaseStationName.equals(snkName) &&
-					snkBaseStationName.equals(srcName)) {
+			} else if (srcBaseStationId != snk && snkBaseStationId == src) {
 				baseStation = snkBaseStation;
 				found = true;
-			} else if (srcBaseStationName.equals(snkName) && 
-					!snkBaseStationName.equals(srcName)) {
+			} else if (srcBaseStationId == snk && snkBaseStationId != src) {
 				baseStation = srcBaseStation;
 				found = true;
 			}
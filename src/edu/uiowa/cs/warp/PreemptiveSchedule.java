@@ -39,8 +39,9 @@ public class PreemptiveSchedule extends Schedule {
 		
 		
 		if (channelConsidered == numChannels) {
-			/* no available time slots near this time, even for preemption */
-			return findChannelAndTime(time+1,schedulableObject);
+			/* no available time slots near this time, even for preemption,
+			 * so continue the search at time+1 */
+			return null;
 		} else {
 			/* can use timeAvailable.time here on timeAvailable.channel
 			 * then must find additional time on same channel until 
@@ -71,32 +72,33 @@ public class PreemptiveSchedule extends Schedule {
 		var time = startTime;
 		var results = new ArrayList<ScheduleTime>();
 		
-		// if (timeRemaining <= )
-		while (time < endScheduleTime && conflictsExist(a1, time, timeRemaining )) {
-			time ++; 
-		}
-		if (time >= endScheduleTime) {
-			/* no conflict time available */
-			results.add(new ScheduleTime(time,time));
-			return results;
-		} 
-		
-		if (isAvailable(a1, channel, time, timeRemaining)) {
-			results.add(new ScheduleTime(time,time+timeRemaining-1));
-		} else {
+		while (true) {
+			time = skipConflicts(a1, time, timeRemaining);
+			if (time >= endScheduleTime) {
+				/* no conflict time available */
+				results.add(new ScheduleTime(time,time));
+				return results;
+			} 
+			if (isAvailable(a1, channel, time, timeRemaining)) {
+				results.add(new ScheduleTime(time,time+timeRemaining-1));
+				return results;
+			}
 			var timeAvailable = availableTime(a1,  channel, time);
 			if (timeAvailable > 0) {
 				/* found at least one time slot available */
-//				a1.addAdditionalStartTime(time);
-				results.addAll(findAdditionalTime(channel,time+timeAvailable,a1,timeRemaining-timeAvailable));
+				time += timeAvailable;
+				timeRemaining -= timeAvailable;
 			} else {
-				/* look ahead in time by one unit */
-				results.addAll(findAdditionalTime(channel,time+1,a1,timeRemaining));
+				/* look ahead past the entry in the way, if it can't be
+				 * combined with a1, or else by one unit */
+				var entry = schedule.getInterval(channel, time);
+				if (entry != null && !entry.getEntry().canCombine(a1)) {
+					time = entry.getEnd()+1;
+				} else {
+					time++;
+				}
 			}
-			
 		}
-		
-		return results;
 	}
 	
 	
@@ -122,7 +124,7 @@ public class PreemptiveSchedule extends Schedule {
 	private Integer availableTime(Activation a1, Integer channel, Integer start) {
 		Integer result = 0;
 		
-		while (isAvailable(a1,channel,start+result,1)) {
+		while (start+result < endScheduleTime && isAvailable(a1,channel,start+result,1)) {
 			result++;
 		}
 		return result;
@@ -204,12 +206,10 @@ public class PreemptiveSchedule extends Schedule {
 			entry = combinedActivation;
 			startTime = entry.getStartTime();
 		}
-		for (int i = startTime; i <= endTime; i++) {
-			/* Add this object to the schedule for the
-			 * from startTime to endTime.
-			 */
-			schedule.set(channel, i, entry);
-		}
+		/* Add this object to the schedule for the
+		 * from startTime to endTime.
+		 */
+		setEntries(channel, startTime, endTime, entry);
 		
 		return success;
 	}
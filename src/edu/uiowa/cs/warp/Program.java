@@ -1,9 +1,10 @@
 package edu.uiowa.cs.warp;
 
-import edu.uiowa.cs.utilities.Utilities;
+import edu.uiowa.cs.warp.Instruction.Guard;
+import edu.uiowa.cs.warp.Instruction.OpCode;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.List;
 
 
 /**
@@ -13,10 +14,8 @@ import java.util.HashMap;
 // Old Scheduler Worked as class Scheduler{} on Feb 17
 public class Program implements SystemAttributes {
 
-  private static final String UNKNOWN = "Unknown";
-  private static final String SLEEP_INSTRUCTION = "sleep";
-  private static final String WAIT_FRAGMENT = "wait(";
-  private static final String ELSE_PULL_FRAGMENT = "else pull(";
+  private static final Integer UNKNOWN_CHANNEL = Channels.NO_CHANNEL;
+  private static final Instruction SLEEP_INSTRUCTION = Instruction.sleep();
 
   // Global flags and data structures
   // FileManager wfm; // class to provide basic WARP file management functions
@@ -29,28 +28,40 @@ public class Program implements SystemAttributes {
   Boolean realTimeHARTflag;
   Boolean optimizationRequested;
   Channels channelsAvailable; // channels available for each time slot
+  NodeOccupancy nodesBusy; // time slots in which each node has an instruction other than sleep
   Integer nChannels;
   Boolean verbose;
   Boolean reportLatency;
   private Description deadlineMisses;
+  private List<String> flowsInPriorityOrder; // flow names in the order of the selected scheduler
+  private SynthesisContext context; // state changed while the program is built
 
   Program(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice, Boolean verbose,
       Boolean reportLatency) {
-    setDefaultParameters(workLoad, nChannels, verbose, reportLatency);
-    buildProgram(choice);
+    this(new SynthesisContext(workLoad), nChannels, choice, verbose, reportLatency);
   }
 
   Program(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice) {
-    setDefaultParameters(workLoad, nChannels, false, false);
+    this(new SynthesisContext(workLoad), nChannels, choice, false, false);
+  }
+
+  /**
+   * Builds the program for the workload of context. The program is built with context, so it can
+   * be cancelled with context.cancel(), in which case a CancellationException is thrown.
+   */
+  Program(SynthesisContext context, Integer nChannels, ScheduleChoices choice, Boolean verbose,
+      Boolean reportLatency) {
+    setDefaultParameters(context, nChannels, verbose, reportLatency);
     buildProgram(choice);
   }
 
-  private void setDefaultParameters(WorkLoad workLoad, Integer nChannels, Boolean verbose,
+  private void setDefaultParameters(SynthesisContext context, Integer nChannels, Boolean verbose,
       Boolean reportLatency) {
-    this.workLoad = workLoad; // flows for which schedules will be built
+    this.workLoad = context.getWorkLoad(); // flows for which schedules will be built
+    this.context = context; // so building the program won't change workLoad
     this.scheduleBuilt = new ProgramSchedule();
     this.SchedulerSelected = ScheduleChoices.PRIORITY; // set the type of scheduler selected
-    workLoad.setFlowsInPriorityOrder();
+    flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY);
     this.schedulerName = "Priority";
     this.schChoice = "Priority";
     this.nTransmissions = 0;
@@ -84,7 +95,7 @@ public class Program implements SystemAttributes {
       case WARP_POSET_RM: // fall through
       case WARP_POSET_DM: // fall through
         setScheduleSelected(choice);
-        var poset1 = new WarpPoset(workLoad);
+        var poset1 = new WarpPoset(context);
         var schedule1 = new NonPreemptiveSchedule(poset1, this.nChannels);
         var newProgram = schedule1.toProgram();
         setSchedule(newProgram); // store the schedule built
@@ -96,8 +107,8 @@ public class Program implements SystemAttributes {
       case POSET_RM: // fall through
       case POSET_DM:
         setScheduleSelected(choice);
-        // var poset = new BasicPoset(workLoad);
-        var poset2 = new ConnectivityPoset(workLoad);
+        // var poset = new BasicPoset(context);
+        var poset2 = new ConnectivityPoset(context);
         var schedule2 = new NonPreemptiveSchedule(poset2, this.nChannels);
         newProgram = schedule2.toProgram();
         setSchedule(newProgram); // store the schedule built
@@ -105,7 +116,7 @@ public class Program implements SystemAttributes {
       //// case CONNECTIVITY_POSET_PREEMPTIVE_PRIORITY: // fall through
       //// case CONNECTIVITY_POSET_PREEMPTIVE_RM: // fall through
       //// case CONNECTIVITY_POSET_PREEMPTIVE_DM: // fall through
-      // var poset3 = new ConnectivityPoset(workLoad);
+      // var poset3 = new ConnectivityPoset(context);
       // var schedule3 = new PreemptiveSchedule(poset3, this.nChannels);
       // newProgram = schedule3.toProgram();
       // setSchedule(newProgram); // store the schedule built
@@ -162,13 +173,15 @@ public void buildOriginalProgram() { // builds a Priority schedule
     Boolean realtimeHART = getRealTimeHartFlag();
     var optimizationRequested = getOptimizationFlag();
     var schedule = new ProgramSchedule(); // create an empty schedule
-    var newInstruction = SLEEP_INSTRUCTION; // initialize the new Instruction with a sleep
-    var prioritizedFlows = workLoad.getFlowNamesInPriorityOrder();
+    Instruction newInstruction = SLEEP_INSTRUCTION; // initialize the new Instruction with a sleep
+    var prioritizedFlows = flowsInPriorityOrder;
     // var orderedNodes = workLoad.getNodeNamesOrderedAlphabetically(); // create an array of node
     // names
     // sorted alphabetically
-    var nodeIndex = getNodeMapIndex(); // get the mapping from node names to index in schedule
-    var nNodes = nodeIndex.size();
+    var nodeColumn = getNodeColumns(); // get the schedule column of each node, indexed by node id
+    var symbols = workLoad.getSymbolTable(); // flow ids for the instructions, names for errors
+    var nNodes = symbols.getNumActiveNodes(); // one column per node
+    nodesBusy = new NodeOccupancy(nNodes); // all nodes sleep in every slot initially
     /*
      * for (int index = 0; index < nNodes; index++) { // set up the node to index mapping var name =
      * orderedNodes[index]; nodeIndex.put(name, index); // add name, index mapping to NodeIndex map
@@ -189,12 +202,11 @@ public void buildOriginalProgram() { // builds a Priority schedule
       channelsAvailable.addNewChannelSet();// initially, all channels are available in each time
                                            // slot
     }
-    // create an instance of the Warp DSL class for parsing instructions
-    var dsl = new WarpDSL();
-
     for (String flowName : prioritizedFlows) { // loop through all of the nodes in priority order
-      var nodesInFlow = workLoad.getNodesInFlow(flowName);
-      var nNodesInFlow = nodesInFlow.length;
+      context.checkCancelled(); // stop here if the run was cancelled
+      var flowId = symbols.getFlowId(flowName); // instructions hold ids, not names
+      var nodeIdsInFlow = workLoad.getNodeIdsInFlow(flowName); // ids of the nodes in flow order
+      var nNodesInFlow = nodeIdsInFlow.length;
       var e2eFlag = false; // default is to not use e2e to achieve E2E
       if (nTransmissions == 0) { // use nTx from flow.nTXperLink for realtimeHart and the linkTX
                                  // array otherwise
@@ -206,7 +218,6 @@ public void buildOriginalProgram() { // builds a Priority schedule
       } else {
         nTx = nTransmissions;
       }
-      var snk = "";
       var linkTxCosts = workLoad.getNumTxAttemptsPerLink(flowName);
       if (verbose) {
         var totalCost = workLoad.getTotalTxAttemptsInFlow(flowName);
@@ -233,6 +244,7 @@ public void buildOriginalProgram() { // builds a Priority schedule
       var FlowSrcInstructionTimeSlot = flowPhase; // initialize the time at which the flow's src
                                                   // node can first transmit
       for (int instance = 0; instance < hyperPeriod / flowPeriod; instance++) {
+        context.checkCancelled();
         for (int flowNodeIndex = 0; flowNodeIndex < nNodesInFlow - 1; flowNodeIndex++) { // don't
                                                                                          // push for
                                                                                          // last
@@ -244,8 +256,8 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                                                          // 2 less
                                                                                          // than
                                                                                          // count
-          var currentNodeName = nodesInFlow[flowNodeIndex]; // get name of current node in the flow
-                                                            // (aka source of data)
+          var currentNode = nodeIdsInFlow[flowNodeIndex]; // get id of current node in the flow
+                                                          // (aka source of data)
           if (e2eFlag) {
             nTx = linkTxCosts[flowNodeIndex]; // set nTx for this link
           }
@@ -254,15 +266,14 @@ public void buildOriginalProgram() { // builds a Priority schedule
           Arrays.fill(currentNodeInstruction, 0); // initialize the currentNondeInstruction
           for (int index = 0; index < nTx; index++) { // repeat instruction nTx times so that this
                                                       // flow meets desired reliability
-            var instructionNodeName = currentNodeName; // name of node for which we write an
-                                                       // instruction in its program
-            var priorSrcInstruction = UNKNOWN; // variable used to store and possibly update the
-                                               // priorSrcInstruction during optimization
+            var instructionNode = currentNode; // id of node for which we write an instruction in
+                                               // its program
+            Instruction priorSrcInstruction = null; // variable used to store and possibly update
+                                                    // the priorSrcInstruction during optimization
             var priorSrcUpdated = false; // flag to indicate if priorSrcInstruction is updated or
                                          // not
-            snk = nodesInFlow[flowNodeIndex + 1]; // should get a valid sink node, set name to
-                                                  // UNKNOWN if we don't
-            // when not optimizing instructionNodeName is current node, but we might update a
+            var snkNode = nodeIdsInFlow[flowNodeIndex + 1]; // id of the sink node of the link
+            // when not optimizing instructionNode is current node, but we might update a
             // different node's instruction to optimize
             var phase = instance * flowPeriod + flowPhase; // update phase for the instance of the
                                                            // flow release, which happens once every
@@ -275,7 +286,7 @@ public void buildOriginalProgram() { // builds a Priority schedule
             Integer instructionIndex = findNextAvailableInstructionTimeSlot(schedule,
                 firstPossibleSlot, flowNodeIndex, index, nTx, previousNodeInstruction,
                 currentNodeInstruction, SLEEP_INSTRUCTION, realtimeHART, optimizationRequested,
-                nodeIndex.get(currentNodeName), nodeIndex.get(snk));
+                nodeColumn[currentNode], nodeColumn[snkNode]);
             if (instructionIndex >= schedule.size()) { // instructionIndex is beyond current
                                                        // schedule length. Increase schedule and
                                                        // channelsAvailable tables
@@ -298,8 +309,8 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                       // phases...
               }
             }
-            String channel = findNextAvailableChannel(schedule, instructionNodeName,
-                instructionIndex, nodeIndex.get(currentNodeName), nodeIndex.get(snk));
+            Integer channel = findNextAvailableChannel(schedule, instructionNode,
+                instructionIndex, nodeColumn[currentNode], nodeColumn[snkNode]);
 
             // Now check if we have a valid channel. If not we need to find a new time slot further
             // down the schedule.
@@ -309,15 +320,16 @@ public void buildOriginalProgram() { // builds a Priority schedule
             // down the schedule.
             // So, initialize the search to start at the current slot and then increase by one each
             // time we loop if the current slot
-            while (channel.equals(UNKNOWN)) { // findNextAvailableChannel will return UNKNOWN if no
-                                              // channel was available. In that case, we need to
-                                              // find a new slot for this instruction after the last
-                                              // index found
+            while (channel.equals(UNKNOWN_CHANNEL)) { // findNextAvailableChannel will return
+                                                      // UNKNOWN_CHANNEL if no channel was
+                                                      // available. In that case, we need to find a
+                                                      // new slot for this instruction after the
+                                                      // last index found
               var startSearchIndex = instructionIndex + 1;
               instructionIndex = findNextAvailableInstructionTimeSlot(schedule, startSearchIndex,
                   flowNodeIndex, index, nTx, previousNodeInstruction, currentNodeInstruction,
                   SLEEP_INSTRUCTION, realtimeHART, optimizationRequested,
-                  nodeIndex.get(currentNodeName), nodeIndex.get(snk));
+                  nodeColumn[currentNode], nodeColumn[snkNode]);
               if (instructionIndex >= schedule.size()) { // instructionIndex is beyond current
                                                          // schedule lenght. Increase schedule and
                                                          // channelsAvailable tables
@@ -340,32 +352,30 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                         // phases...
                 }
               }
-              channel = findNextAvailableChannel(schedule, instructionNodeName, instructionIndex,
-                  nodeIndex.get(currentNodeName), nodeIndex.get(snk));
+              channel = findNextAvailableChannel(schedule, instructionNode, instructionIndex,
+                  nodeColumn[currentNode], nodeColumn[snkNode]);
             }
-            workLoad.setNodeChannel(instructionNodeName, Integer.valueOf(channel));
+            context.setNodeChannel(instructionNode, channel);
             if (realtimeHART) {
-              newInstruction = pushInstruction(flowName, currentNodeName, snk, channel);
+              newInstruction = pushInstruction(flowId, currentNode, snkNode, channel);
             } else {
-              newInstruction = hasPushInstruction(flowName, currentNodeName, snk, channel);
+              newInstruction = hasPushInstruction(flowId, currentNode, snkNode, channel);
             }
 
             // if optimization flag is set, look to see if any optimizations are possible
             if (optimizationRequested && instructionIndex > 0) {
               var priorInstructionTimeSlotArrayList = schedule.get(instructionIndex - 1);
               var priorInstructionTimeSlot = priorInstructionTimeSlotArrayList
-                  .toArray(new String[priorInstructionTimeSlotArrayList.size()]);
-              var priorInstruction = priorInstructionTimeSlot[nodeIndex.get(snk)]; // get
-                                                                                   // instruction
-                                                                                   // scheduled for
-                                                                                   // snk to execute
-                                                                                   // in the prior
-                                                                                   // time slot
+                  .toArray(new Instruction[priorInstructionTimeSlotArrayList.size()]);
+              var priorInstruction = priorInstructionTimeSlot[nodeColumn[snkNode]]; // get
+                                                                                    // instruction
+                                                                                    // scheduled for
+                                                                                    // snk to execute
+                                                                                    // in the prior
+                                                                                    // time slot
               if (index == (nTx - 1)) {
-                String hasSubstring = String.format("if has(%s", flowName);
-                String elseSubString = "else pull(";
-                if (priorInstruction.contains(hasSubstring)
-                    && !priorInstruction.contains(elseSubString) && !realtimeHART) {
+                if (priorInstruction.hasGuardOn(flowId)
+                    && !priorInstruction.containsElse(OpCode.PULL) && !realtimeHART) {
                   // The sink node is not waiting, so add this instruction as an else to it
                   // Also need to make sure we haven't already combined a prior instruction by
                   // moving it to the else clause. May need a smater way to do this later...
@@ -374,37 +384,32 @@ public void buildOriginalProgram() { // builds a Priority schedule
                   // get a new channel for that time slot and put back the channel we extraced from
                   // this time slot. And of course, clean up if any errors occur
                   // in the process
-                  var instructionParametersArrayList =
-                      dsl.getInstructionParameters(priorInstruction);
-                  var priorInstructionChannel = UNKNOWN;
-                  if (instructionParametersArrayList.size() == 1) {
-                    var instructionParameters = instructionParametersArrayList.get(0); // get a copy
-                                                                                       // of the
-                                                                                       // parameters
-                    priorInstructionChannel = instructionParameters.getChannel();
+                  var priorInstructionChannel = UNKNOWN_CHANNEL;
+                  if (priorInstruction.length() == 1) {
+                    priorInstructionChannel = priorInstruction.getChannel();
                   } else { // we just checked above that the prior instruction did not have an else
                            // pull, wait, or sleep. So, there should be only one instruction here
                     String msg = String.format(
                         "ERROR: More than one instruction in prior instruction string: %s",
-                        priorInstruction);
+                        priorInstruction.toString(symbols));
                     System.err.println(msg);
                   }
-                  workLoad.setNodeChannel(instructionNodeName,
-                      Integer.valueOf(priorInstructionChannel));
+                  context.setNodeChannel(instructionNode, priorInstructionChannel);
                   channelsAvailable.addChannel(instructionIndex, channel); // return channel for
                                                                            // this slot
                   channel = priorInstructionChannel; // update this so that the corresponding wait
                                                      // uses this channel
-                  newInstruction = priorInstruction + String.format("else pull(%s: %s -> %s, #%s)",
-                      flowName, currentNodeName, snk, priorInstructionChannel); // was channel
+                  newInstruction = priorInstruction.orElse(
+                      pullInstruction(flowId, currentNode, snkNode, priorInstructionChannel)); // was
+                                                                                                 // channel
                   instructionIndex -= 1; // set instructionIndex to the priorInstruction index so we
                                          // replace that slot with the new, optimized instruction
-                  instructionNodeName = snk; // change currntNodeName to the snk node, which is the
+                  instructionNode = snkNode; // change currntNodeName to the snk node, which is the
                                              // node name of the prior instruction
                 }
               } else if ((flowNodeIndex == 0 && index == 0 && e2eFlag)
-                  && !(priorInstruction.contains(SLEEP_INSTRUCTION)
-                      || priorInstruction.contains(WAIT_FRAGMENT))) {
+                  && !(priorInstruction.contains(OpCode.SLEEP)
+                      || priorInstruction.contains(OpCode.WAIT))) {
                 // We hit this case when combining the last push of one flow with the first push of
                 // a new flow--making an if has (Fi) push(Fi) else pull pull(Fi+1)
                 // print ("Skipping optimization of combining \(priorInstruction) with
@@ -417,9 +422,9 @@ public void buildOriginalProgram() { // builds a Priority schedule
               } else { // not sure when we hit this when combining a sleep or wait() from prior flow
                        // with a new instruction
                 // Anywhere else? :-) Probably better figure it out!!
-                if (!priorInstruction.contains(ELSE_PULL_FRAGMENT)
-                    && !priorInstruction.contains(WAIT_FRAGMENT)
-                    && !priorInstruction.contains(SLEEP_INSTRUCTION) && !realtimeHART) { // The sink
+                if (!priorInstruction.containsElse(OpCode.PULL)
+                    && !priorInstruction.contains(OpCode.WAIT)
+                    && !priorInstruction.contains(OpCode.SLEEP) && !realtimeHART) { // The sink
                                                                                          // node is
                                                                                          // not
                                                                                          // waiting,
@@ -431,46 +436,41 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                                                          // it
                   // Also need to make sure we haven't already combined a prior instruction by
                   // moving it to the else clause. May need a smarter way to do this later...
-                  var instructionParametersArrayList =
-                      dsl.getInstructionParameters(priorInstruction);
-                  var priorInstructionChannel = UNKNOWN;
-                  var priorInstructionSnk = UNKNOWN;
-                  if (instructionParametersArrayList.size() == 1) {
-                    var instructionParameters = instructionParametersArrayList.get(0); // get a copy
-                                                                                       // of the
-                                                                                       // parameters
-                    priorInstructionSnk = instructionParameters.getSnk();
-                    priorInstructionChannel = instructionParameters.getChannel();
+                  var priorInstructionChannel = UNKNOWN_CHANNEL;
+                  var priorInstructionSnk = SymbolTable.NO_ID;
+                  if (priorInstruction.length() == 1) {
+                    priorInstructionSnk = priorInstruction.getSnkId();
+                    priorInstructionChannel = priorInstruction.getChannel();
                   } else { // we just checked above that the prior instruction did not have an else
                            // pull, wait, or sleep. So, there should be only one instruction here
                     String msg = String.format(
                         "ERROR: More than one instruction in prior instruction string: %s",
-                        priorInstruction);
+                        priorInstruction.toString(symbols));
                     System.err.println(msg);
                   }
-                  priorSrcInstruction = priorInstructionTimeSlot[nodeIndex.get(currentNodeName)]; // get
-                                                                                                  // instruction
-                                                                                                  // scheduled
-                                                                                                  // for
-                                                                                                  // snk/curentNodeName)
-                                                                                                  // to
-                                                                                                  // execute
-                                                                                                  // in
-                                                                                                  // the
-                                                                                                  // prior
-                                                                                                  // time
-                  if (priorInstructionSnk.equals(currentNodeName)) { // will try to push and pull
+                  priorSrcInstruction = priorInstructionTimeSlot[nodeColumn[currentNode]]; // get
+                                                                                           // instruction
+                                                                                           // scheduled
+                                                                                           // for
+                                                                                           // snk/curentNodeName)
+                                                                                           // to
+                                                                                           // execute
+                                                                                           // in
+                                                                                           // the
+                                                                                           // prior
+                                                                                           // time
+                  if (priorInstructionSnk == currentNode) {          // will try to push and pull
                                                                      // to/from the same node, so
                                                                      // use the prior instruction
                                                                      // channel
-                    newInstruction = priorInstruction
-                        + elsePullClause(flowName, currentNodeName, snk, priorInstructionChannel);
+                    newInstruction = priorInstruction.orElse(
+                        pullInstruction(flowId, currentNode, snkNode, priorInstructionChannel));
                     instructionIndex -= 1; // set instructionIndex to the priorInstruction index so
                                            // we replace that slot with the new, optimized
                                            // instruction
-                    instructionNodeName = snk; // change currntNodeName to the snk node, which is
+                    instructionNode = snkNode; // change currntNodeName to the snk node, which is
                                                // the node name of the prior instruction
-                  } else if (priorSrcInstruction.contains(SLEEP_INSTRUCTION)) { // was
+                  } else if (priorSrcInstruction.contains(OpCode.SLEEP)) { // was
                                                                                 // !priorSrcInstruction.contains("wait(");
                                                                                 // I think it needs
                                                                                 // to be a sleep and
@@ -479,10 +479,9 @@ public void buildOriginalProgram() { // builds a Priority schedule
                     // Make sure the currentNodeName entry for this time slot has a sleep. If so,
                     // then we combine instructions with new as an else push and add wait at
                     // currentNodeName
-                    workLoad.setNodeChannel(instructionNodeName,
-                        Integer.valueOf(priorInstructionChannel));
-                    newInstruction = priorInstruction
-                        + elsePullClause(flowName, currentNodeName, snk, priorInstructionChannel); // was
+                    context.setNodeChannel(instructionNode, priorInstructionChannel);
+                    newInstruction = priorInstruction.orElse(
+                        pullInstruction(flowId, currentNode, snkNode, priorInstructionChannel)); // was
                                                                                                    // channel
                     // need to change priorSrcInstruction from sleep to wait on channel
                     priorSrcInstruction = waitInstruction(priorInstructionChannel); // was channel
@@ -492,17 +491,17 @@ public void buildOriginalProgram() { // builds a Priority schedule
                     instructionIndex -= 1; // set instructionIndex to the priorInstruction index so
                                            // we replace that slot with the new, optimized
                                            // instruction
-                    instructionNodeName = snk; // change currntNodeName to the snk node, which is
+                    instructionNode = snkNode; // change currntNodeName to the snk node, which is
                                                // the node name of the prior instruction
                   }
                 }
               }
             }
-            ArrayList<String> currentInstructionTimeSlotArrayList; // =
-                                                                   // schedule.get(instructionIndex);
-            String[] currentInstructionTimeSlot; // =
-                                                 // currentInstructionTimeSlotArrayList.toArray(new
-                                                 // String[currentInstructionTimeSlotArrayList.size()]);
+            ArrayList<Instruction> currentInstructionTimeSlotArrayList; // =
+                                                                        // schedule.get(instructionIndex);
+            Instruction[] currentInstructionTimeSlot; // =
+                                                      // currentInstructionTimeSlotArrayList.toArray(new
+                                                      // Instruction[currentInstructionTimeSlotArrayList.size()]);
             currentNodeInstruction[index] = instructionIndex; // store the slot index for this
                                                               // instruction
             if (instructionIndex < schedule.size()) {
@@ -518,114 +517,108 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                                                     // conflict
                                                                                     // channels
               currentInstructionTimeSlot = currentInstructionTimeSlotArrayList
-                  .toArray(new String[currentInstructionTimeSlotArrayList.size()]);
+                  .toArray(new Instruction[currentInstructionTimeSlotArrayList.size()]);
             } else {
               currentInstructionTimeSlotArrayList =
                   new InstructionTimeSlot(nNodes, SLEEP_INSTRUCTION);
               currentInstructionTimeSlot = currentInstructionTimeSlotArrayList
-                  .toArray(new String[currentInstructionTimeSlotArrayList.size()]);
+                  .toArray(new Instruction[currentInstructionTimeSlotArrayList.size()]);
             }
-            currentInstructionTimeSlot[nodeIndex.get(instructionNodeName)] = newInstruction; // an
-                                                                                             // error
-                                                                                             // finding
-                                                                                             // the
-                                                                                             // right
-                                                                                             // location
-                                                                                             // will
-                                                                                             // result
-                                                                                             // in
-                                                                                             // location
-                                                                                             // of
-                                                                                             // snk
-                                                                                             // or 0
+            currentInstructionTimeSlot[nodeColumn[instructionNode]] = newInstruction; // an
+                                                                                      // error
+                                                                                      // finding
+                                                                                      // the
+                                                                                      // right
+                                                                                      // location
+                                                                                      // will
+                                                                                      // result
+                                                                                      // in
+                                                                                      // location
+                                                                                      // of
+                                                                                      // snk
+                                                                                      // or 0
             if (priorSrcUpdated) {
-              currentInstructionTimeSlot[nodeIndex.get(currentNodeName)] = priorSrcInstruction; // an
-                                                                                                // error
-                                                                                                // finding
-                                                                                                // the
-                                                                                                // right
-                                                                                                // location
-                                                                                                // will
-                                                                                                // result
-                                                                                                // in
-                                                                                                // location
-                                                                                                // of
-                                                                                                // snk
-                                                                                                // or
-                                                                                                // 0
+              currentInstructionTimeSlot[nodeColumn[currentNode]] = priorSrcInstruction; // an
+                                                                                         // error
+                                                                                         // finding
+                                                                                         // the
+                                                                                         // right
+                                                                                         // location
+                                                                                         // will
+                                                                                         // result
+                                                                                         // in
+                                                                                         // location
+                                                                                         // of
+                                                                                         // snk
+                                                                                         // or
+                                                                                         // 0
             }
             // If this is a basic push() then the snk node will have the initial wait instruction in
             // its time slot. Thus, need to add the channel # to that wait
-            var snkInstruction = currentInstructionTimeSlot[nodeIndex.get(snk)]; // get instruction
-                                                                                 // scheduled for
-                                                                                 // snk to execute
-                                                                                 // in the current
-                                                                                 // time slot
-            if (snkInstruction.equals(SLEEP_INSTRUCTION)) {
-              currentInstructionTimeSlot[nodeIndex.get(snk)] = waitInstruction(channel);
+            var snkInstruction = currentInstructionTimeSlot[nodeColumn[snkNode]]; // get instruction
+                                                                                  // scheduled for
+                                                                                  // snk to execute
+                                                                                  // in the current
+                                                                                  // time slot
+            if (snkInstruction.isSleep()) {
+              currentInstructionTimeSlot[nodeColumn[snkNode]] = waitInstruction(channel);
             }
             if (flowNodeIndex > 0) {
-              var priorNodeName = nodesInFlow[flowNodeIndex - 1];// get name of prior node in the
-                                                                 // flow (aka predecessor)
-              var possibleCombineInstruction =
-                  String.format("if has(%1$s) push(%1$s: %2$s -> %3$s, #", flowName, priorNodeName,
-                      currentNodeName);
+              var priorNode = nodeIdsInFlow[flowNodeIndex - 1];// get id of prior node in the
+                                                               // flow (aka predecessor)
               if (optimizationRequested && !realtimeHART && nTx > 1) { // One more optimization
                                                                        // possible: combine two
                                                                        // conditional pushes at the
                                                                        // same slot involving a
                                                                        // common node
                 var upstreamNodeInstruction =
-                    currentInstructionTimeSlot[nodeIndex.get(priorNodeName)];
-                var instr = hasPushInstruction(flowName, currentNodeName, snk, channel);
+                    currentInstructionTimeSlot[nodeColumn[priorNode]];
+                var instr = hasPushInstruction(flowId, currentNode, snkNode, channel);
                 if (newInstruction.equals(instr)
-                    && upstreamNodeInstruction.contains(possibleCombineInstruction)
-                    && !upstreamNodeInstruction.contains("else")) {
-                  var instructionParametersArrayList =
-                      dsl.getInstructionParameters(upstreamNodeInstruction);
-                  var upstreamNodeChannel = UNKNOWN;
-                  if (instructionParametersArrayList.size() == 1) {
-                    var instructionParameters = instructionParametersArrayList.get(0); // get a copy
-                                                                                       // of the
-                                                                                       // paramaters
-                    upstreamNodeChannel = instructionParameters.getChannel();
+                    && isPossibleCombineInstruction(upstreamNodeInstruction, flowId, priorNode,
+                        currentNode)
+                    && !upstreamNodeInstruction.hasElse()) {
+                  var upstreamNodeChannel = UNKNOWN_CHANNEL;
+                  if (upstreamNodeInstruction.length() == 1) {
+                    upstreamNodeChannel = upstreamNodeInstruction.getChannel();
                     // return upstreamNodeChannel to the available channels for this time slot
                     channelsAvailable.addChannel(instructionIndex, upstreamNodeChannel);
                   } else { // we just checked above that the prior instruction did not have an else
                            // pull, wait, or sleep. So, there should be only one instruction here
                     String msg = String.format(
                         "ERROR: More than one instruction in upstream node  instruction string: %s",
-                        upstreamNodeInstruction);
+                        upstreamNodeInstruction.toString(symbols));
                     System.err.println(msg);
                   }
                   // use the newInstruction channel in upstream instruction that is being combined
                   // and return the upstream channel to the available channel set
-                  newInstruction = newInstruction
-                      + elsePullClause(flowName, priorNodeName, currentNodeName, channel); // was
+                  newInstruction = newInstruction.orElse(
+                      pullInstruction(flowId, priorNode, currentNode, channel)); // was
                                                                                            // upstreamNodeChannel
-                  currentInstructionTimeSlot[nodeIndex.get(instructionNodeName)] = newInstruction; // an
-                                                                                                   // error
-                                                                                                   // finding
-                                                                                                   // the
-                                                                                                   // right
-                                                                                                   // location
-                                                                                                   // will
-                                                                                                   // result
-                                                                                                   // in
-                                                                                                   // location
-                                                                                                   // of
-                                                                                                   // snk
-                                                                                                   // or
-                                                                                                   // 0
-                  currentInstructionTimeSlot[nodeIndex.get(priorNodeName)] =
+                  currentInstructionTimeSlot[nodeColumn[instructionNode]] = newInstruction; // an
+                                                                                            // error
+                                                                                            // finding
+                                                                                            // the
+                                                                                            // right
+                                                                                            // location
+                                                                                            // will
+                                                                                            // result
+                                                                                            // in
+                                                                                            // location
+                                                                                            // of
+                                                                                            // snk
+                                                                                            // or
+                                                                                            // 0
+                  currentInstructionTimeSlot[nodeColumn[priorNode]] =
                       waitInstruction(channel);; // an error finding the right location will result
                                                  // in location of snk or 0 // was
                                                  // upstreamNodeChannel
-                } else if (newInstruction
-                    .contains(elsePullClause(flowName, priorNodeName, currentNodeName, channel))
-                    && currentInstructionTimeSlot[nodeIndex.get(priorNodeName)]
-                        .contains(possibleCombineInstruction)) {
-                  currentInstructionTimeSlot[nodeIndex.get(priorNodeName)] =
+                } else if (hasElseClause(newInstruction,
+                    pullInstruction(flowId, priorNode, currentNode, channel))
+                    && isPossibleCombineInstruction(
+                        currentInstructionTimeSlot[nodeColumn[priorNode]], flowId,
+                        priorNode, currentNode)) {
+                  currentInstructionTimeSlot[nodeColumn[priorNode]] =
                       waitInstruction(channel); // Replace combined instruction in prior node
                                                 // program with wait()
                 }
@@ -634,13 +627,13 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                               // so add 'else wait()' for down upstream node when
                                               // needed
                 var upstreamNodeInstruction =
-                    currentInstructionTimeSlot[nodeIndex.get(priorNodeName)];
+                    currentInstructionTimeSlot[nodeColumn[priorNode]];
                 if (newInstruction
-                    .equals(hasPushInstruction(flowName, currentNodeName, snk, channel))
-                    && upstreamNodeInstruction.contains(possibleCombineInstruction)) {
-                  String upstreamNodeChannel =
-                      getFirstChannelInInstruction(upstreamNodeInstruction);
-                  newInstruction = newInstruction + elseWaitInstruction(upstreamNodeChannel); // this
+                    .equals(hasPushInstruction(flowId, currentNode, snkNode, channel))
+                    && isPossibleCombineInstruction(upstreamNodeInstruction, flowId,
+                        priorNode, currentNode)) {
+                  Integer upstreamNodeChannel = upstreamNodeInstruction.getFirstChannel();
+                  newInstruction = newInstruction.orElse(elseWaitInstruction(upstreamNodeChannel)); // this
                                                                                               // node
                                                                                               // needs
                                                                                               // to
@@ -652,20 +645,20 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                                                               // message
                                                                                               // hasn't
                                                                                               // arrived
-                  currentInstructionTimeSlot[nodeIndex.get(instructionNodeName)] = newInstruction; // an
-                                                                                                   // error
-                                                                                                   // finding
-                                                                                                   // the
-                                                                                                   // right
-                                                                                                   // location
-                                                                                                   // will
-                                                                                                   // result
-                                                                                                   // in
-                                                                                                   // location
-                                                                                                   // of
-                                                                                                   // snk
-                                                                                                   // or
-                                                                                                   // 0
+                  currentInstructionTimeSlot[nodeColumn[instructionNode]] = newInstruction; // an
+                                                                                            // error
+                                                                                            // finding
+                                                                                            // the
+                                                                                            // right
+                                                                                            // location
+                                                                                            // will
+                                                                                            // result
+                                                                                            // in
+                                                                                            // location
+                                                                                            // of
+                                                                                            // snk
+                                                                                            // or
+                                                                                            // 0
                   // Don't replace the push instruction in the upstream node in this case, because
                   // we added the else in this nodes time slot instead
                 }
@@ -675,8 +668,10 @@ public void buildOriginalProgram() { // builds a Priority schedule
             if (instructionIndex < schedule.size()) { // This should always be the case, but check
                                                       // anyway
               schedule.set(instructionIndex, timeSlot);
+              nodesBusy.update(instructionIndex, timeSlot);
             } else {
               schedule.add(timeSlot);
+              nodesBusy.update(schedule.size() - 1, timeSlot);
               String msg = String.format(
                   "ERROR: instructionIndex = %d > schedule length = %d. Appended instruction to avoid crash or throw...",
                   instructionIndex, schedule.size());
@@ -713,48 +708,65 @@ public void buildOriginalProgram() { // builds a Priority schedule
     setSchedule(schedule); // store the schedule built
   }
 
-  private String waitInstruction(String channel) {
-    var size = channel.length();
-    if (!Utilities.isInteger(channel)) {
-      System.out.println("channel length is " + String.valueOf(size));
-      System.err.println("ERROR: channel is not an Integer: " + channel);
+  private Instruction waitInstruction(Integer channel) {
+    if (channel < 0 || channel >= getNumChannels()) {
+      System.err.println("ERROR: channel is not a valid channel: " + channel);
     }
-    return String.format("wait(#%s)", channel);
+    return Instruction.waitOn(channel);
   }
 
 
-  private String elseWaitInstruction(String channel) {
-    var size = channel.length();
-    if (!Utilities.isInteger(channel)) {
-      System.err.println("ERROR: channel is not an Integer: " + channel);
-      System.err.println("\t channel size is not an Integer: " + String.valueOf(size));
+  private Instruction elseWaitInstruction(Integer channel) {
+    if (channel < 0 || channel >= getNumChannels()) {
+      System.err.println("ERROR: else wait channel is not a valid channel: " + channel);
     }
-    return String.format(" else wait(#%s)", channel);
+    return Instruction.waitOn(channel); // appended to an instruction as its else
+  }
+
+  private Instruction pullInstruction(int flow, int src, int snk, Integer channel) {
+    return Instruction.transmit(Guard.NONE, OpCode.PULL, flow, src, snk, channel);
   }
 
-  private String elsePullClause(String flow, String src, String snk, String channel) {
-    return String.format(" else pull(%s: %s -> %s, #%s)", flow, src, snk, channel);
+  private Instruction hasPushInstruction(int flow, int src, int snk, Integer channel) {
+    return Instruction.transmit(Guard.HAS, OpCode.PUSH, flow, src, snk, channel);
   }
 
-  private String hasPushInstruction(String flow, String src, String snk, String channel) {
-    return String.format("if has(%1$s) push(%1$s: %2$s -> %3$s, #%4$s)", flow, src, snk, channel);
+  private Instruction pushInstruction(int flow, int src, int snk, Integer channel) {
+    return Instruction.transmit(Guard.NONE, OpCode.PUSH, flow, src, snk, channel);
   }
 
-  private String pushInstruction(String flow, String src, String snk, String channel) {
-    return String.format("push(%1$s: %2$s -> %3$s, #%4$s)", flow, src, snk, channel);
+  /**
+   * Checks for the conditional push "if has(flow) push(flow: src -> snk, #c)", on any channel, in
+   * instruction. Used to find upstream pushes that can be combined with a downstream push.
+   */
+  private Boolean isPossibleCombineInstruction(Instruction instruction, int flow, int src,
+      int snk) {
+    for (var clause = instruction; clause != null; clause = clause.getElse()) {
+      if (clause.getGuard() == Guard.HAS && clause.getOpCode() == OpCode.PUSH
+          && clause.isTxOn(flow, src, snk)) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private String getFirstChannelInInstruction(String Instruction) {
-    var beginIndex = Instruction.indexOf('#') + 1; // get index of the start of the channel #
-    var endIndex = Instruction.indexOf(')', beginIndex); // get index of the last character of the
-                                                         // channel #
-    var channel = Instruction.substring(beginIndex, endIndex); // this substring has the 1st channel
-    return channel;
+  /**
+   * @return true if one of the else clauses of instruction is the action clause
+   */
+  private Boolean hasElseClause(Instruction instruction, Instruction clause) {
+    for (var elseClause = instruction.getElse(); elseClause != null; elseClause =
+        elseClause.getElse()) {
+      if (elseClause.sameAction(clause)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private Integer findNextAvailableInstructionTimeSlot(ProgramSchedule schedule,
       Integer startLocation, Integer nodeInFlow, Integer transIndex, Integer nTx,
-      Integer[] previousNodeInstruction, Integer[] currentNodeInstruction, String sleepInstruction,
+      Integer[] previousNodeInstruction, Integer[] currentNodeInstruction,
+      Instruction sleepInstruction,
       Boolean realtimeHART, Boolean optimizationRequested, Integer srcNodeIndex,
       Integer snkNodeIndex) {
     var currentTime = startLocation; // Make sure we don't start looking before the starting
@@ -770,18 +782,10 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                                                      // instruction
                                                                                      // we inserted
     }
-    var done = false; // Flag indicating time slot search is done
     if (realtimeHART || (nTx == 1 || nodeInFlow == 0 || transIndex >= nTx - 1)) {
       // do the same thing for all nodes when nTx == 1 as for first node of flow when nTx == 1 and
       // for kth retry
-      while (currentTime < schedule.size() && !done) {
-        var currentInstructionTimeSlot = schedule.get(currentTime);
-        if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) {
-          done = true;
-        } else {
-          currentTime += 1;
-        }
-      }
+      currentTime = nextVacantSlot(schedule, currentTime, srcNodeIndex, snkNodeIndex);
     } else { // !reatimeHART and (nTx > 1 and nodeInFlow > 0)
       Integer slotOffsetFromLastPreviousInstructionEntry;
       if (transIndex >= (previousNodeInstruction.length - 1)) {
@@ -798,54 +802,9 @@ public void buildOriginalProgram() { // builds a Priority schedule
           // unavailability)
           currentTime = possibleInstructionTimeSlotIndex; // OK to update to this time slot index
         }
-        done = false; // However, we need to check if the current slot is available, and if not keep
-                      // searching until we find one. This happens with preemptions
-        if (!optimizationRequested) {
-          while (currentTime < schedule.size() && !done) {
-            var currentInstructionTimeSlot = schedule.get(currentTime);
-            if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                           // the
-                                                                                           // proposed
-                                                                                           // currentInstructionTimeSlot.
-                                                                                           // If
-                                                                                           // available,
-                                                                                           // done
-                                                                                           // is
-                                                                                           // true,
-                                                                                           // else
-                                                                                           // keep
-                                                                                           // checking
-                                                                                           // for a
-                                                                                           // time
-              done = true;
-            } else {
-              currentTime += 1;
-            }
-          }
-        } else {
-          // do something to support the optimization
-          while (currentTime < schedule.size() && !done) {
-            var currentInstructionTimeSlot = schedule.get(currentTime);
-            if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                           // the
-                                                                                           // proposed
-                                                                                           // currentInstructionTimeSlot.
-                                                                                           // If
-                                                                                           // available,
-                                                                                           // done
-                                                                                           // is
-                                                                                           // true,
-                                                                                           // else
-                                                                                           // keep
-                                                                                           // checking
-                                                                                           // for a
-                                                                                           // time
-              done = true;
-            } else {
-              currentTime += 1;
-            }
-          }
-        }
+        // However, we need to check if the current slot is available, and if not keep
+        // searching until we find one. This happens with preemptions
+        currentTime = nextVacantSlot(schedule, currentTime, srcNodeIndex, snkNodeIndex);
       } else {
         var possibleInstructionTimeSlotIndex = previousNodeInstruction[transIndex + 1]; // same as
                                                                                         // previous
@@ -860,30 +819,10 @@ public void buildOriginalProgram() { // builds a Priority schedule
           // unavailability)
           currentTime = possibleInstructionTimeSlotIndex; //
         }
-        done = false; // However, we need to check if the current slot is available, and if not keep
-                      // searching until we find one. This happens with preemptions
+        // However, we need to check if the current slot is available, and if not keep
+        // searching until we find one. This happens with preemptions
         if (!optimizationRequested) {
-          while (currentTime < schedule.size() && !done) {
-            var currentInstructionTimeSlot = schedule.get(currentTime);
-            if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                           // the
-                                                                                           // proposed
-                                                                                           // currentInstructionTimeSlot.
-                                                                                           // If
-                                                                                           // available,
-                                                                                           // done
-                                                                                           // is
-                                                                                           // true,
-                                                                                           // else
-                                                                                           // keep
-                                                                                           // checking
-                                                                                           // for a
-                                                                                           // time
-              done = true;
-            } else {
-              currentTime += 1;
-            }
-          }
+          currentTime = nextVacantSlot(schedule, currentTime, srcNodeIndex, snkNodeIndex);
         } else {
           // do something to support the optimization
           if (currentTime < schedule.size()) { // First make sure we haven't exceeded the current
@@ -892,7 +831,7 @@ public void buildOriginalProgram() { // builds a Priority schedule
             var tmpInstructionTimeSlot = schedule.get(currentTime);
             var srcInstruction = tmpInstructionTimeSlot.get(srcNodeIndex);
             var snkInstruction = tmpInstructionTimeSlot.get(snkNodeIndex);
-            if (!srcInstruction.contains("wait(") || !snkInstruction.contains("sleep")) { // instruction
+            if (!srcInstruction.contains(OpCode.WAIT) || !snkInstruction.contains(OpCode.SLEEP)) { // instruction
                                                                                           // should
                                                                                           // contain
                                                                                           // a wait,
@@ -912,31 +851,10 @@ public void buildOriginalProgram() { // builds a Priority schedule
                                                                                           // point
               // we also need to be sure the snk is sleeping
               // If either condition is not true, then we need to find another time slot
-              while (currentTime < schedule.size() && !done) {
-                var currentInstructionTimeSlot = schedule.get(currentTime);
-                if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                               // the
-                                                                                               // proposed
-                                                                                               // currentInstructionTimeSlot.
-                                                                                               // If
-                                                                                               // available,
-                                                                                               // done
-                                                                                               // is
-                                                                                               // true,
-                                                                                               // else
-                                                                                               // keep
-                                                                                               // checking
-                                                                                               // for
-                                                                                               // a
-                                                                                               // time
-                  done = true;
-                } else {
-                  currentTime += 1;
-                }
-              }
-            } else if (srcInstruction.contains("else(")) { // This should never be the case, but not
-                                                           // sure if it is bad...print an error
-                                                           // indicating the issue
+              currentTime = nextVacantSlot(schedule, currentTime, srcNodeIndex, snkNodeIndex);
+            } else if (srcInstruction.getOpCode() == OpCode.WAIT && srcInstruction.hasElse()) {
+              // This should never be the case, but not sure if it is bad...print an error
+              // indicating the issue
               var errorString = String.format(
                   "POSSIBLE ERROR, but not sure...   At time slot %d of the schedule, ",
                   currentTime);
@@ -952,102 +870,51 @@ public void buildOriginalProgram() { // builds a Priority schedule
     return currentTime;
   }
 
-  private Boolean slotIsAvailable(InstructionTimeSlot currentInstructionTimeSlot,
+  /**
+   * Finds the first time slot at or after currentTime in which the src and snk nodes are both
+   * sleeping, using the nodesBusy index instead of scanning the schedule.
+   *
+   * @return the vacant time slot, or schedule.size() if no slot in the schedule is vacant. When
+   *         currentTime is already past the end of the schedule, currentTime is returned.
+   */
+  private Integer nextVacantSlot(ProgramSchedule schedule, Integer currentTime,
       Integer srcNodeIndex, Integer snkNodeIndex) {
-    var vacantSlot = false; // assume slot is not vacant ----// Flag indicating time slot search is
-                            // done
-    if (SLEEP_INSTRUCTION.equals(currentInstructionTimeSlot.get(srcNodeIndex))
-        && SLEEP_INSTRUCTION.equals(currentInstructionTimeSlot.get(snkNodeIndex))) { // src and snk
-                                                                                     // are both
-                                                                                     // sleeping, so
-                                                                                     // slot is
-                                                                                     // available
-      vacantSlot = true;
+    if (currentTime >= schedule.size()) {
+      return currentTime;
     }
-    return vacantSlot;
+    /* slots past the end of the schedule are never marked busy, so this is <= schedule.size() */
+    return nodesBusy.nextFreeSlot(srcNodeIndex, snkNodeIndex, currentTime);
   }
 
-  private String findNextAvailableChannel(ProgramSchedule schedule, String nodeName,
+  private Integer findNextAvailableChannel(ProgramSchedule schedule, int node,
       Integer currentTime, Integer srcNodeIndex, Integer snkNodeIndex) {
 
-    var newChannel = UNKNOWN; // indicates no channel was available. The caller will need to check
-                              // this result
-
-    // create an instance of the Warp DSL class for parsing instructions
-    var dsl = new WarpDSL();
-    InstructionTimeSlot priorInstructionTimeSlot;
-
-    var channels = channelsAvailable.getChannelSet(currentTime);
+    long excludedChannels = 0; // bit mask of channels that can't be used in this slot
     if (currentTime > 0) { // get the prior schedule time slot to see what channels were used in
                            // that slot, which have to be avoided here
       Integer priorTime = currentTime - 1;
-      priorInstructionTimeSlot = schedule.get(priorTime); // get a copy of the prior time slot
+      var priorInstructionTimeSlot = schedule.get(priorTime);
       var srcPriorInstruction = priorInstructionTimeSlot.get(srcNodeIndex);
       var snkPriorInstruction = priorInstructionTimeSlot.get(snkNodeIndex);
 
-      // extract the channels used by the src and snk nodes in the prior time slot and store them in
-      // an array
-      var instructionParametersArrayList = dsl.getInstructionParameters(srcPriorInstruction); // get
-                                                                                              // the
-                                                                                              // parameters
-                                                                                              // from
-                                                                                              // the
-                                                                                              // instruction
-                                                                                              // in
-                                                                                              // the
-                                                                                              // src
-                                                                                              // node's
-                                                                                              // prior
-                                                                                              // time
-                                                                                              // slot
-      for (int i = 0; i < instructionParametersArrayList.size(); i++) {
-        var instructionParameters = instructionParametersArrayList.get(i); // get a copy of the
-                                                                           // paramaters
-        channels.remove(instructionParameters.getChannel());
+      // exclude the channels used by the src and snk nodes in the prior time slot, including the
+      // channels in any else clauses
+      for (var clause = srcPriorInstruction; clause != null; clause = clause.getElse()) {
+        excludedChannels |= channelsAvailable.channelMask(clause.getChannel());
       }
-      instructionParametersArrayList = dsl.getInstructionParameters(snkPriorInstruction); // get the
-                                                                                          // parameters
-                                                                                          // from
-                                                                                          // the
-                                                                                          // instruction
-                                                                                          // in the
-                                                                                          // snk
-                                                                                          // node's
-                                                                                          // prior
-                                                                                          // time
-                                                                                          // slot
-      for (int i = 0; i < instructionParametersArrayList.size(); i++) {
-        var instructionParameters = instructionParametersArrayList.get(i); // get a copy of the
-                                                                           // paramaters
-        channels.remove(instructionParameters.getChannel());
+      for (var clause = snkPriorInstruction; clause != null; clause = clause.getElse()) {
+        excludedChannels |= channelsAvailable.channelMask(clause.getChannel());
       }
     }
-    Integer channel = workLoad.getNodeChannel(nodeName); // get the last used channel for the node
+    int channel = context.getNodeChannel(node); // get the last used channel for the node
     channel++; // increment the channel because we don't use the same channel in consecutive time
                // slots for the same node
     if (channel >= getNumChannels()) { // valid range is 0..NumChannels-1. Reset when channel hits
                                        // max
       channel = 0;
     }
-    var channelFound = false;
-    while (!channelFound && !channels.isEmpty()) { // loop until a channel is found or we run out of
-                                                   // channels to assign
-      var channelString = String.valueOf(channel);
-      var channelRemoved = channels.remove(channelString);
-      if (channelRemoved) {
-        // newChannel has the channel
-        newChannel = channelString;
-        channelFound = true;
-      } else {
-        // try another channel
-        channel += 1;
-        if (channel >= getNumChannels()) { // valid range is 0..NumChannels-1. Reset when channel
-                                           // hits max
-          channel = 0;
-        }
-      }
-    }
-    return newChannel; // returns UNKNOWN to indicate no channel found. This should never happen.
+    // returns UNKNOWN_CHANNEL to indicate no channel found. This should never happen.
+    return channelsAvailable.findNextAvailableChannel(currentTime, channel, excludedChannels);
   }
 
   public void selectPriority() {
@@ -1071,78 +938,85 @@ public void buildOriginalProgram() { // builds a Priority schedule
       case PRIORITY:
         schedulerName = "Priority";
         schChoice = "-Priority";
-        workLoad.setFlowsInPriorityOrder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY);
         break;
       case RM:
         schedulerName = "RateMonotonic";
         schChoice = "-RM";
-        workLoad.setFlowsInRMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.RM);
         break;
       case DM:
         schedulerName = "DeadlineMonotonic";
         schChoice = "-DM";
-        workLoad.setFlowsInDMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.DM);
         break;
       case RTHART:
         schedulerName = "RealtimeHART";
         schChoice = "-RealTimeHART";
-        workLoad.setFlowsInRealTimeHARTorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY);
         setRealTimeHartFlag(true);
         break;
       case CONNECTIVITY_POSET_DM:
         schedulerName = "ConnectivityPosetDM";
         schChoice = "-CPdm";
-        workLoad.setFlowsInDMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.DM);
         break;
       case CONNECTIVITY_POSET_PRIORITY:
         schedulerName = "ConnectivityPoset";
         schChoice = "-CPoset";
-        workLoad.setFlowsInPriorityOrder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY);
         break;
       case CONNECTIVITY_POSET_RM:
         schedulerName = "ConnectivityPosetRM";
         schChoice = "-CPrm";
-        workLoad.setFlowsInRMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.RM);
         break;
       case POSET_DM:
         schedulerName = "PosetDM";
         schChoice = "-PosetDM";
-        workLoad.setFlowsInDMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.DM);
         break;
       case POSET_PRIORITY:
         schedulerName = "Poset";
         schChoice = "-Poset";
-        workLoad.setFlowsInPriorityOrder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY);
         break;
       case POSET_RM:
         schedulerName = "PosetRM";
         schChoice = "-PosetDM";
-        workLoad.setFlowsInRMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.RM);
         break;
       case WARP_POSET_DM:
         schedulerName = "WarpPosetDM";
         schChoice = "-WPdm";
-        workLoad.setFlowsInDMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.DM);
         break;
       case WARP_POSET_PRIORITY:
         schedulerName = "WarpPoset";
         schChoice = "-WarpPoset";
-        workLoad.setFlowsInPriorityOrder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY);
         break;
       case WARP_POSET_RM:
         schedulerName = "WarpPosetRM";
         schChoice = "-WPrm";
-        workLoad.setFlowsInRMorder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.RM);
         break;
       default:
         schedulerName = "Priority";
         schChoice = "-Priority";
-        workLoad.setFlowsInPriorityOrder();
+        flowsInPriorityOrder = workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY);
         break;
     }
     SchedulerSelected = choice;
   }
 
+  /**
+   * @return read-only list of the flow names, in the order the selected scheduler schedules them
+   */
+  public List<String> getFlowNamesInPriorityOrder() {
+    return flowsInPriorityOrder;
+  }
+
   private void setSchedule(ProgramSchedule schedule) {
     scheduleBuilt = schedule;
   }
@@ -1212,25 +1086,13 @@ public void buildOriginalProgram() { // builds a Priority schedule
   }
 
   /**
-   * Creates a map of the node indexes by creating an array of node names, 
-   * creating a new mapping from node names index in schedule, 
-   * and adding each name and index mapping to the node index map.
+   * Returns the schedule column of each node. Columns are in alphabetical order of the node names,
+   * which is the order used when the program is written out.
    * 
-   * @return nodeIndexMap a map of the node indexes
+   * @return the schedule column of each node, indexed by node id
    */
-  public HashMap<String, Integer> getNodeMapIndex() {
-    var orderedNodes = workLoad.getNodeNamesOrderedAlphabetically(); // create an array of node
-                                                                     // names
-    // sorted alphabetically
-    var nodeIndexMap = new HashMap<String, Integer>(); // create a new mapping from node names to
-                                                       // index in schedule
-    // table
-    var nNodes = orderedNodes.length;
-    for (int index = 0; index < nNodes; index++) { // set up the node to index mapping
-      var name = orderedNodes[index];
-      nodeIndexMap.put(name, index); // add name, index mapping to NodeIndex map
-    }
-    return nodeIndexMap;
+  public int[] getNodeColumns() {
+    return workLoad.getSymbolTable().getNodeColumns();
   }
 
 }
@@ -1,6 +1,6 @@
 package edu.uiowa.cs.warp;
 
-public class ProgramSchedule extends Table<String,InstructionTimeSlot> {
+public class ProgramSchedule extends Table<Instruction,InstructionTimeSlot> {
 
 	private static final long serialVersionUID = 1L;
 
@@ -3,6 +3,8 @@
  */
 package edu.uiowa.cs.warp;
 
+import java.io.IOException;
+
 /**
  * Takes the current program being used and converts it to
  * state of the art WARP technology. After the data is pushed through
@@ -103,18 +105,49 @@ ProgramVisualization(WarpInterface warp) {
     if (visualizationData == null) {
       int numRows = sourceCode.getNumRows();
       int numColumns = sourceCode.getNumColumns();
-      visualizationData = new String[numRows][numColumns + 1];
+      visualizationData = new String[numRows][];
+      var symbols = program.toWorkLoad().getSymbolTable(); // names of the ids in the instructions
 
       for (int row = 0; row < numRows; row++) {
-        visualizationData[row][0] = String.format("%s", row);
-        for (int column = 0; column < numColumns; column++) {
-          visualizationData[row][column + 1] = sourceCode.get(row, column);
-        }
+        visualizationData[row] = createRow(row, numColumns, symbols);
       }
     }
     return visualizationData;
   }
 
+  /**
+   * Writes the file content, rendering each row of the program just before it is written, instead
+   * of rendering the whole program first.
+   */
+  @Override
+  public void writeFileVisualization(Appendable out) throws IOException {
+    for (String line : createHeader()) {
+      out.append(line);
+    }
+    out.append(String.join("\t", createColumnHeader())).append('\n');
+    int numRows = sourceCode.getNumRows();
+    int numColumns = sourceCode.getNumColumns();
+    var symbols = program.toWorkLoad().getSymbolTable();
+    for (int row = 0; row < numRows; row++) {
+      out.append(String.join("\t", createRow(row, numColumns, symbols))).append('\n');
+    }
+    for (String line : createFooter()) {
+      out.append(line);
+    }
+  }
+
+  /* renders a row of the program: the time slot, then the DSL text of each instruction, with the
+   * flow and node names */
+  private String[] createRow(int row, int numColumns, SymbolTable symbols) {
+    var rowData = new String[numColumns + 1];
+    rowData[0] = String.format("%s", row);
+    for (int column = 0; column < numColumns; column++) {
+      var instruction = sourceCode.get(row, column);
+      rowData[column + 1] = (instruction == null) ? null : instruction.toString(symbols);
+    }
+    return rowData;
+  }
+
   /**
    * Returns string of programs name.
    * 
@@ -0,0 +1,180 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * ReadOnlyList is an ArrayList that can't be changed once it is built, used for the lists of a
+ * workload snapshot that are returned as an ArrayList (e.g., WorkLoad.getFlowNamesInOriginalOrder()
+ * and Flow.getNodes()). Methods that would change it throw UnsupportedOperationException.
+ *
+ * @version 1.0
+ */
+final class ReadOnlyList<E> extends ArrayList<E> {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * @param elements elements of the list, in order
+   */
+  ReadOnlyList(Collection<? extends E> elements) {
+    super(elements);
+  }
+
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("List is in a workload snapshot, which can't be changed");
+  }
+
+  @Override
+  public boolean add(E element) {
+    throw readOnly();
+  }
+
+  @Override
+  public void add(int index, E element) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends E> elements) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean addAll(int index, Collection<? extends E> elements) {
+    throw readOnly();
+  }
+
+  @Override
+  public E set(int index, E element) {
+    throw readOnly();
+  }
+
+  @Override
+  public E remove(int index) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean remove(Object element) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> elements) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean retainAll(Collection<?> elements) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean removeIf(Predicate<? super E> filter) {
+    throw readOnly();
+  }
+
+  @Override
+  protected void removeRange(int fromIndex, int toIndex) {
+    throw readOnly();
+  }
+
+  @Override
+  public void replaceAll(UnaryOperator<E> operator) {
+    throw readOnly();
+  }
+
+  @Override
+  public void sort(Comparator<? super E> comparator) {
+    throw readOnly();
+  }
+
+  @Override
+  public void clear() {
+    throw readOnly();
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    var iterator = super.iterator();
+    return new Iterator<E>() { // remove() throws UnsupportedOperationException
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public E next() {
+        return iterator.next();
+      }
+    };
+  }
+
+  @Override
+  public ListIterator<E> listIterator() {
+    return listIterator(0);
+  }
+
+  @Override
+  public ListIterator<E> listIterator(int index) {
+    var iterator = super.listIterator(index);
+    return new ListIterator<E>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public E next() {
+        return iterator.next();
+      }
+
+      @Override
+      public boolean hasPrevious() {
+        return iterator.hasPrevious();
+      }
+
+      @Override
+      public E previous() {
+        return iterator.previous();
+      }
+
+      @Override
+      public int nextIndex() {
+        return iterator.nextIndex();
+      }
+
+      @Override
+      public int previousIndex() {
+        return iterator.previousIndex();
+      }
+
+      @Override
+      public void remove() {
+        throw readOnly();
+      }
+
+      @Override
+      public void set(E element) {
+        throw readOnly();
+      }
+
+      @Override
+      public void add(E element) {
+        throw readOnly();
+      }
+    };
+  }
+
+  @Override
+  public List<E> subList(int fromIndex, int toIndex) {
+    return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+  }
+}
@@ -8,10 +8,10 @@ public class ReleaseTimeComparator<T extends SchedulableObject> implements Compa
 	// for ascending order of release time
 	@Override
 	public int compare(T obj1, T obj2) {	
-		var result = obj1.releaseTimeComparison(obj2);
+		var result = Integer.compare(obj1.getReleaseTime(), obj2.getReleaseTime());
 		if (result == 0) {
 			// tied for priority, so break tie on release time
-			result = obj1.priorityComparison(obj2);
+			result = Integer.compare(obj1.getPriority(), obj2.getPriority());
 		}
 		return result; // 0 => tie on priority and release time
 	}
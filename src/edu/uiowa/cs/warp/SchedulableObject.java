@@ -6,21 +6,24 @@ import java.util.Queue;
 
 public abstract class SchedulableObject {
 
-	private static final Integer DEFAULT = 0;
-	private static final Integer DEFAULT_PERIOD = 100; 
-	private static final Integer DEFAULT_DEADLINE = 100;
+	private static final int DEFAULT = 0;
+	private static final int DEFAULT_PERIOD = 100; 
+	private static final int DEFAULT_DEADLINE = 100;
 	private static final String UNKNOWN = "unknown";
-	private static final Integer BEFORE_START = -1;
+	/* start, end, and last update time of an object that hasn't been scheduled */
+	public static final int BEFORE_START = -1;
+	/* returned by peekEndTimes() when there are no end times */
+	public static final int NO_TIME = Integer.MIN_VALUE;
 	
 	private String name;
-	private Integer priority;
-	private Integer period;
-	private Integer deadline;
-	private Integer phase;
-	private Integer releaseTime;
-	private Integer startTime;
-	private Integer endTime;
-	private Integer lastUpdateTime = BEFORE_START;
+	private int priority;
+	private int period;
+	private int deadline;
+	private int phase;
+	private int releaseTime;
+	private int startTime;
+	private int endTime;
+	private int lastUpdateTime = BEFORE_START;
 	private SchedulableObject predecessor;
 	/* endTimes are used to keep track of multiple
 	 * releases and executions of this object in
@@ -50,7 +53,7 @@ public abstract class SchedulableObject {
 	 * @param obj
 	 * @param time
 	 */
-	SchedulableObject(SchedulableObject obj, Integer time){
+	SchedulableObject(SchedulableObject obj, int time){
 		this.name = obj.getName();
 		this.priority = obj.getPriority();
 		this.period = obj.getPeriod();
@@ -67,7 +70,7 @@ public abstract class SchedulableObject {
 		this.subObjects.addAll(obj.getSubObjects());
 		
 	}
-	SchedulableObject(Integer priority, Integer period, Integer deadline, Integer phase){
+	SchedulableObject(int priority, int period, int deadline, int phase){
 		setDefaultParameters();
 		this.priority = priority;
 		this.period = period;
@@ -77,7 +80,7 @@ public abstract class SchedulableObject {
 		this.lastUpdateTime = BEFORE_START; // reset lastUpdate 
 	}
 	
-	SchedulableObject(String name, Integer priority, Integer period, Integer deadline, Integer phase){
+	SchedulableObject(String name, int priority, int period, int deadline, int phase){
 		setDefaultParameters();
 		this.name = name;
 		this.priority = priority;
@@ -108,7 +111,7 @@ public abstract class SchedulableObject {
 		return endTimes;
 	}
 	
-	public void addToEndTimes(Integer time) {
+	public void addToEndTimes(int time) {
 		/* Add the endTime to the endTimes Q
 		 * so that we can track predecessor endTimes
 		 * and make sure successors don't start before 
@@ -117,8 +120,12 @@ public abstract class SchedulableObject {
 		endTimes.add(time);
 	}
 	
-	public Integer peekEndTimes() {
-		return endTimes.peek();
+	/**
+	 * @return the earliest end time, or NO_TIME if there are none
+	 */
+	public int peekEndTimes() {
+		var endTime = endTimes.peek();
+		return (endTime == null) ? NO_TIME : endTime;
 	}
 	
 	public void pollEndTimes() {
@@ -153,56 +160,56 @@ public abstract class SchedulableObject {
 	/**
 	 * @return the priority
 	 */
-	public Integer getPriority() {
+	public int getPriority() {
 		return priority;
 	}
 
 	/**
 	 * @return the releaseTime
 	 */
-	public Integer getReleaseTime() {
+	public int getReleaseTime() {
 		return releaseTime;
 	}
 
 	/**
 	 * @return the period
 	 */
-	public Integer getPeriod() {
+	public int getPeriod() {
 		return period;
 	}
 
 	/**
 	 * @return the deadline
 	 */
-	public Integer getDeadline() {
+	public int getDeadline() {
 		return deadline;
 	}
 
 	/**
 	 * @return the phase
 	 */
-	public Integer getPhase() {
+	public int getPhase() {
 		return phase;
 	}
 
 	/**
 	 * @return the lastUpdateTime
 	 */
-	public Integer getLastUpdateTime() {
+	public int getLastUpdateTime() {
 		return lastUpdateTime;
 	}
 
 	/**
 	 * @return the startTime
 	 */
-	public Integer getStartTime() {
+	public int getStartTime() {
 		return startTime;
 	}
 
 	/**
 	 * @return the endTime
 	 */
-	public Integer getEndTime() {
+	public int getEndTime() {
 		return endTime;
 	}
 
@@ -223,75 +230,85 @@ public abstract class SchedulableObject {
 	/**
 	 * @param endTime the endTime to set
 	 */
-	public void setEndTime(Integer endTime) {
+	public void setEndTime(int endTime) {
 		this.endTime = endTime;
 	}
 
 	/**
 	 * @param startTime the startTime to set
 	 */
-	public void setStartTime(Integer startTime) {
+	public void setStartTime(int startTime) {
 		this.startTime = startTime;
 	}
 
 	/**
 	 * @param releaseTime the releaseTime to set
 	 */
-	public void setReleaseTime(Integer releaseTime) {
+	public void setReleaseTime(int releaseTime) {
 		this.releaseTime = releaseTime;
 	}
 
 	/**
 	 * @param lastUpdateTime the lastUpdateTime to set
 	 */
-	public void setLastUpdateTime(Integer lastUpdateTime) {
+	public void setLastUpdateTime(int lastUpdateTime) {
 		this.lastUpdateTime = lastUpdateTime;
 	}
 
 	/**
 	 * @param period the period to set
 	 */
-	public void setPeriod(Integer period) {
+	public void setPeriod(int period) {
 		this.period = period;
 	}
 
 	/**
 	 * @param deadline the deadline to set
 	 */
-	public void setDeadline(Integer deadline) {
+	public void setDeadline(int deadline) {
 		this.deadline = deadline;
 	}
 
 	/**
 	 * @param phase the phase to set
 	 */
-	public void setPhase(Integer phase) {
+	public void setPhase(int phase) {
 		this.phase = phase;
 	}
 
 	/**
 	 * @param priority the priority to set
 	 */
-	public void setPriority(Integer priority) {
+	public void setPriority(int priority) {
 		this.priority = priority;
 	}
 
 	/**
 	 * @param releaseTime the releaseTime to set
 	 */
-	public void setNextReleaseTime(Integer currentTime) {
+	public void setNextReleaseTime(int currentTime) {
 		if (currentTime >= lastUpdateTime) {
-			// released every (j*period)+phase, for all j >=0
-			Integer j = 0;
-			if (period > 0) {
-				j = (int) Math.ceil((double)currentTime/(double)period); // gives floor
-			} 
-			Integer nextRelease = (j*period)+phase ;
-			releaseTime = nextRelease;
+			releaseTime = releaseTimeAtOrAfter(currentTime);
 			lastUpdateTime = currentTime;
 		}
 	}
 	
+	/**
+	 * Returns the release time at or after currentTime, without
+	 * changing the release time of this object.
+	 * 
+	 * @param currentTime
+	 * @return the release time
+	 */
+	public int releaseTimeAtOrAfter(int currentTime) {
+		// released every (j*period)+phase, for all j >=0
+		int j = 0;
+		if (period > 0) {
+			j = (int) Math.ceil((double)currentTime/(double)period); // gives floor
+		} 
+		return (j*period)+phase;
+	}
+	
 	public int maxPhaseComparison(SchedulableObject obj2) {
 		// for ascending order of priority
 		return compareDescendingOrder(this.getDeadline(), obj2.getDeadline());
@@ -345,20 +362,12 @@ public abstract class SchedulableObject {
 		return obj1.releaseTimeComparison(obj2); 
 	}
 	
-	public int compareAscendingOrder(int v1, int v2) {
-		if (v1 < v2)
-			return -1; 
-		else if (v1 > v2)
-			return 1; 
-		return 0; // tied: values are the same 
+	public static int compareAscendingOrder(int v1, int v2) {
+		return Integer.compare(v1, v2); // 0 => tied: values are the same
 	}
 	
-	public int compareDescendingOrder(int v1, int v2) {
-		if (v1 < v2)
-			return 1; 
-		else if (v1 > v2)
-			return -1; 
-		return 0; // tied: values are the same 
+	public static int compareDescendingOrder(int v1, int v2) {
+		return Integer.compare(v2, v1); // 0 => tied: values are the same
 	}
 	
 	public void print(String headerMsg) {
@@ -1,9 +1,5 @@
 package edu.uiowa.cs.warp;
 
-import java.util.HashMap;
-import java.util.ArrayList;
-
-import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
 
 /**
  * Schedule builds a non-preemptive, priority schedule 
@@ -29,6 +25,8 @@ public abstract class Schedule {
 	 * be schedulable
 	 */
 	protected ScheduleTable schedule;
+	/* nodes busy in each time slot on channels 0..numChannels-1 */
+	protected BusyNodeMatrix busyNodes;
 	protected Poset poset; // partially ordered set (poset)
 
 	Schedule(Poset poset, Integer numChannels) {
@@ -41,6 +39,7 @@ public abstract class Schedule {
 			endScheduleTime = maxPhase + 2*endScheduleTime ;
 		}
 		schedule = new ScheduleTable(numChannels+1,endScheduleTime);
+		busyNodes = new BusyNodeMatrix(endScheduleTime);
 		schedulable = true;
 		buildSchedule();
 	}
@@ -81,8 +80,10 @@ public abstract class Schedule {
 
 	private void buildSchedule() {
 
+		var context = poset.getContext();
 		var next = poset.getNextActivation();
 		while (next != null) {
+			context.checkCancelled(); // stop here if the run was cancelled
 			/* Add next to the schedule if max of its release time 
 			 * and end time is less than the endScheduleTime.
 			 * Otherwise, its releaseTime is >= endScheduleTime
@@ -115,28 +116,21 @@ public abstract class Schedule {
 
 	
 	public ProgramSchedule toProgram() {
-		var nodeNames = poset.getNodesNamesOrderedAlphabetically();
-		var numNodes = nodeNames.length;
+		/* program column of each node, indexed by node id */
+		var nodeColumn = poset.getNodeColumns();
+		var numNodes = poset.getNumNodeColumns();
 		var program = new ProgramSchedule(endScheduleTime,numNodes);
 		CodeFragment codeFragment = null;
 		var duration = 0; // default duration for SLEEP;
 		String name = null;
 		var startTime = 0;
 		var endTime = 0;
-		HashMap<String, Integer> nodeIndexMap = new HashMap<>();
 		
 		if (!schedulable) {
 			/* not Schedulable, so we will not create code */
 			return program; // return empty program
 		}
 		
-		/* build the nodeIndexMap by putting nodes in alphabetic
-		 * order and then hashing its name to its rank
-		 */
-		for (int i = 0; i < numNodes; i++) {
-			nodeIndexMap.put(nodeNames[i], i);
-		}
-		
 		for (int channel = 0; channel < numChannels; channel++) {
 			for (int time = 0; time < endScheduleTime; time++) {
 				var entry = schedule.get(channel,time);
@@ -160,9 +154,7 @@ public abstract class Schedule {
 						 * update schedule by replacing the entry with null
 						 * and update the activation with the the new end time.
 						 */
-						for (int k = 0; k < (duration - codeFragment.size()); k++) {
-							schedule.set(channel,endTime-k,null);
-						}
+						setEntries(channel,startTime+codeFragment.size(),endTime,null);
 						endTime = codeFragment.size() + startTime - 1;
 						entry.setEndTime(endTime);
 						
@@ -185,8 +177,8 @@ public abstract class Schedule {
 					var instructions = codeFragment.instructions();
 					var coordinator = codeFragment.getCoordinator();
 
-					if (coordinator != null) {
-						/* coordinator is null the entry is sleep,
+					if (coordinator != SymbolTable.NO_ID) {
+						/* coordinator is NO_ID the entry is sleep,
 						 * which happens when the schedule entry was null.
 						 * We skip this entry and then replace nulls in the
 						 * program with sleep instructions at the end
@@ -195,23 +187,22 @@ public abstract class Schedule {
 							var instr = instructions.get(i);
 							/* enter the instruciton in the program */
 							var row = time+i;
-							var column = nodeIndexMap.get(coordinator);		
+							var column = nodeColumn[coordinator];		
 							program.set(row,column,instr);
 
 							/* get the listeners from the instruction 
 							 * and insert the wait() instructions into
 							 * the program for each listener
 							 * */
-							var dsl = new WarpDSL();
-							var instructionParametersArray = dsl.getInstructionParameters(instr); 
-							for (InstructionParameters fragment: instructionParametersArray) {
-								String listener = fragment.getListener();
-								if(!listener.equals(UNKNOWN)) {
+							for (var fragment = instr; fragment != null; fragment = fragment.getElse()) {
+								var listener = fragment.getListenerId();
+								if(listener != SymbolTable.NO_ID) {
 									/* need to add a wait instruction for node listener
 									 * wait(#channel)
 									 * at time,listener location of program table
 									 */
-									program.set(time+i,nodeIndexMap.get(listener),codeFragment.wait(channel));
+									var listenerColumn = nodeColumn[listener];
+									program.set(time+i,listenerColumn,codeFragment.wait(channel));
 								}
 							}
 						}
@@ -270,15 +261,68 @@ public abstract class Schedule {
 		 * into the scheduling tale
 		 */
 		var entry = new Activation(next, startTime);
-		for (int i = startTime; i <= fakeTime; i++) {
-			/* Add this object to the schedule for the
-			 * from startTime to endTime.
-			 */
-			schedule.set(channel, i, entry);
-		}
+		/* Add this object to the schedule for the
+		 * from startTime to fakeTime.
+		 */
+		setEntries(channel, startTime, fakeTime, entry);
 		fakeTime++;
 	}
 
+	/**
+	 * setEntry puts entry in the schedule at channel and time and
+	 * keeps busyNodes up to date.
+	 * 
+	 * @param channel
+	 * @param time
+	 * @param entry activation to store, or null to clear the slot
+	 */
+	protected void setEntry(Integer channel, Integer time, Activation entry) {
+		setEntries(channel, time, time, entry);
+	}
+
+	/**
+	 * setEntries puts entry in the schedule at channel for every time in
+	 * [start, end] and keeps busyNodes up to date. All changes to the 
+	 * schedule should be made with this method or setEntry.
+	 * 
+	 * @param channel
+	 * @param start
+	 * @param end
+	 * @param entry activation to store, or null to clear the slots
+	 */
+	protected void setEntries(Integer channel, Integer start, Integer end, Activation entry) {
+		if (channel >= numChannels) {
+			/* unschedulable entries don't make nodes busy */
+			schedule.set(channel, start, end, entry);
+			return;
+		}
+		start = Math.max(start, 0);
+		end = Math.min(end, endScheduleTime-1);
+		if (start > end) {
+			return;
+		}
+		var oldEntries = new Activation[end-start+1];
+		for (int time = start; time <= end; time++) {
+			oldEntries[time-start] = schedule.get(channel, time);
+		}
+		schedule.set(channel, start, end, entry);
+		for (int time = start; time <= end; time++) {
+			var oldEntry = oldEntries[time-start];
+			if (oldEntry == entry) {
+				continue;
+			}
+			if (oldEntry == null) {
+				busyNodes.add(time, entry);
+			} else {
+				/* an entry was replaced or removed, so rebuild the slot */
+				busyNodes.clear(time);
+				for (int i = 0; i < numChannels; i++) {
+					busyNodes.add(time, schedule.get(i, time));
+				}
+			}
+		}
+	}
+
 	/**
 	 * getChannel checks for conflicts and if none, returns a free
 	 * channel. <br>
@@ -302,7 +346,7 @@ public abstract class Schedule {
 		if (pred != null) {
 			/* peek at the head of the endTimes for pred */
 			var predEndTime = pred.peekEndTimes();
-			if (predEndTime == null) {
+			if (predEndTime == SchedulableObject.NO_TIME) {
 				return numChannels; // return indicates no channel/time
 			} else if (predEndTime >= time) {
 				/* can't schedule here; need to look later */
@@ -324,13 +368,72 @@ public abstract class Schedule {
 		return channel;
 	}
 
+	/**
+	 * findChannelAndTime searches for the first time >= time, and a channel
+	 * at that time, where schedulableObject can be scheduled. The search is 
+	 * iterative: when no channel is found at a time, continueSearch decides
+	 * how the search goes on.
+	 * 
+	 * @return the channel and time found, or a channel of numChannels when 
+	 * 		there is none
+	 */
 	protected ScheduleLocation findChannelAndTime(Integer time, Activation schedulableObject ) {
+		while (true) {
+			var location = findChannelAtTime(time, schedulableObject);
+			if (location.getChannel() != numChannels || location.getTime() >= endScheduleTime) {
+				return location;
+			}
+			time = location.getTime();
+			location = continueSearch(time, schedulableObject);
+			if (location != null) {
+				return location;
+			}
+			time++;
+		}
+	}
+
+	/**
+	 * skipConflicts returns the first time >= time when obj has no conflicts in
+	 * the interval [time, time+duration-1], or endScheduleTime if there is none.
+	 * Instead of trying each time in turn, the search jumps past the last 
+	 * conflicting slot of the interval, since every interval that contains it
+	 * has the same conflict.
+	 */
+	protected Integer skipConflicts(Activation obj, Integer time, Integer duration) {
+		/* conflictsExist() is false from this time on */
+		var lastTimeChecked = endScheduleTime - duration;
+		while (time < endScheduleTime) {
+			if (time >= lastTimeChecked) {
+				return time;
+			}
+			if (duration <= 0) {
+				return endScheduleTime; // conflictsExist() is true up to the end
+			}
+			if (obj == null) {
+				return time;
+			}
+			var slot = busyNodes.lastConflict(time, time+duration-1, obj.getConflicts());
+			if (slot < 0) {
+				return time;
+			}
+			time = Math.min(slot+1, lastTimeChecked);
+		}
+		return time;
+	}
+
+	/**
+	 * findChannelAtTime does one step of findChannelAndTime. It skips
+	 * ahead to the first time >= time without conflicts and tries to find a 
+	 * channel at that time.
+	 * 
+	 * @return the channel and time found, or a channel of numChannels and
+	 * 		the time tried
+	 */
+	private ScheduleLocation findChannelAtTime(Integer time, Activation schedulableObject) {
 		var channel = numChannels; // default is no channel available 
 		var duration = schedulableObject.getExecutionDuration();
 		
-		while (time < endScheduleTime && conflictsExist(schedulableObject, time, duration )) {
-			time ++; //+= duration+1;
-		}
+		time = skipConflicts(schedulableObject, time, duration);
 		if (time >= endScheduleTime) {
 			/* no conflict time available */
 			return new ScheduleLocation(channel, time);	
@@ -369,28 +472,22 @@ public abstract class Schedule {
 			}
 
 		}
-		/* no time and channel found in interval [time, time+duration]
-		 * so, advance time and check again
-		 */
-		if (channel == numChannels) {
-			return continueSearch(time,schedulableObject);
-		} else {
-			return new ScheduleLocation(channel, time);	
-		}
+		return new ScheduleLocation(channel, time);	
 	}
 	
-	/** continueSearch continues the search for a channel time.<br>
-	 * The default implementation continues at time+1 by calling
-	 * findChannelAndTime(time+1,schedulableObject). This method
-	 * can be overridden to provide preemptive searches or any
-	 * other method of continuing the search.
+	/** continueSearch continues the search for a channel time when
+	 * no channel was found at time.<br>
+	 * The default implementation returns null, so findChannelAndTime 
+	 * continues at time+1. This method can be overridden to provide 
+	 * preemptive searches or any other method of continuing the search.
 	 * 
 	 * @param time
 	 * @param activation
-	 * @return ScheduleLocation
+	 * @return ScheduleLocation to end the search with, or null to
+	 * 		continue it at time+1
 	 */
 	protected ScheduleLocation continueSearch(Integer time, Activation activation) {
-		return findChannelAndTime(time+1,activation);
+		return null;
 	}
 	
 	protected Boolean noOtherChannelConflicts(Integer exceptedChannel, Activation schedulableObject, Integer time) {
@@ -402,6 +499,11 @@ public abstract class Schedule {
 			 */
 			return false;
 		}
+		if (schedulableObject == null || 
+				!busyNodes.conflictsWith(time, schedulableObject.getConflicts())) {
+			/* no conflicts on any channel */
+			return result;
+		}
 		for (Integer channel = 0; channel < numChannels ; channel++) {
 			var entry = schedule.get(channel,time);
 
@@ -426,18 +528,9 @@ public abstract class Schedule {
 		}
 		if (duration <= 0) {
 			result  = true;
-		} else {
-			for (Integer i = time; i < time+duration; i++ ) {
-				for (Integer channel = 0; channel < numChannels ; channel++) {
-					var entry = schedule.get(channel,i);
-					if (entry != null && obj != null) {
-						if (entry.conflictExists(obj)) {
-							result = true;
-							return result;
-						}
-					} 
-				}
-			}	
+		} else if (obj != null) {
+			/* one bit set test per slot covers every channel */
+			result = busyNodes.conflictsWith(time, time+duration-1, obj.getConflicts());
 		}
 		return result;
 	}
@@ -453,18 +546,21 @@ public abstract class Schedule {
 		}
 		if (duration <= 0) {
 			result  = false;
-		} else {
-			for (Integer i = time; i < time+duration; i++ ) {
-				for (Integer channel = 0; channel < numChannels ; channel++) {
-					var entry = schedule.get(channel,time);
-					if (entry != null && obj != null) {
-						if (entry.canCombine(obj) && channel != requestedChannel) {
-							result = false; // same coordinator is scheduled
-							return result;
-						}
-					} 
-				}
-			}	
+		} else if (obj != null && 
+				busyNodes.hasCoordinator(time, obj.getCoordinators().get(0))) {
+			/* obj's coordinator is scheduled at time, so check if 
+			 * it is on a channel other than requestedChannel.
+			 * Only the entries at time are checked.
+			 */
+			for (Integer channel = 0; channel < numChannels ; channel++) {
+				var entry = schedule.get(channel,time);
+				if (entry != null) {
+					if (entry.canCombine(obj) && channel != requestedChannel) {
+						result = false; // same coordinator is scheduled
+						return result;
+					}
+				} 
+			}
 		}
 		return result;
 	}
@@ -474,34 +570,29 @@ public abstract class Schedule {
 	 * interval [start, start+duration-1]
 	 */
 	protected Boolean isAvailable(Activation a1, Integer channel, Integer start, Integer duration) {
-		var available = true;
-		
-		if (conflictsExist(a1,start,duration)) {
-			return false;
-		}
-		for (Integer j = start; j < start+duration; j++ ) {
-			var currentEntry = schedule.get(channel,j);
-			if (currentEntry != null) {
-				if (currentEntry.canCombine(a1)) {
-					/* no conflict with this entry, and can
-					 * combine so check for combined entry time
-					 *  to see if we can combine activations
-					 */
-					var combinedDuration = currentEntry.getCombinedExecutionDuration(a1);
-					var combinedEntry = new CombinedActivation(currentEntry,a1);
-					var searchTime = currentEntry.getEndTime()+1;
-					var searchLength = combinedDuration - (duration-(j-start));
-					return isAvailable(combinedEntry, channel, searchTime, searchLength);
-				} else {
-					available = false;
-					break;
-				}
+		while (true) {
+			if (conflictsExist(a1,start,duration)) {
+				return false;
 			}
+			/* only the first entry in the interval matters */
+			var j = schedule.nextOccupied(channel, start);
+			var currentEntry = (j < start+duration) ? schedule.get(channel,j) : null;
+			if (currentEntry == null) {
+				return freeOfCoordinatorConflicts(a1, channel, start, duration);
+			}
+			if (!currentEntry.canCombine(a1)) {
+				return false;
+			}
+			/* no conflict with this entry, and can
+			 * combine so check for combined entry time
+			 *  to see if we can combine activations
+			 */
+			var combinedDuration = currentEntry.getCombinedExecutionDuration(a1);
+			var searchLength = combinedDuration - (duration-(j-start));
+			a1 = new CombinedActivation(currentEntry,a1);
+			start = currentEntry.getEndTime()+1;
+			duration = searchLength;
 		}
-		if (available) {
-			available = freeOfCoordinatorConflicts(a1, channel, start, duration);
-		}
-		return available;
 	}
 	
 	/**
@@ -527,11 +618,9 @@ public abstract class Schedule {
 	protected Integer timeRemaining(Integer channel, Integer start, Integer duration) {
 		var result = duration;
 
-		var row = schedule.get(channel);
-		for (Integer i = start; i < start+duration; i++, result-- ) {
-			if (row.get(i) != null) {
-				break;
-			}
+		var vacantSlots = schedule.nextOccupied(channel, start) - start;
+		if (vacantSlots > 0) {
+			result -= Math.min(vacantSlots, duration);
 		}
 		return result;
 	}
@@ -562,12 +651,10 @@ public abstract class Schedule {
 			var entry = new CombinedActivation(a1, a2);
 			var startTime = entry.getStartTime();
 			var endTime = entry.getEndTime();
-			for (int i = startTime; i <= endTime; i++) {
-				/* Add this object to the schedule for the
-				 * from startTime to endTime.
-				 */
-				schedule.set(channel, i, entry);
-			}
+			/* Add this object to the schedule for the
+			 * from startTime to endTime.
+			 */
+			setEntries(channel, startTime, endTime, entry);
 			result = true;
 		}
 		return result;
@@ -659,12 +746,10 @@ public abstract class Schedule {
 			entry.setEndTime(endTime);
 			next.setEndTime(endTime);
 		}
-		for (int i = startTime; i <= endTime; i++) {
-			/* Add this object to the schedule for the
-			 * from startTime to endTime.
-			 */
-			schedule.set(channel, i, entry);
-		}
+		/* Add this object to the schedule for the
+		 * from startTime to endTime.
+		 */
+		setEntries(channel, startTime, endTime, entry);
 		return true;
 	}
 
@@ -674,7 +759,7 @@ public abstract class Schedule {
 
 	public void printVerbose() {
 		System.out.println("\nSchedule:");
-		var endSchedule = schedule.get(0).size();
+		var endSchedule = schedule.getNumColumns();
 		for (int i = 0; i < numChannels; i++) {
 			System.out.printf("\nChannel: %d",i);
 			var name = UNKNOWN;
@@ -712,12 +797,11 @@ public abstract class Schedule {
 			}
 		}
 		/* report the number of Activations not schedulable, if any */
-		ArrayList<Activation> notSchedulable = schedule.get(numChannels);
 		var numNotSchedulable = 0; 	
 		var name = UNKNOWN;
 		var lastStartTime = -1;
 		for (int i = 0; i < endScheduleTime; i++) {
-			var entry = notSchedulable.get(i);
+			var entry = schedule.get(numChannels,i);
 			if (entry != null) {
 				var entryName = entry.getName();
 				if (!name.equals(entryName) || (name.equals(entryName) && lastStartTime != entry.getStartTime())) {
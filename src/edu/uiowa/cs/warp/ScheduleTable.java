@@ -1,26 +1,201 @@
 package edu.uiowa.cs.warp;
 
-public class ScheduleTable extends Table<Activation,Row<Activation>> {
-	
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+/**
+ * ScheduleTable holds the activations scheduled on each channel (row)
+ * in each time slot (column). An activation placed in the interval
+ * [start, end] is stored once, as an interval, instead of once per
+ * time slot. Each row is a map from interval start time to interval,
+ * so the entry at a time and the next free gap in a row are found
+ * in logarithmic time, and memory grows with the number of placements,
+ * not with the length of the schedule.
+ *
+ * Like Table, indexes outside the table are ignored by set and return
+ * null from get.
+ */
+public class ScheduleTable extends ArrayList<TreeMap<Integer,ScheduleTable.Interval>> {
+
 	/**
-	 * 
+	 *
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Interval is one placement of an entry in a row: entry
+	 * occupies time slots start to end, inclusive.
+	 */
+	public static class Interval {
+		private final Integer start;
+		private final Integer end;
+		private final Activation entry;
+
+		Interval(Integer start, Integer end, Activation entry) {
+			this.start = start;
+			this.end = end;
+			this.entry = entry;
+		}
+
+		public Integer getStart() {
+			return start;
+		}
+
+		public Integer getEnd() {
+			return end;
+		}
+
+		public Activation getEntry() {
+			return entry;
+		}
+	}
+
+	private Integer numColumns;
+
 	ScheduleTable(){
 		super();
+		numColumns = 0;
 	}
-	
+
 	/**
 	 * Constructor creates a table row x column in size, full
 	 * of null values.
-	 * 
+	 *
 	 * @param row
 	 * @param column
 	 */
 	ScheduleTable(Integer row, Integer column){
-		super(row,column);
-		
+		super(row);
+		for (int i = 0; i < row; i++) {
+			this.add(new TreeMap<Integer,Interval>());
+		}
+		numColumns = column;
+	}
+
+	public Integer getNumRows() {
+		return this.size();
+	}
+
+	public Integer getNumColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * @return the interval in row that contains column, or null if
+	 * 		the time slot is empty
+	 */
+	public Interval getInterval(Integer row, Integer column) {
+		if (row < 0 || row >= this.size() || column < 0 || column >= numColumns) {
+			return null;
+		}
+		var floor = this.get(row).floorEntry(column);
+		if (floor == null || floor.getValue().end < column) {
+			return null;
+		}
+		return floor.getValue();
+	}
+
+	public Activation get(Integer row, Integer column) {
+		var interval = getInterval(row, column);
+		return (interval == null) ? null : interval.entry;
+	}
+
+	public void set(Integer row, Integer column, Activation element) {
+		set(row, column, column, element);
+	}
+
+	/**
+	 * Sets every time slot of row in [start, end] to element. A null
+	 * element empties the time slots. Intervals that overlap [start, end]
+	 * are trimmed, and an interval of the same element right before or
+	 * after it is merged with it.
+	 */
+	public void set(Integer row, Integer start, Integer end, Activation element) {
+		if (row < 0 || row >= this.size()) {
+			return;
+		}
+		start = Math.max(start, 0);
+		end = Math.min(end, numColumns-1);
+		if (start > end) {
+			return;
+		}
+		var intervals = this.get(row);
+		/* trim an interval that starts before start and overlaps it */
+		var before = intervals.lowerEntry(start);
+		if (before != null && before.getValue().end >= start) {
+			var overlap = before.getValue();
+			intervals.put(overlap.start, new Interval(overlap.start, start-1, overlap.entry));
+			if (overlap.end > end) {
+				intervals.put(end+1, new Interval(end+1, overlap.end, overlap.entry));
+			}
+		}
+		/* remove the intervals that start in [start, end], keeping any part after end */
+		var inside = intervals.subMap(start, true, end, true);
+		if (!inside.isEmpty()) {
+			var last = inside.lastEntry().getValue();
+			inside.clear();
+			if (last.end > end) {
+				intervals.put(end+1, new Interval(end+1, last.end, last.entry));
+			}
+		}
+		if (element == null) {
+			return;
+		}
+		/* merge with adjacent intervals of the same element */
+		before = intervals.lowerEntry(start);
+		if (before != null && before.getValue().end == start-1 && before.getValue().entry == element) {
+			start = before.getKey();
+			intervals.remove(start);
+		}
+		var after = intervals.get(end+1);
+		if (after != null && after.entry == element) {
+			end = after.end;
+			intervals.remove(after.start);
+		}
+		intervals.put(start, new Interval(start, end, element));
+	}
+
+	/**
+	 * @return the first time >= time with an entry in row, or
+	 * 		getNumColumns() if the rest of the row is empty
+	 */
+	public Integer nextOccupied(Integer row, Integer time) {
+		if (getInterval(row, time) != null) {
+			return time;
+		}
+		var next = (row < 0 || row >= this.size()) ? null : this.get(row).higherKey(time);
+		return (next == null) ? numColumns : Math.min(next, numColumns);
+	}
+
+	/**
+	 * Finds the next gap of at least length empty time slots in row.
+	 *
+	 * @return the earliest time >= time that starts a gap of length
+	 * 		time slots, or -1 if there isn't one before the end of the row
+	 */
+	public Integer nextFreeGap(Integer row, Integer time, Integer length) {
+		if (row < 0 || row >= this.size()) {
+			return -1;
+		}
+		var gapStart = Math.max(time, 0);
+		var current = getInterval(row, gapStart);
+		if (current != null) {
+			gapStart = current.end + 1;
+		}
+		for (Interval next : this.get(row).tailMap(gapStart, false).values()) {
+			if (next.start - gapStart >= length) {
+				break;
+			}
+			gapStart = next.end + 1;
+		}
+		return (gapStart + length <= numColumns) ? gapStart : -1;
+	}
+
+	/**
+	 * @return the number of intervals stored in row
+	 */
+	public Integer getNumIntervals(Integer row) {
+		return (row < 0 || row >= this.size()) ? 0 : this.get(row).size();
 	}
 
 }
@@ -0,0 +1,223 @@
+package edu.uiowa.cs.warp;
+
+import edu.uiowa.cs.utilities.Utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+/**
+ * SymbolTable assigns dense integer ids to the node and flow names of a workload. Ids are given
+ * in the order the names are first added, starting at 0, so they can be used directly as array
+ * indexes. The table is filled in once, as WorkLoadListener reads the workload description, and
+ * after that names are only needed to read input and write output.
+ *
+ * When a workload delta removes the last flow through a node, the node is removed from the table,
+ * but its id is not given to another node, so ids held elsewhere stay valid. A removed node that
+ * is added again gets its old id back.
+ *
+ * A table isn't locked. It may be changed only while no other thread uses it. WorkLoad changes
+ * its table only through a mutable workload, and a snapshot gets a copy of the table. A table
+ * that isn't being changed can be read by several threads at once.
+ *
+ * @version 1.3
+ */
+public class SymbolTable {
+
+  public static final int NO_ID = -1; // returned when a name is not in the table
+
+  private final HashMap<String, Integer> nodeIds;
+  private final HashMap<String, Integer> flowIds;
+  private final ArrayList<String> nodeNames; // node names indexed by id
+  private final ArrayList<String> flowNames; // flow names indexed by id
+  private final BitSet removedNodes; // ids of nodes that have been removed
+  /* schedule column of each node, computed when first needed; volatile so threads reading the
+   * table see the whole array */
+  private volatile int[] nodeColumns;
+
+  SymbolTable() {
+    nodeIds = new HashMap<>();
+    flowIds = new HashMap<>();
+    nodeNames = new ArrayList<>();
+    flowNames = new ArrayList<>();
+    removedNodes = new BitSet();
+    nodeColumns = null;
+  }
+
+  /*
+   * Copy constructor, for a workload snapshot that must not see later changes to table
+   */
+  SymbolTable(SymbolTable table) {
+    nodeIds = new HashMap<>(table.nodeIds);
+    flowIds = new HashMap<>(table.flowIds);
+    nodeNames = new ArrayList<>(table.nodeNames);
+    flowNames = new ArrayList<>(table.flowNames);
+    removedNodes = (BitSet) table.removedNodes.clone();
+    nodeColumns = table.nodeColumns;
+  }
+
+  /**
+   * Adds a node name to the table, if it isn't already there.
+   *
+   * @param name node name
+   * @return the id of the node
+   */
+  public int addNode(String name) {
+    var id = nodeIds.get(name);
+    if (id == null) {
+      id = nodeNames.size();
+      nodeIds.put(name, id);
+      nodeNames.add(name);
+      nodeColumns = null; // column order has to be recomputed
+    } else if (removedNodes.get(id)) {
+      removedNodes.clear(id);
+      nodeColumns = null;
+    }
+    return id;
+  }
+
+  /**
+   * Removes a node from the table. Its id is kept for the node, in case it is added again.
+   *
+   * @param name node name
+   * @return the id of the node, or NO_ID if there is no node with that name
+   */
+  public int removeNode(String name) {
+    var id = getNodeId(name);
+    if (id != NO_ID && !removedNodes.get(id)) {
+      removedNodes.set(id);
+      nodeColumns = null;
+    }
+    return id;
+  }
+
+  /**
+   * @return true if id is the id of a node that has not been removed
+   */
+  public boolean containsNode(int id) {
+    return id >= 0 && id < nodeNames.size() && !removedNodes.get(id);
+  }
+
+  /**
+   * Adds a flow name to the table, if it isn't already there.
+   *
+   * @param name flow name
+   * @return the id of the flow
+   */
+  public int addFlow(String name) {
+    var id = flowIds.get(name);
+    if (id == null) {
+      id = flowNames.size();
+      flowIds.put(name, id);
+      flowNames.add(name);
+    }
+    return id;
+  }
+
+  /**
+   * @return the id of the node, or NO_ID if there is no node with that name
+   */
+  public int getNodeId(String name) {
+    var id = nodeIds.get(name);
+    return (id == null) ? NO_ID : id;
+  }
+
+  /**
+   * @return the id of the flow, or NO_ID if there is no flow with that name
+   */
+  public int getFlowId(String name) {
+    var id = flowIds.get(name);
+    return (id == null) ? NO_ID : id;
+  }
+
+  public String getNodeName(int id) {
+    return nodeNames.get(id);
+  }
+
+  public String getFlowName(int id) {
+    return flowNames.get(id);
+  }
+
+  /**
+   * @return the number of node ids, including those of removed nodes, so arrays indexed by node id
+   *         need this size
+   */
+  public Integer getNumNodes() {
+    return nodeNames.size();
+  }
+
+  /**
+   * @return the number of nodes that have not been removed, which is the number of columns of a
+   *         program schedule
+   */
+  public Integer getNumActiveNodes() {
+    return nodeNames.size() - removedNodes.cardinality();
+  }
+
+  public Integer getNumFlows() {
+    return flowNames.size();
+  }
+
+  /**
+   * Returns the node names in alphabetical order. When all of the node names are integers, they
+   * are sorted numerically instead.
+   *
+   * @return the node names, in the order of the columns of a program schedule
+   */
+  public String[] getNodeNamesOrderedAlphabetically() {
+    String[] names = activeNodeIds().mapToObj(nodeNames::get).toArray(String[]::new);
+    Arrays.sort(names);
+    /* names that are integers would sort as strings, so handle that case */
+    var namesAsInts = new Integer[names.length];
+    var allIntNames = true;
+    for (int i = 0; i < names.length && allIntNames; i++) {
+      if (Utilities.isInteger(names[i])) {
+        namesAsInts[i] = Integer.parseInt(names[i]);
+      } else {
+        allIntNames = false;
+      }
+    }
+    if (allIntNames) {
+      Arrays.sort(namesAsInts);
+      for (int i = 0; i < namesAsInts.length; i++) {
+        names[i] = Integer.toString(namesAsInts[i]);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Program schedules have one column per node, with the nodes in the order returned by
+   * getNodeNamesOrderedAlphabetically().
+   *
+   * @return the schedule column of each node, indexed by node id, or NO_ID for a removed node
+   */
+  public int[] getNodeColumns() {
+    var columns = nodeColumns;
+    if (columns == null) { // threads that get here at once compute the same columns
+      var allIntNames = activeNodeIds().mapToObj(nodeNames::get).allMatch(Utilities::isInteger);
+      Integer[] idsInColumnOrder = activeNodeIds().boxed().toArray(Integer[]::new);
+      if (allIntNames) {
+        Arrays.sort(idsInColumnOrder,
+            (a, b) -> Integer.compare(Integer.parseInt(nodeNames.get(a)),
+                Integer.parseInt(nodeNames.get(b))));
+      } else {
+        Arrays.sort(idsInColumnOrder, (a, b) -> nodeNames.get(a).compareTo(nodeNames.get(b)));
+      }
+      columns = new int[nodeNames.size()];
+      Arrays.fill(columns, NO_ID);
+      for (int column = 0; column < idsInColumnOrder.length; column++) {
+        columns[idsInColumnOrder[column]] = column;
+      }
+      nodeColumns = columns;
+    }
+    return columns.clone();
+  }
+
+  /* ids of the nodes that have not been removed, in id order */
+  private IntStream activeNodeIds() {
+    return IntStream.range(0, nodeNames.size()).filter(id -> !removedNodes.get(id));
+  }
+}
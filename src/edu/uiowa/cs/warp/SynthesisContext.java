@@ -0,0 +1,121 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * SynthesisContext holds the state that changes while one program is synthesized from a workload,
+ * so the workload itself is only read, and one workload (see WorkLoad.snapshot()) can be shared by
+ * programs built at the same time. It has the channel each node used last, and copies of the
+ * flows and nodes that a Poset adds its edges and conflicts to.
+ *
+ * A context is used by one run, on one thread, except for cancel(), which another thread can call
+ * to stop the run at its next checkpoint (see checkCancelled()).
+ *
+ * @version 1.1
+ */
+public class SynthesisContext {
+
+  private final WorkLoad workLoad;
+  private final int[] nodeChannels; // channel each node used last, indexed by node id
+  private ArrayList<Flow> flows; // copies of the workload flows, made when first needed
+  private ArrayList<Node> nodes; // copies of the workload nodes, made with the flows
+  private Node[] nodesById; // the copies in nodes, indexed by id
+  private volatile boolean cancelled = false; // set by cancel(), from any thread
+
+  SynthesisContext(WorkLoad workLoad) {
+    this.workLoad = workLoad;
+    var symbols = workLoad.getSymbolTable();
+    nodeChannels = new int[symbols.getNumNodes()];
+    for (int id = 0; id < nodeChannels.length; id++) {
+      if (symbols.containsNode(id)) {
+        nodeChannels[id] = workLoad.getNodeChannel(id);
+      }
+    }
+  }
+
+  public WorkLoad getWorkLoad() {
+    return workLoad;
+  }
+
+  /**
+   * @return the channel the node with id used last
+   */
+  public int getNodeChannel(int id) {
+    return nodeChannels[id];
+  }
+
+  /**
+   * @param id id of the node whose channel is to be set
+   * @param channel the channel to set
+   */
+  public void setNodeChannel(int id, int channel) {
+    nodeChannels[id] = channel;
+  }
+
+  /**
+   * @return copies of the workload flows, in the order of its FlowMap, which can be changed
+   */
+  public List<Flow> getFlows() {
+    copyGraph();
+    return flows;
+  }
+
+  /**
+   * @return copies of the workload nodes, in the order of its NodeMap, which can be changed
+   */
+  public List<Node> getNodes() {
+    copyGraph();
+    return nodes;
+  }
+
+  /**
+   * @return the copy of the node with id
+   */
+  public Node getNode(int id) {
+    copyGraph();
+    return nodesById[id];
+  }
+
+  /**
+   * Asks the run that uses this context to stop. The run stops at its next checkpoint, where
+   * checkCancelled() throws.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public Boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * A checkpoint of the run that uses this context, called often enough that a cancelled run stops
+   * soon after cancel() is called.
+   *
+   * @throws CancellationException if the run was cancelled
+   */
+  public void checkCancelled() {
+    if (cancelled) {
+      throw new CancellationException("Synthesis cancelled");
+    }
+  }
+
+  private void copyGraph() {
+    if (flows == null) {
+      flows = new ArrayList<>();
+      for (Flow flow : workLoad.getFlows().values()) {
+        flows.add(new Flow(flow));
+      }
+      nodes = new ArrayList<>();
+      nodesById = new Node[workLoad.getSymbolTable().getNumNodes()];
+      for (Node node : workLoad.getNodes().values()) {
+        var copy = new Node(node);
+        copy.setChannel(nodeChannels[node.getId()]);
+        nodes.add(copy);
+        nodesById[copy.getId()] = copy;
+      }
+    }
+  }
+}
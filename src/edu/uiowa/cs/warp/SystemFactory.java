@@ -16,4 +16,8 @@ public class SystemFactory {
 	public static WarpInterface create(WorkLoad workload, Integer numChannels, ScheduleChoices choice) {
 		return new WarpSystem(workload,numChannels, choice);
 	}
+
+	public static WarpInterface create(SynthesisContext context, Integer numChannels, ScheduleChoices choice) {
+		return new WarpSystem(context,numChannels, choice);
+	}
 }
@@ -0,0 +1,260 @@
+package edu.uiowa.cs.warp;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * TxCostTable memoizes the transmission costs of flows that are computed from the E2E
+ * reliability parameters (see WorkLoad.finalizeCurrentFlow()). Those costs depend only on the
+ * number of nodes in the flow, M and E2E, so flows with the same length share one entry, and
+ * workloads built in the same process with the same M and E2E reuse each other's entries.
+ *
+ * Entries are read-only. All methods are synchronized, so one table can be shared by the whole
+ * process (see getSharedTable()). The table can be stored in a file and loaded again, so parameter
+ * sweeps run as separate processes reuse it as well. Each directory is loaded once per table, and
+ * isDirty() tells whether there are entries that haven't been stored since.
+ *
+ * @version 1.2
+ */
+public class TxCostTable {
+
+  public static final String TX_COST_FILE = "txcosts.tcb";
+  private static final int MAGIC = 0x54584331; // "TXC1"; change it when the costs change
+
+  private static final TxCostTable sharedTable = new TxCostTable();
+
+  /**
+   * TxCosts are the costs of a flow: the number of transmissions per link, and the tx cost of each
+   * link followed by the total E2E tx cost.
+   */
+  public static class TxCosts {
+    private final int numTxPerLink;
+    private final List<Integer> linkTxAndTotalCost;
+
+    TxCosts(int numTxPerLink, int[] linkTxAndTotalCost) {
+      this.numTxPerLink = numTxPerLink;
+      Integer[] costs = new Integer[linkTxAndTotalCost.length];
+      for (int i = 0; i < costs.length; i++) {
+        costs[i] = linkTxAndTotalCost[i];
+      }
+      this.linkTxAndTotalCost = List.of(costs);
+    }
+
+    public int getNumTxPerLink() {
+      return numTxPerLink;
+    }
+
+    /**
+     * @return read-only list of the tx cost of each link, followed by the total E2E tx cost
+     */
+    public List<Integer> getLinkTxAndTotalCost() {
+      return linkTxAndTotalCost;
+    }
+  }
+
+  /* the parameters the costs depend on */
+  private static class Key {
+    private final int numNodes;
+    private final double m;
+    private final double e2e;
+
+    Key(int numNodes, double m, double e2e) {
+      this.numNodes = numNodes;
+      this.m = m;
+      this.e2e = e2e;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      var key = (Key) other;
+      return numNodes == key.numNodes && Double.compare(m, key.m) == 0
+          && Double.compare(e2e, key.e2e) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return (31 * numNodes + Double.hashCode(m)) * 31 + Double.hashCode(e2e);
+    }
+  }
+
+  private final HashMap<Key, TxCosts> entries;
+  private final HashSet<Path> loadedDirectories;
+  private boolean dirty; // true when entries have been computed since the table was last stored
+  private long hits;
+  private long misses;
+
+  TxCostTable() {
+    this.entries = new HashMap<>();
+    this.loadedDirectories = new HashSet<>();
+    this.dirty = false;
+    this.hits = 0;
+    this.misses = 0;
+  }
+
+  /**
+   * @return the table shared by all users in this process
+   */
+  public static TxCostTable getSharedTable() {
+    return sharedTable;
+  }
+
+  /**
+   * Returns the costs of a flow with numNodes nodes, computing them only if they are not in the
+   * table. They are computed without holding the lock on the table, so other flows can be looked
+   * up in the meantime.
+   *
+   * @param numNodes number of nodes in the flow
+   * @param m minimum packet reception rate
+   * @param e2e end-to-end reliability target
+   * @param computeCosts computes the costs on a miss
+   * @return the costs
+   */
+  public TxCosts getTxCosts(int numNodes, double m, double e2e, Supplier<TxCosts> computeCosts) {
+    var key = new Key(numNodes, m, e2e);
+    synchronized (this) {
+      var costs = entries.get(key);
+      if (costs != null) {
+        hits++;
+        return costs;
+      }
+      misses++;
+    }
+    var costs = computeCosts.get();
+    synchronized (this) {
+      var existing = entries.putIfAbsent(key, costs);
+      if (existing != null) {
+        return existing;
+      }
+      dirty = true;
+      return costs;
+    }
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return true if entries have been computed since the table was last stored
+   */
+  public synchronized Boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * @return the number of entries in the table
+   */
+  public synchronized Integer size() {
+    return entries.size();
+  }
+
+  /**
+   * Empties the table, resets the hit and miss counts, and forgets which directories were loaded.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    loadedDirectories.clear();
+    dirty = false;
+    hits = 0;
+    misses = 0;
+  }
+
+  /**
+   * Adds the entries stored in directory by store(), if there are any, to the table. Entries that
+   * are already in the table are kept. A directory is only read the first time it is loaded.
+   *
+   * @return true if the file was read, now or before
+   */
+  public Boolean load(String directory) {
+    var path = Path.of(directory).toAbsolutePath().normalize();
+    synchronized (this) {
+      if (loadedDirectories.contains(path)) {
+        return true;
+      }
+    }
+    var loaded = CacheFiles.read(path.resolve(TX_COST_FILE), "tx costs", TxCostTable::read);
+    if (loaded == null) {
+      return false;
+    }
+    synchronized (this) {
+      loadedDirectories.add(path);
+      for (Map.Entry<Key, TxCosts> entry : loaded.entrySet()) {
+        entries.putIfAbsent(entry.getKey(), entry.getValue());
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the table to a file in directory, which is created if needed. The table is no longer
+   * dirty, unless the file can't be written.
+   *
+   * @return true if the file was written
+   */
+  public Boolean store(String directory) {
+    ByteBuffer buffer;
+    synchronized (this) {
+      dirty = false; // entries computed from now on are not in this file
+      var numBytes = 2 * Integer.BYTES;
+      for (TxCosts costs : entries.values()) {
+        numBytes += 3 * Integer.BYTES + 2 * Double.BYTES
+            + costs.linkTxAndTotalCost.size() * Integer.BYTES;
+      }
+      buffer = ByteBuffer.allocate(numBytes);
+      buffer.putInt(MAGIC);
+      buffer.putInt(entries.size());
+      for (Map.Entry<Key, TxCosts> entry : entries.entrySet()) {
+        var key = entry.getKey();
+        var costs = entry.getValue();
+        buffer.putInt(key.numNodes).putDouble(key.m).putDouble(key.e2e);
+        buffer.putInt(costs.numTxPerLink);
+        buffer.putInt(costs.linkTxAndTotalCost.size());
+        for (Integer cost : costs.linkTxAndTotalCost) {
+          buffer.putInt(cost);
+        }
+      }
+    }
+    buffer.flip();
+    var file = Path.of(directory).resolve(TX_COST_FILE);
+    if (!CacheFiles.writeAtomically(file, "tx costs", buffer)) {
+      synchronized (this) {
+        dirty = true;
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /* reads the entries of a tx cost file, or returns null if it was written by another version */
+  private static HashMap<Key, TxCosts> read(ByteBuffer buffer) {
+    if (buffer.getInt() != MAGIC) {
+      return null; // written by a version that computed costs differently
+    }
+    var loaded = new HashMap<Key, TxCosts>();
+    var numEntries = buffer.getInt();
+    for (int i = 0; i < numEntries; i++) {
+      var key = new Key(buffer.getInt(), buffer.getDouble(), buffer.getDouble());
+      var numTxPerLink = buffer.getInt();
+      loaded.put(key, new TxCosts(numTxPerLink, CacheFiles.getInts(buffer)));
+    }
+    return loaded;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("TxCostTable: %d entries, %d hits, %d misses", entries.size(), hits,
+        misses);
+  }
+}
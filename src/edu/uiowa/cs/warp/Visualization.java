@@ -5,7 +5,7 @@ package edu.uiowa.cs.warp;
 
 /**
  * @author sgoddard
- * @version 1.4
+ * @version 1.5
  */
 public interface Visualization {
 
@@ -21,5 +21,10 @@ public interface Visualization {
 
   public void toFile();
 
+  /**
+   * @return what toFile() writes to the file
+   */
+  public String toFileContent();
+
   public String toString();
 }
@@ -84,6 +84,16 @@ public class VisualizationImplementation implements Visualization {
     fm.writeFile(fileName, fileContent.toString());
   }
 
+  /**
+   * Returns fileContent in string format, which is what toFile() writes.
+   * 
+   * @return the file content as a string
+   */
+  @Override
+  public String toFileContent() {
+    return fileContent.toString();
+  }
+
   /**
    * Returns the visualization as a string.
    * 
@@ -154,7 +164,7 @@ public class VisualizationImplementation implements Visualization {
         break;
 
       case GRAPHVIZ:
-        createVisualization(new GraphViz(fm, workLoad.toString()));
+        createVisualization(new GraphViz(fm, workLoad));
         break;
 
       case INPUT_GRAPH:
@@ -3,6 +3,8 @@
  */
 package edu.uiowa.cs.warp;
 
+import java.io.IOException;
+
 /**
  * @author sgoddard
  * @version 1.5
@@ -106,6 +108,19 @@ abstract class VisualizationObject {
     return fileContent;
   }
 
+  /**
+   * Writes what fileVisualization() returns to out. A visualization that renders its data a row at
+   * a time overrides it, so each row is written as soon as it is rendered.
+   *
+   * @param out where the file content is written
+   * @throws IOException if out can't be written
+   */
+  public void writeFileVisualization(Appendable out) throws IOException {
+    for (String line : fileVisualization()) {
+      out.append(line);
+    }
+  }
+
   public GuiVisualization displayVisualization() {
     return null; // not implemented
   }
@@ -22,7 +22,23 @@
 
 package edu.uiowa.cs.warp;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import argparser.ArgParser;
 import argparser.BooleanHolder;
@@ -44,7 +60,7 @@ import edu.uiowa.cs.warp.Visualization.WorkLoadChoices;
  * state of the art technology.
  * 
  * @author sgoddard
- * @version 1.5
+ * @version 1.9
  *
  */
 public class Warp {
@@ -80,78 +96,154 @@ public class Warp {
   /**
    * number of wireless channels available for scheduling
    */
-  private static Integer nChannels; // number of wireless channels available for scheduling
+  private Integer nChannels; // number of wireless channels available for scheduling
   /**
    * number of faults tolerated per edge
    */
-  private static Integer numFaults; // number of faults tolerated per edge
+  private Integer numFaults; // number of faults tolerated per edge
   /**
    * global variable for minimum Link Quality in system, later we can add local minLQ for each link
    */
-  private static Double minLQ; // global variable for minimum Link Quality in system, later we can
-                               // add local minLQ for each link
+  private Double minLQ; // global variable for minimum Link Quality in system, later we can
+                        // add local minLQ for each link
   /**
    * global variable for minimum Link Quality in system, later we can add local minLQ for each link
    */
-  private static Double e2e; // global variable for minimum Link Quality in system, later we can add
-                             // local minLQ for each link
+  private Double e2e; // global variable for minimum Link Quality in system, later we can add
+                      // local minLQ for each link
   /**
    * default output subdirectory (from working directory) where output files will be placed (gv, wf, ra)
    */
-  private static String outputSubDirectory; // default output subdirectory (from working directory)
-                                            // where output files will be placed (e.g., gv, wf, ra)
+  private String outputSubDirectory; // default output subdirectory (from working directory)
+                                     // where output files will be placed (e.g., gv, wf, ra)
   /**
    * Gui visualization selected
    */
-  private static Boolean guiRequested; // Gui Visualization selected
+  private Boolean guiRequested; // Gui Visualization selected
   /**
    * GraphVis file requested flag
    */
-  private static Boolean gvRequested; // GraphVis file requested flag
+  private Boolean gvRequested; // GraphVis file requested flag
   /**
    * WARP file requested flag
    */
-  private static Boolean wfRequested; // WARP file requested flag
+  private Boolean wfRequested; // WARP file requested flag
   /**
    * Reliability Analysis file requested flag
    */
-  private static Boolean raRequested; // Reliability Analysis file requested flag
+  private Boolean raRequested; // Reliability Analysis file requested flag
   /**
    * Latency Analysis file requested flag
    */
-  private static Boolean laRequested; // Latency Analysis file requested flag
+  private Boolean laRequested; // Latency Analysis file requested flag
   /**
    * Channel Analysis file requested flag
    */
-  private static Boolean caRequested; // Channel Analysis file requested flag
+  private Boolean caRequested; // Channel Analysis file requested flag
   /**
    * Simulation file requested flag
    */
-  private static Boolean simRequested; // Simulation file requested flag
+  private Boolean simRequested; // Simulation file requested flag
   /**
    * all out files requested flag
    */
-  private static Boolean allRequested; // all out files requested flag
+  private Boolean allRequested; // all out files requested flag
   /**
    * latency report requested flag
    */
-  private static Boolean latencyRequested; // latency report requested flag
+  private Boolean latencyRequested; // latency report requested flag
   /**
    * scheduler requested flag
    */
-  private static Boolean schedulerRequested = false;
+  private Boolean schedulerRequested = false;
   /**
    * verbose mode flag (mainly for running in IDE)
    */
-  private static Boolean verboseMode; // verbose mode flag (mainly for running in IDE)
+  private Boolean verboseMode; // verbose mode flag (mainly for running in IDE)
   /**
    * inputFile from which the graph workload is read
    */
-  private static String inputFile; // inputFile from which the graph workload is read
+  private String inputFile; // inputFile from which the graph workload is read
   /**
    * Scheduler requested
    */
-  private static ScheduleChoices schedulerSelected; // Scheduler requested
+  private ScheduleChoices schedulerSelected; // Scheduler requested
+  /**
+   * directory where compiled workloads (.wlb) are cached, null if not requested
+   */
+  private String cacheDirectory; // directory where compiled workloads are cached
+  /**
+   * workload delta file applied to the workload after it is built, null if not requested
+   */
+  private String deltaFile; // workload delta file applied to the workload
+  /**
+   * maximum number of systems built at the same time when all schedulers are requested
+   */
+  private Integer numThreads; // maximum number of systems built at the same time
+  /**
+   * schedulers raced in portfolio mode, in order of preference, null if not requested
+   */
+  private List<ScheduleChoices> portfolio; // schedulers raced in portfolio mode
+  /**
+   * true to exit when the options are not valid, false to throw IllegalArgumentException
+   */
+  private final Boolean exitOnError;
+  /**
+   * workload snapshots shared with other runs in this process, by workLoadKey(); null if not shared
+   */
+  private Map<String, WorkLoad> sharedWorkLoads;
+  /**
+   * whether each system built meets every requirement, by scheduler
+   */
+  private final Map<ScheduleChoices, Boolean> schedulable =
+      Collections.synchronizedMap(new EnumMap<>(ScheduleChoices.class));
+  /**
+   * lock held while a visualization file is written, since runs for different schedulers can
+   * write the same file
+   */
+  private static final Object FILE_LOCK = new Object();
+  /**
+   * output of the run on the current thread, when runs are done at the same time
+   */
+  private static final ThreadLocal<RunOutput> runOutput = new ThreadLocal<>();
+  /**
+   * number of callers of captureOutputOfRuns() that have not released it yet, and the console
+   * streams that are restored when the last one does
+   */
+  private static int numCapturing = 0;
+  private static PrintStream consoleOut;
+  private static PrintStream consoleErr;
+
+  /**
+   * RunOutput buffers what one run prints to System.out and System.err, so the output of runs that
+   * are done at the same time can be printed in order when they are done.
+   */
+  static class RunOutput {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    /**
+     * Prints the buffered output to System.out and System.err, which are the output of the run on
+     * the current thread, if there is one.
+     */
+    void print() {
+      try {
+        out.writeTo(System.out);
+        System.out.flush();
+        err.writeTo(System.err);
+        System.err.flush();
+      } catch (IOException e) {
+        throw new IllegalStateException(e); // the console streams don't throw
+      }
+    }
+
+    /**
+     * @return true if nothing was printed
+     */
+    Boolean isEmpty() {
+      return out.size() == 0 && err.size() == 0;
+    }
+  }
 
 
   /**
@@ -160,9 +252,57 @@ public class Warp {
  * @param args
  */
   public static void main(String[] args) throws FileNotFoundException {
+    new Warp(args, true).run();
+  }
+
+  /**
+   * Parses the command-line options of a run.
+   * 
+   * @param args the options
+   * @param exitOnError true to exit when the options are not valid, as a command does
+   * @throws IllegalArgumentException if exitOnError is false and the options are not valid
+   */
+  Warp(String[] args, Boolean exitOnError) {
+    this.exitOnError = exitOnError;
     // parse command-line options and set WARP system parameters
     setWarpParameters(args);
+  }
+
+  /**
+   * Shares workload snapshots with other runs in this process: a run with the same input file and
+   * parameters as one done before uses its snapshot, instead of building the workload again. They
+   * are not shared by runs with a workload delta, or in verbose mode, which prints the workload as
+   * it is built.
+   * 
+   * @param workLoads the shared snapshots, by workLoadKey(); it is synchronized on when used
+   */
+  void shareWorkLoads(Map<String, WorkLoad> workLoads) {
+    this.sharedWorkLoads = workLoads;
+  }
+
+  /**
+   * @return the input file of the run
+   */
+  String getInputFile() {
+    return inputFile;
+  }
+
+  /**
+   * @return whether each system built meets every requirement, by scheduler, in the order of the
+   *         scheduler choices
+   */
+  Map<ScheduleChoices, Boolean> getSchedulability() {
+    synchronized (schedulable) {
+      return new EnumMap<>(schedulable);
+    }
+  }
 
+  /**
+   * Creates and visualizes the workload and the requested systems.
+   * 
+   * @throws FileNotFoundException if the input file can't be read
+   */
+  void run() throws FileNotFoundException {
     // and print out the values if in verbose mode
     if (verboseMode) {
       printWarpParameters();
@@ -170,27 +310,18 @@ public class Warp {
 
     // Create and visualize the workload
     // inputFile string, which may be null,
-    WorkLoad workLoad = new WorkLoad(numFaults, minLQ, e2e, inputFile);
+    var workLoad = getWorkLoad();
     if (allRequested) {
       for (WorkLoadChoices choice : WorkLoadChoices.values()) {
         visualize(workLoad, choice); // visualize all Program choices
       }
       // Create and visualize the Warp System
-      if (schedulerRequested) {
-        WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-        verifyPerformanceRequirements(warp);
-        for (SystemChoices choice : SystemChoices.values()) {
-          visualize(warp, choice); // visualize all System choices
-        }
+      if (portfolio != null) {
+        visualizeSystem(race(workLoad), schedulerSelected);
+      } else if (schedulerRequested) {
+        synthesize(workLoad, schedulerSelected);
       } else { // create a system for all scheduler choices
-        for (ScheduleChoices sch : ScheduleChoices.values()) {
-          schedulerSelected = sch;
-          WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-          verifyPerformanceRequirements(warp);
-          for (SystemChoices choice : SystemChoices.values()) {
-            visualize(warp, choice); // visualize all System choices
-          }
-        }
+        synthesizeAll(workLoad);
       }
     } else { // visualize warp workload, source program and other requested items
       visualize(workLoad, WorkLoadChoices.INPUT_GRAPH);
@@ -200,8 +331,9 @@ public class Warp {
       if (gvRequested) {
         visualize(workLoad, WorkLoadChoices.GRAPHVIZ);
       }
-      WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-      verifyPerformanceRequirements(warp);
+      WarpInterface warp = (portfolio != null) ? race(workLoad)
+          : SystemFactory.create(workLoad, nChannels, schedulerSelected);
+      verifyPerformanceRequirements(warp, schedulerSelected);
       visualize(warp, SystemChoices.SOURCE);
       if (caRequested) {
         visualize(warp, SystemChoices.CHANNEL);
@@ -219,13 +351,369 @@ public class Warp {
 
   }
 
+  /**
+   * @return the snapshot of the workload, which may be shared with other runs
+   */
+  private WorkLoad getWorkLoad() throws FileNotFoundException {
+    if (sharedWorkLoads == null || deltaFile != null || verboseMode) {
+      return buildWorkLoad();
+    }
+    var key = workLoadKey();
+    WorkLoad workLoad;
+    synchronized (sharedWorkLoads) {
+      workLoad = sharedWorkLoads.get(key);
+    }
+    if (workLoad == null) { // build it without the lock, so other workloads can be built meanwhile
+      workLoad = buildWorkLoad();
+      synchronized (sharedWorkLoads) {
+        var built = sharedWorkLoads.putIfAbsent(key, workLoad);
+        if (built != null) {
+          workLoad = built; // built by another run in the meantime
+        }
+      }
+    }
+    return workLoad;
+  }
+
+  /**
+   * @return the key of the workload of the run, its input file and parameters
+   */
+  private String workLoadKey() {
+    return String.format("%s|%d|%s|%s", Path.of(inputFile).toAbsolutePath().normalize(), numFaults,
+        String.valueOf(minLQ), String.valueOf(e2e));
+  }
+
+  /**
+   * Builds the workload from the input file, with the delta applied if one was requested.
+   * 
+   * @return a snapshot of the workload
+   */
+  private WorkLoad buildWorkLoad() throws FileNotFoundException {
+    var cache = (cacheDirectory == null) ? null : new WorkLoadCache(cacheDirectory);
+    if (cacheDirectory != null) {
+      TxCostTable.getSharedTable().load(cacheDirectory); // reuse tx costs; read once per process
+    }
+    WorkLoad workLoad = new WorkLoad(numFaults, minLQ, e2e, inputFile, cache);
+    if (deltaFile != null) {
+      applyDelta(workLoad);
+    }
+    if (cacheDirectory != null && TxCostTable.getSharedTable().isDirty()) {
+      TxCostTable.getSharedTable().store(cacheDirectory); // new tx costs were computed
+    }
+    if (verboseMode) {
+      System.out.println(TxCostTable.getSharedTable());
+    }
+    return workLoad.snapshot(); // the systems built from it share it, without changing it
+  }
+
+  /**
+   * Creates the Warp System for scheduler, verifies it, and writes all of its visualizations.
+   * 
+   * @param workLoad the workload, which isn't changed
+   * @param scheduler the scheduler of the system
+   */
+  private void synthesize(WorkLoad workLoad, ScheduleChoices scheduler) {
+    visualizeSystem(SystemFactory.create(workLoad, nChannels, scheduler), scheduler);
+  }
+
+  /**
+   * Verifies the Warp System and writes all of its visualizations.
+   * 
+   * @param warp the system
+   * @param scheduler the scheduler of warp
+   */
+  private void visualizeSystem(WarpInterface warp, ScheduleChoices scheduler) {
+    verifyPerformanceRequirements(warp, scheduler);
+    for (SystemChoices choice : SystemChoices.values()) {
+      visualize(warp, choice); // visualize all System choices
+    }
+  }
+
+  /**
+   * Races the schedulers of the portfolio: their systems are built at the same time, on up to
+   * numThreads threads, and checked as they are done. The winner is the first scheduler in the
+   * portfolio whose system meets every deadline, reliability and channel requirement. Once a system
+   * meets them, the runs of the schedulers after it in the portfolio are cancelled, since they can
+   * no longer win, but the runs before it are finished, so the same scheduler wins no matter which
+   * run is done first. When every run is done and no system meets the requirements, the first
+   * scheduler wins, so its errors are reported. Only what the run of the winner printed is printed.
+   * 
+   * Sets schedulerSelected to the winner.
+   * 
+   * @param workLoad the workload snapshot shared by the runs
+   * @return the system of the winner
+   */
+  private WarpInterface race(WorkLoad workLoad) {
+    var numRuns = portfolio.size();
+    var contexts = new SynthesisContext[numRuns];
+    var outputs = new RunOutput[numRuns];
+    var systems = new WarpInterface[numRuns];
+    var met = new Boolean[numRuns]; // whether each system meets the requirements
+    var done = new boolean[numRuns];
+    var executor = Executors.newFixedThreadPool(Math.min(numThreads, numRuns));
+    var completed = new ExecutorCompletionService<Integer>(executor);
+    var winner = numRuns; // rank of the first system known to meet the requirements
+    captureOutputOfRuns();
+    try {
+      for (int rank = 0; rank < numRuns; rank++) {
+        var run = rank;
+        contexts[run] = new SynthesisContext(workLoad);
+        outputs[run] = new RunOutput();
+        completed.submit(() -> {
+          runWithOutput(outputs[run], () -> {
+            contexts[run].checkCancelled(); // it may have lost before it started
+            var scheduler = portfolio.get(run);
+            systems[run] = SystemFactory.create(contexts[run], nChannels, scheduler);
+            met[run] = meetsRequirements(systems[run], scheduler);
+          });
+          return run;
+        });
+      }
+      var numDone = 0;
+      while (numDone < numRuns && !decided(done, winner)) {
+        Future<Integer> run = completed.take();
+        numDone++;
+        try {
+          var rank = run.get();
+          done[rank] = true;
+          if (met[rank] && rank < winner) {
+            winner = rank;
+            for (int loser = rank + 1; loser < numRuns; loser++) {
+              contexts[loser].cancel();
+            }
+          }
+        } catch (ExecutionException e) {
+          var cause = e.getCause();
+          if (cause instanceof CancellationException) {
+            continue; // a run that lost; it is only cancelled when it can't win
+          } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Portfolio interrupted", e);
+    } finally {
+      for (SynthesisContext context : contexts) {
+        if (context != null) {
+          context.cancel(); // runs that are still going can't win
+        }
+      }
+      executor.shutdownNow();
+      releaseOutputOfRuns();
+    }
+    if (winner == numRuns) {
+      for (boolean runDone : done) {
+        if (!runDone) {
+          throw new IllegalStateException("Portfolio stopped before every run was done");
+        }
+      }
+      winner = 0;
+      System.err.printf("\n\tERROR: No scheduler in the portfolio meets every requirement.\n");
+    }
+    outputs[winner].print();
+    schedulerSelected = portfolio.get(winner);
+    if (verboseMode) {
+      System.out.printf("\n\tPortfolio winner: %s\n", schedulerSelected);
+    }
+    return systems[winner];
+  }
+
+  /**
+   * @return true if the winner is known: a system meets the requirements, and the runs of all
+   *         schedulers before it in the portfolio are done
+   */
+  private static Boolean decided(boolean[] done, int winner) {
+    if (winner == done.length) {
+      return false;
+    }
+    for (int rank = 0; rank < winner; rank++) {
+      if (!done[rank]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if warp meets every deadline, reliability and channel requirement that is checked
+   *         by verifyPerformanceRequirements()
+   */
+  private static Boolean meetsRequirements(WarpInterface warp, ScheduleChoices scheduler) {
+    /* RealTime HART doesn't adhere to reliability targets */
+    return warp.deadlinesMet()
+        && (scheduler == ScheduleChoices.RTHART || warp.reliabilitiesMet())
+        && !warp.toChannelAnalysis().isChannelConflict();
+  }
+
+  /**
+   * Creates and visualizes the Warp System for every scheduler choice. Up to numThreads systems are
+   * built at the same time, each with its own program and analyses, from the same workload
+   * snapshot. While they are built, System.out and System.err go to the output of the run on the
+   * current thread, which is printed in the order of the scheduler choices, so the output is the
+   * same as when the systems are built one after another.
+   * 
+   * @param workLoad the workload snapshot shared by the runs
+   */
+  private void synthesizeAll(WorkLoad workLoad) {
+    var schedulers = ScheduleChoices.values();
+    var executor = Executors.newFixedThreadPool(Math.min(numThreads, schedulers.length));
+    var runs = new ArrayList<Future<RunOutput>>();
+    captureOutputOfRuns();
+    try {
+      for (ScheduleChoices scheduler : schedulers) {
+        runs.add(executor.submit(() -> {
+          var output = new RunOutput();
+          runWithOutput(output, () -> synthesize(workLoad, scheduler));
+          return output;
+        }));
+      }
+      for (Future<RunOutput> run : runs) {
+        run.get().print();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      var cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      executor.shutdownNow();
+      releaseOutputOfRuns();
+    }
+  }
+
+  /**
+   * Does run on the current thread, with what it prints to System.out and System.err going to
+   * output (see captureOutputOfRuns()).
+   * 
+   * @param output where the output of run goes
+   * @param run what is run
+   */
+  static void runWithOutput(RunOutput output, Runnable run) {
+    captureOutputOfRuns(); // held until the run is done, even if its caller has moved on
+    var outer = runOutput.get(); // a run can be done within another one
+    runOutput.set(output);
+    try {
+      run.run();
+    } finally {
+      runOutput.set(outer);
+      releaseOutputOfRuns();
+    }
+  }
+
+  /**
+   * Makes System.out and System.err go to the output of the run on the current thread, so runs
+   * can be done at the same time and their output printed in order. Threads without a run print
+   * to the console as before. Every call must be matched by a call to releaseOutputOfRuns(),
+   * usually in a finally block.
+   */
+  static synchronized void captureOutputOfRuns() {
+    if (numCapturing++ == 0) {
+      consoleOut = System.out;
+      consoleErr = System.err;
+      System.setOut(new RunOutputStream(consoleOut, false));
+      System.setErr(new RunOutputStream(consoleErr, true));
+    }
+  }
+
+  /**
+   * Undoes a call to captureOutputOfRuns(). When no caller needs the output of runs captured any
+   * more, System.out and System.err are set back to the streams they were before.
+   */
+  static synchronized void releaseOutputOfRuns() {
+    if (numCapturing == 0) {
+      throw new IllegalStateException("Output of runs is not captured");
+    }
+    if (--numCapturing == 0) {
+      System.out.flush();
+      System.err.flush();
+      System.setOut(consoleOut);
+      System.setErr(consoleErr);
+      consoleOut = null;
+      consoleErr = null;
+    }
+  }
+
+  /**
+   * RunOutputStream writes to the output of the run on the current thread, or to the console on
+   * a thread without a run.
+   */
+  private static class RunOutputStream extends PrintStream {
+    private RunOutputStream(PrintStream console, Boolean errors) {
+      super(outputOfRun(console, errors), true);
+    }
+  }
+
+  /**
+   * Returns a stream that writes to the output of the run on the current thread, or to console on
+   * a thread without a run.
+   * 
+   * @param console where the output of threads without a run goes
+   * @param errors true for the System.err output of runs, false for System.out
+   * @return the stream
+   */
+  private static OutputStream outputOfRun(PrintStream console, Boolean errors) {
+    return new OutputStream() {
+      private OutputStream target() {
+        var output = runOutput.get();
+        if (output == null) {
+          return console;
+        }
+        return errors ? output.err : output.out;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        target().write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        target().write(b, off, len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        target().flush();
+      }
+    };
+  }
+
+  /**
+   * Applies the changes in deltaFile to workLoad. When the delta can't be read or applied, an error
+   * is printed and workLoad is used as it is.
+   * 
+   * @param workLoad the workload to change
+   */
+  private void applyDelta(WorkLoad workLoad) {
+    try {
+      var effect = workLoad.apply(WorkLoadDelta.load(deltaFile));
+      if (verboseMode) {
+        System.out.println("Workload delta " + deltaFile + ": " + effect);
+      }
+    } catch (IOException e) {
+      System.err.println("Error on reading file " + deltaFile + ": " + e.getMessage());
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error in workload delta " + deltaFile + ": " + e.getMessage());
+    }
+  }
+
   /**
   * Creates a visualization for the workLoad. Prints as either a string or a gui
   * 
   * @param workLoad The program being utilized.
   * @param choice What to do with the program, defined by a number of options.
   */
-  private static void visualize(WorkLoad workLoad, WorkLoadChoices choice) {
+  private void visualize(WorkLoad workLoad, WorkLoadChoices choice) {
     var viz =
         VisualizationFactory.createWorkLoadVisualization(workLoad, outputSubDirectory, choice);
     if (viz != null) {
@@ -245,10 +733,12 @@ public class Warp {
   * @param warp Shows the WARP interface and options.
   * @param choice Takes input from user and begins command.
   */
-  private static void visualize(WarpInterface warp, SystemChoices choice) {
+  private void visualize(WarpInterface warp, SystemChoices choice) {
     var viz = VisualizationFactory.createProgramVisualization(warp, outputSubDirectory, choice);
     if (viz != null) {
-      viz.toFile();
+      synchronized (FILE_LOCK) {
+        viz.toFile();
+      }
       if (guiRequested && schedulerRequested) {
         /* Only display window when a specific scheduler has been requested */
         viz.toDisplay();
@@ -260,65 +750,79 @@ public class Warp {
    * Checks WARP and its programs for any faults/errors.
    * 
    * @param warp 
+   * @param scheduler the scheduler of warp
    */
-  private static void verifyPerformanceRequirements(WarpInterface warp) {
-    verifyDeadlines(warp);
-    verifyReliabilities(warp);
-    verifyNoChannelConflicts(warp);
+  private void verifyPerformanceRequirements(WarpInterface warp,
+      ScheduleChoices scheduler) {
+    var met = verifyDeadlines(warp, scheduler);
+    met &= verifyReliabilities(warp, scheduler);
+    met &= verifyNoChannelConflicts(warp);
+    schedulable.put(scheduler, met);
   }
 
   /**
    * Verifies flows of target.
    * 
    * @param warp 
+   * @param scheduler the scheduler of warp
+   * @return true if the reliabilities are met
    */
-  private static void verifyReliabilities(WarpInterface warp) {
-    if (schedulerSelected != ScheduleChoices.RTHART) {
+  private Boolean verifyReliabilities(WarpInterface warp, ScheduleChoices scheduler) {
+    if (scheduler != ScheduleChoices.RTHART) {
       /* RealTime HART doesn't adhere to reliability targets */
       if (!warp.reliabilitiesMet()) {
         System.err.printf(
             "\n\tERROR: Not all flows meet the end-to-end "
                 + "reliability of %s under %s scheduling.\n",
-            String.valueOf(e2e), schedulerSelected.toString());
+            String.valueOf(e2e), scheduler.toString());
+        return false;
       } else if (verboseMode) {
         System.out.printf(
             "\n\tAll flows meet the end-to-end reliability " + "of %s under %s scheduling.\n",
-            String.valueOf(e2e), schedulerSelected.toString());
+            String.valueOf(e2e), scheduler.toString());
       }
     }
+    return true;
   }
 
   /**
    * Verifies deadline of the flows.
    * 
    * @param warp 
+   * @param scheduler the scheduler of warp
+   * @return true if the deadlines are met
    */
-  private static void verifyDeadlines(WarpInterface warp) {
+  private Boolean verifyDeadlines(WarpInterface warp, ScheduleChoices scheduler) {
     if (!warp.deadlinesMet()) {
       System.err.printf("\n\tERROR: Not all flows meet their deadlines under %s scheduling.\n",
-          schedulerSelected.toString());
+          scheduler.toString());
       visualize(warp, SystemChoices.DEADLINE_REPORT);
+      return false;
     } else if (verboseMode) {
       System.out.printf("\n\tAll flows meet their deadlines under %s scheduling.\n",
-          schedulerSelected.toString());
+          scheduler.toString());
     }
+    return true;
   }
 
   /**
    * Checks flows to make sure there are no throughput/channel restrictions.
    * 
    * @param warp 
+   * @return true if there are no channel conflicts
    */
-  private static void verifyNoChannelConflicts(WarpInterface warp) {
+  private Boolean verifyNoChannelConflicts(WarpInterface warp) {
     if (warp.toChannelAnalysis().isChannelConflict()) {
       System.err
           .printf("\n\tERROR: Channel conficts exists. See Channel Visualization for details.\n");
       if (!caRequested) { // only need to create the visualization if not already requested
         visualize(warp, SystemChoices.CHANNEL);
       }
+      return false;
     } else if (verboseMode) {
       System.out.printf("\n\tNo channel conflicts detected.\n");
     }
+    return true;
   }
 
   /**
@@ -326,8 +830,8 @@ public class Warp {
    * 
    * @param args 
    */
-  private static void setWarpParameters(String[] args) { // move command line parsing into this
-                                                         // function--need to set up globals?
+  private void setWarpParameters(String[] args) { // move command line parsing into this
+                                                  // function--need to set up globals?
 
     // create holder objects for storing results ...
     // BooleanHolder debug = new BooleanHolder();
@@ -348,9 +852,13 @@ public class Warp {
     BooleanHolder verbose = new BooleanHolder();
     StringHolder input = new StringHolder();
     StringHolder output = new StringHolder();
+    StringHolder cache = new StringHolder();
+    StringHolder delta = new StringHolder();
+    IntHolder threads = new IntHolder();
+    StringHolder portfolio = new StringHolder();
 
     // create the parser and specify the allowed options ...
-    ArgParser parser = new ArgParser("java -jar warp.jar");
+    ArgParser parser = new ArgParser("java -jar warp.jar", exitOnError); // -help only for commands
     parser.addOption("-sch, --schedule %s {priority,rm,dm,rtHart,poset} #scheduler options",
         schedulerSelected);
     parser.addOption("-c, --channels %d {[1,16]} #number of wireless channels", channels);
@@ -378,6 +886,17 @@ public class Warp {
     parser.addOption("-i, --input %s #<InputFile> of graph flows (workload)", input);
     parser.addOption("-o, --output %s #<OutputDIRECTORY> where output files will be placed",
         output);
+    parser.addOption(
+        "--cache %s #<CacheDIRECTORY> where compiled workload (.wlb) files and tx costs are kept and reused",
+        cache);
+    parser.addOption("--delta %s #<DeltaFile> of flows to add, remove or modify in the workload",
+        delta);
+    parser.addOption(
+        "-j, --threads %d {[1,1024]} #number of schedulers run at the same time when all are requested (default: number of processors)",
+        threads);
+    parser.addOption(
+        "--portfolio %s #comma-separated schedulers raced in order of preference (e.g., WARP_POSET_DM,CONNECTIVITY_POSET_PRIORITY,PRIORITY); the first one whose program meets every requirement is used",
+        portfolio);
     parser.addOption(
         "-v, --verbose %v #Echo input file name and parsed contents. Then for each flow instance: show maximum E2E latency and min/max communication cost for that instance of the flow",
         verbose);
@@ -386,7 +905,16 @@ public class Warp {
 
 
     // match the arguments ...
-    parser.matchAllArgs(args);
+    if (exitOnError) {
+      parser.matchAllArgs(args);
+    } else {
+      var unmatched = parser.matchAllArgs(args, 0, 0);
+      if (parser.getErrorMessage() != null) {
+        throw new IllegalArgumentException(parser.getErrorMessage());
+      } else if (unmatched != null) {
+        throw new IllegalArgumentException("Unrecognized argument: " + unmatched[0]);
+      }
+    }
 
     // Set WARP system configuration options
     if (channels.value > 0) {
@@ -415,6 +943,13 @@ public class Warp {
       outputSubDirectory = DEFAULT_OUTPUT_SUB_DIRECTORY; // set to default
     }
 
+    cacheDirectory = cache.value; // null when no cache is requested
+    deltaFile = delta.value; // null when no delta is requested
+    if (threads.value > 0) {
+      numThreads = threads.value; // set option specified
+    } else {
+      numThreads = Runtime.getRuntime().availableProcessors(); // set to default
+    }
     guiRequested = gui.value; // GraphVis file requested flag
     gvRequested = gv.value; // GraphVis file requested flag
     wfRequested = wf.value; // WARP file requested flag
@@ -427,42 +962,78 @@ public class Warp {
     verboseMode = verbose.value; // verbose mode flag (mainly for running in IDE)
     // debugMode = debug.value; // debug mode flag (mainly for running in IDE)
     inputFile = input.value; // input file specified
+    if (!exitOnError && (inputFile == null || !Files.isRegularFile(Path.of(inputFile)))) {
+      /* a command asks for the file, or exits, when it can't be found */
+      optionError(parser, "input file " + inputFile + " doesn't exist");
+    }
     if (schedulerSelected.value != null) { // can't switch on a null value so check then switch
       schedulerRequested = true;
       switch (schedulerSelected.value) {
         case "priority":
-          Warp.schedulerSelected = ScheduleChoices.PRIORITY;
+          this.schedulerSelected = ScheduleChoices.PRIORITY;
           break;
 
         case "rm":
-          Warp.schedulerSelected = ScheduleChoices.RM;
+          this.schedulerSelected = ScheduleChoices.RM;
           break;
 
         case "dm":
-          Warp.schedulerSelected = ScheduleChoices.DM;
+          this.schedulerSelected = ScheduleChoices.DM;
           break;
 
         case "rtHart":
-          Warp.schedulerSelected = ScheduleChoices.RTHART;
+          this.schedulerSelected = ScheduleChoices.RTHART;
           break;
 
         case "poset":
-          Warp.schedulerSelected = ScheduleChoices.POSET_PRIORITY;
+          this.schedulerSelected = ScheduleChoices.POSET_PRIORITY;
           break;
 
         default:
-          Warp.schedulerSelected = ScheduleChoices.PRIORITY;
+          this.schedulerSelected = ScheduleChoices.PRIORITY;
           break;
       }
     } else { // null value when no scheduler specified; so use default
-      Warp.schedulerSelected = DEFAULT_SCHEDULER;
+      this.schedulerSelected = DEFAULT_SCHEDULER;
+    }
+    if (portfolio.value != null) {
+      this.portfolio = new ArrayList<>();
+      for (String name : portfolio.value.split(",")) {
+        ScheduleChoices scheduler = null;
+        try {
+          scheduler = ScheduleChoices.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+          optionError(parser, "unknown scheduler '" + name.trim() + "' in --portfolio");
+        }
+        if (!this.portfolio.contains(scheduler)) {
+          this.portfolio.add(scheduler);
+        }
+      }
+      schedulerRequested = true; // the winner is used like a requested scheduler
+      this.schedulerSelected = this.portfolio.get(0);
+    } else {
+      this.portfolio = null;
+    }
+  }
+
+  /**
+   * Reports an error in the options, by exiting if exitOnError, else by throwing.
+   * 
+   * @param parser the parser of the options
+   * @param message what is wrong
+   * @throws IllegalArgumentException if exitOnError is false
+   */
+  private void optionError(ArgParser parser, String message) {
+    if (exitOnError) {
+      parser.printErrorAndExit(message);
     }
+    throw new IllegalArgumentException(message);
   }
 
   /**
  * Prints all warp configuration values.
  */
-  private static void printWarpParameters() { // print all system configuration parameters
+  private void printWarpParameters() { // print all system configuration parameters
     // Print out each of the system configuration values
     System.out.println("WARP system configuration values:");
     System.out.println("\tScheduler=" + schedulerSelected);
@@ -485,6 +1056,10 @@ public class Warp {
       System.out.println("\tNo input file specified; will be requested when needed.");
     }
     System.out.println("\toutputSubDirectory=" + outputSubDirectory);
+    System.out.println("\tcacheDirectory=" + cacheDirectory);
+    System.out.println("\tdeltaFile=" + deltaFile);
+    System.out.println("\tnumThreads=" + numThreads);
+    System.out.println("\tportfolio=" + portfolio);
     System.out.println("\tverbose flag=" + verboseMode);
     // System.out.println ("\tdebug flag=" + debugMode);
   }
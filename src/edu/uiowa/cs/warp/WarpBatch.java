@@ -0,0 +1,214 @@
+package edu.uiowa.cs.warp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import argparser.ArgParser;
+import argparser.IntHolder;
+import argparser.StringHolder;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * WarpBatch runs many Warp jobs in one process, so they share the JVM start-up and warm-up, the
+ * parsed workloads (see Warp.shareWorkLoads()) and the tx cost table (see TxCostTable). Each job is
+ * a run of Warp with its own options, and writes the same output files as that run does on its
+ * own. The jobs are run on a work-stealing pool, and what each job prints is printed in the order
+ * of the jobs.
+ *
+ * The jobs are either one per workload (.txt) file in a directory, or one per line of a manifest
+ * file, with the Warp options of the job on the line. Blank lines and lines that start with # are
+ * skipped. Options given after the batch options are used by every job, before its own options.
+ * For example, this manifest has two jobs:
+ *
+ * <pre>
+ * # schedulers for Example1a, and all outputs for StressTest4
+ * -i Example1a.txt -sch dm
+ * -i StressTest4.txt -a -o out
+ * </pre>
+ *
+ * When the jobs are done, a summary file (tab delimited .csv) gets a line per job with its input
+ * file, options, status, time in milliseconds, and the schedulers whose systems meet every
+ * requirement, and those whose systems don't.
+ *
+ * Within a job, Warp runs one scheduler at a time (--threads 1) unless the job asks for more.
+ *
+ * @version 1.0
+ */
+public class WarpBatch {
+
+  private static final String DEFAULT_SUMMARY_FILE = "summary.csv";
+  private static final String WORKLOAD_FILE_SUFFIX = ".txt";
+
+  /**
+   * Job is one run of Warp and what came of it.
+   */
+  private static class Job {
+    private final String[] args;
+    private final Warp.RunOutput output = new Warp.RunOutput();
+    private String inputFile = "";
+    private String status = "ok";
+    private long milliseconds;
+    private final List<ScheduleChoices> schedulable = new ArrayList<>();
+    private final List<ScheduleChoices> notSchedulable = new ArrayList<>();
+
+    private Job(String[] args) {
+      this.args = args;
+    }
+  }
+
+  private final List<String[]> jobArgs;
+  private final Integer numThreads;
+  private final HashMap<String, WorkLoad> workLoads = new HashMap<>(); // shared by the jobs
+
+  /**
+   * @param jobArgs the Warp options of each job
+   * @param numThreads number of jobs run at the same time
+   */
+  WarpBatch(List<String[]> jobArgs, Integer numThreads) {
+    this.jobArgs = jobArgs;
+    this.numThreads = numThreads;
+  }
+
+  /**
+   * Runs the jobs, printing what each one prints in the order of the jobs.
+   *
+   * @return the summary of the jobs (tab delimited .csv)
+   */
+  public String run() {
+    var executor = Executors.newWorkStealingPool(numThreads);
+    var runs = new ArrayList<Future<Job>>(jobArgs.size());
+    Warp.captureOutputOfRuns();
+    try {
+      for (String[] args : jobArgs) {
+        var job = new Job(args);
+        runs.add(executor.submit(() -> {
+          Warp.runWithOutput(job.output, () -> runJob(job));
+          return job;
+        }));
+      }
+      var summary = new StringBuilder(
+          "Job\tInput\tOptions\tStatus\tMilliseconds\tSchedulable\tNot Schedulable\n");
+      for (int i = 0; i < runs.size(); i++) {
+        var job = runs.get(i).get();
+        if (!job.output.isEmpty()) {
+          System.out.printf("\n*** Job %d: %s\n", i + 1, String.join(" ", job.args));
+          job.output.print();
+        }
+        summary.append(String.format("%d\t%s\t%s\t%s\t%d\t%s\t%s\n", i + 1, job.inputFile,
+            String.join(" ", job.args), job.status, job.milliseconds,
+            schedulerNames(job.schedulable), schedulerNames(job.notSchedulable)));
+      }
+      return summary.toString();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Batch interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause()); // runJob() catches what jobs throw
+    } finally {
+      executor.shutdownNow();
+      Warp.releaseOutputOfRuns();
+    }
+  }
+
+  private void runJob(Job job) {
+    var startTime = System.nanoTime();
+    try {
+      var args = new ArrayList<String>();
+      args.add("--threads"); // the jobs are run at the same time, so each uses one thread
+      args.add("1");
+      args.addAll(Arrays.asList(job.args));
+      var warp = new Warp(args.toArray(new String[0]), false);
+      job.inputFile = warp.getInputFile();
+      warp.shareWorkLoads(workLoads);
+      warp.run();
+      for (var result : warp.getSchedulability().entrySet()) {
+        (result.getValue() ? job.schedulable : job.notSchedulable).add(result.getKey());
+      }
+    } catch (IllegalArgumentException e) {
+      job.status = "error: " + e.getMessage();
+      System.err.printf("\n\tERROR: %s\n", e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      job.status = "failed: " + e;
+      System.err.printf("\n\tERROR: job failed: %s\n", e);
+    }
+    job.milliseconds = (System.nanoTime() - startTime) / 1_000_000;
+  }
+
+  private static String schedulerNames(List<ScheduleChoices> schedulers) {
+    var names = new ArrayList<String>(schedulers.size());
+    for (ScheduleChoices scheduler : schedulers) {
+      names.add(scheduler.toString());
+    }
+    return String.join(" ", names);
+  }
+
+  /**
+   * Returns the options of the jobs in batch: one job per workload file if batch is a directory,
+   * else one job per line of the manifest file batch.
+   *
+   * @param batch directory or manifest file
+   * @param commonArgs options of every job, given before its own options
+   * @return the options of each job
+   * @throws IOException if batch can't be read
+   */
+  static List<String[]> readJobs(String batch, String[] commonArgs) throws IOException {
+    var jobs = new ArrayList<String[]>();
+    var path = Path.of(batch);
+    if (Files.isDirectory(path)) {
+      try (var files = Files.list(path)) {
+        for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+          if (file.toString().endsWith(WORKLOAD_FILE_SUFFIX) && Files.isRegularFile(file)) {
+            jobs.add(jobOptions(commonArgs, new String[] {"-i", file.toString()}));
+          }
+        }
+      }
+    } else {
+      for (String line : Files.readAllLines(path)) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          jobs.add(jobOptions(commonArgs, line.split("\\s+")));
+        }
+      }
+    }
+    return jobs;
+  }
+
+  private static String[] jobOptions(String[] commonArgs, String[] args) {
+    var options = new ArrayList<String>();
+    options.addAll(Arrays.asList(commonArgs));
+    options.addAll(Arrays.asList(args));
+    return options.toArray(new String[0]);
+  }
+
+  /**
+   * Runs a batch of jobs. Run with -help for the options; the options after them are Warp options
+   * used by every job.
+   */
+  public static void main(String[] args) throws IOException {
+    StringHolder batch = new StringHolder();
+    StringHolder summary = new StringHolder(DEFAULT_SUMMARY_FILE);
+    IntHolder jobs = new IntHolder(Runtime.getRuntime().availableProcessors());
+
+    ArgParser parser = new ArgParser("java -cp warp.jar edu.uiowa.cs.warp.WarpBatch");
+    parser.addOption(
+        "-b, --batch %s #<DIRECTORY> of workload files, or <MANIFEST> file with the Warp options of one job per line",
+        batch);
+    parser.addOption("--summary %s #<SummaryFile> (tab delimited .csv) of the jobs", summary);
+    parser.addOption("--jobs %d {[1,1024]} #number of jobs run at the same time", jobs);
+    var commonArgs = parser.matchAllArgs(args, 0, ArgParser.EXIT_ON_ERROR);
+    if (batch.value == null) {
+      parser.printErrorAndExit("a batch directory or manifest is required");
+    }
+    var jobArgs = readJobs(batch.value, (commonArgs == null) ? new String[0] : commonArgs);
+    var contents = new WarpBatch(jobArgs, jobs.value).run();
+    new FileManager().writeFile(summary.value, contents);
+  }
+}
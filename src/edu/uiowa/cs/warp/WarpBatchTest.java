@@ -0,0 +1,120 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class WarpBatchTest {
+
+	/* the files in directory, by name, and their contents */
+	private static Map<String, String> files(Path directory) throws IOException {
+		var files = new TreeMap<String, String>();
+		try (var paths = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) paths::iterator) {
+				files.put(file.getFileName().toString(), Files.readString(file));
+			}
+		}
+		return files;
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (var files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests that a manifest gives one job per line, skipping blank lines and comments, with the common options first
+	public void testReadJobsFromManifest() throws IOException {
+		var manifest = Files.createTempFile("batch", ".txt");
+		try {
+			Files.writeString(manifest, "# comment\n-i Example1a.txt -sch dm\n\n   \n  -i StressTest4.txt  -a -o out\n");
+			var jobs = WarpBatch.readJobs(manifest.toString(), new String[] {"-m", "0.8"});
+			assertEquals(2, jobs.size(), "Not one job per line");
+			assertArrayEquals(new String[] {"-m", "0.8", "-i", "Example1a.txt", "-sch", "dm"}, jobs.get(0));
+			assertArrayEquals(new String[] {"-m", "0.8", "-i", "StressTest4.txt", "-a", "-o", "out"}, jobs.get(1));
+		} finally {
+			Files.delete(manifest);
+		}
+	}
+
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests that a directory gives one job per workload (.txt) file, in order of the file names
+	public void testReadJobsFromDirectory() throws IOException {
+		var directory = Files.createTempDirectory("batch");
+		try {
+			for (String file : List.of("b.txt", "a.txt", "notes.md")) {
+				Files.writeString(directory.resolve(file), "");
+			}
+			Files.createDirectory(directory.resolve("c.txt"));
+			var jobs = WarpBatch.readJobs(directory.toString(), new String[0]);
+			assertEquals(2, jobs.size(), "Not one job per workload file");
+			assertArrayEquals(new String[] {"-i", directory.resolve("a.txt").toString()}, jobs.get(0));
+			assertArrayEquals(new String[] {"-i", directory.resolve("b.txt").toString()}, jobs.get(1));
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	@Timeout (value = 30000, unit = TimeUnit.MILLISECONDS)
+	//Tests that batch jobs write the same files as single runs, and that the summary has a line per job in order
+	public void testBatchMatchesSingleRuns() throws IOException {
+		var batchDirectory = Files.createTempDirectory("batch");
+		var singleDirectory = Files.createTempDirectory("single");
+		try {
+			String[][] jobs = {{"-i", "Example.txt", "-sch", "priority"}, {"-i", "StressTest4.txt", "-sch", "priority", "-l"},
+					{"-i", "NoSuchFile.txt"}, {"-i", "Example.txt", "-sch", "dm", "-ca"}};
+			var batchJobs = new ArrayList<String[]>();
+			for (String[] job : jobs) {
+				batchJobs.add(withOutput(job, batchDirectory));
+			}
+			var summary = new WarpBatch(batchJobs, 4).run().lines().toList();
+			for (String[] job : jobs) {
+				if (!job[1].equals("NoSuchFile.txt")) {
+					new Warp(withOutput(job, singleDirectory), false).run();
+				}
+			}
+			assertEquals(files(singleDirectory), files(batchDirectory), "Batch wrote different files than single runs");
+
+			assertEquals(jobs.length + 1, summary.size(), "Not one summary line per job");
+			assertEquals("Job\tInput\tOptions\tStatus\tMilliseconds\tSchedulable\tNot Schedulable", summary.get(0));
+			var fields = summary.get(1).split("\t", -1);
+			assertEquals(List.of("1", "Example.txt", "ok", "PRIORITY", ""), List.of(fields[0], fields[1], fields[3], fields[5], fields[6]));
+			fields = summary.get(2).split("\t", -1);
+			assertEquals(List.of("2", "StressTest4.txt", "ok", "", "PRIORITY"), List.of(fields[0], fields[1], fields[3], fields[5], fields[6]));
+			fields = summary.get(3).split("\t", -1);
+			assertEquals("3", fields[0]);
+			assertEquals("error: input file NoSuchFile.txt doesn't exist", fields[3]);
+			fields = summary.get(4).split("\t", -1);
+			assertEquals(List.of("4", "Example.txt", "ok", "DM", ""), List.of(fields[0], fields[1], fields[3], fields[5], fields[6]));
+		} finally {
+			delete(batchDirectory);
+			delete(singleDirectory);
+		}
+	}
+
+	/* job with its output files written to directory */
+	private static String[] withOutput(String[] job, Path directory) {
+		var args = Arrays.copyOf(job, job.length + 2);
+		args[job.length] = "-o";
+		args[job.length + 1] = directory.toString();
+		return args;
+	}
+}
@@ -0,0 +1,31 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class WarpDSLTest {
+
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests the parameters of a combined push/pull instruction
+	public void testPushElsePullParameters() {
+		var dsl = new WarpDSL();
+		var parametersList = dsl.getInstructionParameters("if has(F0) push(F0: B -> C, #2) else pull(F0: A -> B, #3)");
+		assertEquals(2, parametersList.size(), "Does not return one entry per action");
+		var push = parametersList.get(0);
+		assertEquals("push", push.getName());
+		assertEquals("F0", push.getFlow());
+		assertEquals("2", push.getChannel());
+		assertEquals("B", push.getCoordinator());
+		assertEquals("C", push.getListener());
+		var pull = parametersList.get(1);
+		assertEquals("pull", pull.getName());
+		assertEquals("3", pull.getChannel());
+		assertEquals("B", pull.getCoordinator());
+		assertEquals("A", pull.getListener());
+	}
+}
@@ -11,8 +11,8 @@ import java.util.ArrayList;
  */
 public class WarpPoset extends Poset {
 	
-	WarpPoset(WorkLoad workload) {
-		super(workload);
+	WarpPoset(SynthesisContext context) {
+		super(context);
 	}
 	
 	/**
@@ -24,12 +24,12 @@ public class WarpPoset extends Poset {
 	protected Integer findCoordinator(ArrayList<Node> nodesInFlow) {
 		/* first find base station(s) */
 		var baseStation = findBaseStation();
-		var baseName = baseStation.getName();
+		var baseId = baseStation.getId();
 		var size = nodesInFlow.size();
 		/* assume flow sink is the coordinator */
 		Integer coordinatorIndex = size-1;
 
-		if (baseName.equals(nodesInFlow.get(0).getName())) {
+		if (baseId == nodesInFlow.get(0).getId()) {
 			/* flow src is coordinator, so update index */
 			coordinatorIndex = 0;
 		}
@@ -0,0 +1,539 @@
+package edu.uiowa.cs.warp;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import argparser.ArgParser;
+import argparser.IntHolder;
+import argparser.StringHolder;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+import edu.uiowa.cs.warp.Visualization.SystemChoices;
+
+/**
+ * WarpServer keeps workloads, and the programs built from them, in memory, and synthesizes
+ * programs on request from clients on the same host, over a TCP socket on the loopback address or
+ * a Unix-domain socket. Since the process keeps running, the parser and the JIT are warm, and a
+ * change to a workload only costs building the programs again.
+ *
+ * A request is a line with a command and its arguments, separated by spaces:
+ *
+ * <pre>
+ * LOAD name file [m [e2e [faults]]]       builds a workload from a workload description file
+ * DELTA name                              applies the delta in the lines that follow (see
+ *                                         WorkLoadDelta), up to a line with a single "."
+ * SYNTH name scheduler [channels]         builds the program with a scheduler (e.g., PRIORITY or
+ *                                         WARP_POSET_DM) and returns its source
+ * GET name scheduler what [channels]      returns SOURCE, RELIABILITIES, LATENCY, LATENCY_REPORT,
+ *                                         DEADLINE_REPORT or CHANNEL of the program
+ * LIST                                    returns the workloads and their numbers of flows
+ * UNLOAD name                             forgets a workload
+ * QUIT                                    closes the connection
+ * SHUTDOWN                                stops the server
+ * </pre>
+ *
+ * A response is a status line, which starts with OK or ERROR, followed by its data lines and a line
+ * with a single ".". Data lines that start with "." get another "." in front, as in SMTP. The data
+ * of SYNTH and GET is what Warp writes to the file of the visualization. The status of SYNTH tells
+ * whether the program meets its deadlines, reliabilities (n/a for RTHART) and channel
+ * requirements.
+ *
+ * The source of a program is streamed: once the program is built (a row isn't final until every
+ * flow is scheduled, since a flow can take a slot before those of the flows scheduled earlier),
+ * each row is rendered and written to the socket in turn, and the socket is flushed every
+ * LINES_PER_FLUSH lines, so the client reads the first rows while the rest are rendered. The other
+ * visualizations are sent when they are done.
+ *
+ * A request that fails because of a bug is answered with "ERROR", the class of the exception and
+ * its message, and the connection stays open. If the data of a response fails after its status
+ * line was sent, its last data line is "ERROR" and the reason.
+ *
+ * Programs are built once per workload, scheduler and number of channels, and built again after a
+ * DELTA. What the synthesis prints is printed on the console of the server when a request is done.
+ *
+ * @version 1.2
+ */
+public class WarpServer {
+
+  public static final int DEFAULT_PORT = 2820;
+  private static final Integer DEFAULT_CHANNELS = 16;
+  private static final Double DEFAULT_MIN_LQ = 0.9;
+  private static final Double DEFAULT_E2E = 0.99;
+  private static final Integer DEFAULT_FAULTS = 0;
+  private static final String END = ".";
+  private static final int LINES_PER_FLUSH = 64; // data lines sent to the client at a time
+
+  /**
+   * Data writes the data lines of a response, e.g., as they are rendered.
+   */
+  private interface Data {
+    void writeTo(Appendable out) throws IOException;
+  }
+
+  /**
+   * DataLines sends the data of a response as it is appended: each line is sent when its end is
+   * appended, with a "." in front if it starts with ".", and the socket is flushed every
+   * LINES_PER_FLUSH lines.
+   */
+  private static class DataLines implements Appendable {
+    private final BufferedWriter out;
+    private final StringBuilder line = new StringBuilder();
+    private int numLines = 0;
+
+    private DataLines(BufferedWriter out) {
+      this.out = out;
+    }
+
+    @Override
+    public Appendable append(CharSequence text) throws IOException {
+      return append(text, 0, text.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence text, int start, int end) throws IOException {
+      for (int i = start; i < end; i++) {
+        append(text.charAt(i));
+      }
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      if (c == '\n') {
+        endLine();
+      } else if (c != '\r') {
+        line.append(c);
+      }
+      return this;
+    }
+
+    /* sends the last line, if it has no end */
+    private void finish() throws IOException {
+      if (line.length() > 0) {
+        endLine();
+      }
+    }
+
+    private void endLine() throws IOException {
+      if (line.length() > 0 && line.charAt(0) == END.charAt(0)) {
+        out.write(END);
+      }
+      out.append(line).write('\n');
+      line.setLength(0);
+      if (++numLines % LINES_PER_FLUSH == 0) {
+        out.flush();
+      }
+    }
+  }
+
+  /**
+   * Loaded is a workload kept by the server, with the programs built from it.
+   */
+  private static class Loaded {
+    private final WorkLoad workLoad; // changed only by DELTA, while holding the lock on this
+    private WorkLoad snapshot; // what programs are built from
+    private final HashMap<String, WarpInterface> systems = new HashMap<>(); // by systemKey()
+
+    private Loaded(WorkLoad workLoad) {
+      this.workLoad = workLoad;
+      this.snapshot = workLoad.snapshot();
+    }
+  }
+
+  private final ServerSocketChannel server;
+  private final Path socketFile; // null for a TCP socket
+  private final Integer numThreads;
+  private final String outputDirectory;
+  private final String cacheDirectory;
+  private final HashMap<String, Loaded> workLoads = new HashMap<>(); // by name
+
+  /**
+   * Opens the socket of the server.
+   *
+   * @param port TCP port on the loopback address, 0 for any free port; used if socketFile is null
+   * @param socketFile file of a Unix-domain socket, or null for a TCP socket
+   * @param numThreads number of clients served at the same time
+   * @param outputDirectory output directory used to name the visualizations, as in Warp
+   * @param cacheDirectory directory of compiled workloads and tx costs, or null
+   * @throws IOException if the socket can't be opened
+   */
+  WarpServer(Integer port, String socketFile, Integer numThreads, String outputDirectory,
+      String cacheDirectory) throws IOException {
+    this.numThreads = numThreads;
+    this.outputDirectory = outputDirectory;
+    this.cacheDirectory = cacheDirectory;
+    if (socketFile != null) {
+      this.socketFile = Path.of(socketFile);
+      Files.deleteIfExists(this.socketFile); // left by a server that wasn't shut down
+      server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+      server.bind(UnixDomainSocketAddress.of(this.socketFile));
+    } else {
+      this.socketFile = null;
+      server = ServerSocketChannel.open();
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+    if (cacheDirectory != null) {
+      TxCostTable.getSharedTable().load(cacheDirectory); // reuse tx costs from earlier runs
+    }
+  }
+
+  /**
+   * @return the address the server listens on
+   */
+  public String getAddress() throws IOException {
+    return server.getLocalAddress().toString();
+  }
+
+  /**
+   * Serves clients until a SHUTDOWN request.
+   */
+  public void serve() throws IOException {
+    Warp.captureOutputOfRuns();
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      while (server.isOpen()) {
+        SocketChannel client;
+        try {
+          client = server.accept();
+        } catch (ClosedChannelException e) {
+          break; // shut down
+        }
+        executor.execute(() -> serve(client));
+      }
+    } finally {
+      executor.shutdownNow();
+      Warp.releaseOutputOfRuns();
+      server.close();
+      if (socketFile != null) {
+        Files.deleteIfExists(socketFile);
+      }
+      if (cacheDirectory != null && TxCostTable.getSharedTable().isDirty()) {
+        TxCostTable.getSharedTable().store(cacheDirectory); // new tx costs were computed
+      }
+    }
+  }
+
+  /* serves one client until it quits or the connection is closed */
+  private void serve(SocketChannel client) {
+    try (client;
+        var in = new BufferedReader(
+            new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+        var out = new BufferedWriter(
+            new OutputStreamWriter(Channels.newOutputStream(client), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        var words = line.trim().split("\\s+");
+        if (words[0].isEmpty()) {
+          continue;
+        }
+        var command = words[0].toUpperCase();
+        if (command.equals("QUIT")) {
+          respond(out, "OK");
+          break;
+        }
+        var output = new Warp.RunOutput();
+        try {
+          Warp.runWithOutput(output, () -> request(command, words, in, out));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+          respond(out, "ERROR " + e.getMessage());
+        } catch (UncheckedIOException e) {
+          throw e; // the client went away
+        } catch (RuntimeException e) {
+          e.printStackTrace(); // a bug, so the server keeps the stack trace
+          respond(out, "ERROR " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        } finally {
+          output.print(); // what the synthesis printed goes to the console of the server
+        }
+        if (command.equals("SHUTDOWN")) {
+          server.close();
+          break;
+        }
+      }
+    } catch (IOException | UncheckedIOException e) {
+      // the client went away; nothing to tell it
+    }
+  }
+
+  /* handles one request, responding on out */
+  private void request(String command, String[] words, BufferedReader in, BufferedWriter out) {
+    try {
+      switch (command) {
+        case "LOAD" -> load(words, out);
+        case "DELTA" -> delta(words, in, out);
+        case "SYNTH" -> {
+          checkArguments(words, 3, 4, "SYNTH name scheduler [channels]");
+          var scheduler = scheduler(words[2]);
+          var warp = system(words[1], scheduler, channels(words, 3));
+          var source = visualization(warp, SystemChoices.SOURCE);
+          respond(out, "OK " + scheduler + " " + requirements(warp, scheduler), source);
+        }
+        case "GET" -> {
+          checkArguments(words, 4, 5, "GET name scheduler what [channels]");
+          var warp = system(words[1], scheduler(words[2]), channels(words, 4));
+          respond(out, "OK", visualization(warp, systemChoice(words[3])));
+        }
+        case "LIST" -> list(out);
+        case "UNLOAD" -> {
+          checkArguments(words, 2, 2, "UNLOAD name");
+          synchronized (workLoads) {
+            if (workLoads.remove(words[1]) == null) {
+              throw new IllegalArgumentException("no workload " + words[1]);
+            }
+          }
+          respond(out, "OK");
+        }
+        case "SHUTDOWN" -> respond(out, "OK");
+        default -> throw new IllegalArgumentException("unknown command " + command);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void load(String[] words, BufferedWriter out) throws IOException {
+    checkArguments(words, 3, 6, "LOAD name file [m [e2e [faults]]]");
+    var name = words[1];
+    var file = words[2];
+    if (!Files.isRegularFile(Path.of(file))) { // Warp would ask for a file, or exit
+      throw new IllegalArgumentException("input file " + file + " doesn't exist");
+    }
+    var m = (words.length > 3) ? number(words[3]) : DEFAULT_MIN_LQ;
+    var e2e = (words.length > 4) ? number(words[4]) : DEFAULT_E2E;
+    var faults = (words.length > 5) ? (int) number(words[5]).doubleValue() : DEFAULT_FAULTS;
+    var cache = (cacheDirectory == null) ? null : new WorkLoadCache(cacheDirectory);
+    WorkLoad workLoad;
+    try {
+      workLoad = new WorkLoad(faults, m, e2e, file, cache);
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("input file " + file + " can't be read");
+    }
+    var loaded = new Loaded(workLoad);
+    synchronized (workLoads) {
+      workLoads.put(name, loaded);
+    }
+    respond(out, "OK " + name + " " + loaded.snapshot.getFlowNamesInOriginalOrder().size()
+        + " flows");
+  }
+
+  private void delta(String[] words, BufferedReader in, BufferedWriter out) throws IOException {
+    checkArguments(words, 2, 2, "DELTA name");
+    var text = new StringBuilder();
+    String line;
+    while ((line = in.readLine()) != null && !line.equals(END)) {
+      text.append(line.startsWith(END) ? line.substring(1) : line).append('\n');
+    }
+    var loaded = loaded(words[1]); // after the delta is read, so an error doesn't leave it unread
+    var delta = WorkLoadDelta.parse(text.toString());
+    WorkLoadDelta.Effect effect;
+    synchronized (loaded) {
+      effect = loaded.workLoad.apply(delta);
+      loaded.snapshot = loaded.workLoad.snapshot();
+      loaded.systems.clear(); // built from the old snapshot
+    }
+    respond(out, "OK " + effect);
+  }
+
+  private void list(BufferedWriter out) throws IOException {
+    var lines = new TreeMap<String, Integer>();
+    synchronized (workLoads) {
+      for (var entry : workLoads.entrySet()) {
+        synchronized (entry.getValue()) {
+          lines.put(entry.getKey(),
+              entry.getValue().snapshot.getFlowNamesInOriginalOrder().size());
+        }
+      }
+    }
+    var data = new StringBuilder();
+    for (var entry : lines.entrySet()) {
+      data.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+    }
+    respond(out, "OK " + lines.size() + " workloads", dataLines -> dataLines.append(data));
+  }
+
+  private Loaded loaded(String name) {
+    synchronized (workLoads) {
+      var loaded = workLoads.get(name);
+      if (loaded == null) {
+        throw new IllegalArgumentException("no workload " + name);
+      }
+      return loaded;
+    }
+  }
+
+  /**
+   * Returns the system for the workload, built if it hasn't been built since the workload was
+   * loaded or changed. It is built without holding a lock, so other requests are served meanwhile.
+   */
+  private WarpInterface system(String name, ScheduleChoices scheduler, Integer channels) {
+    var loaded = loaded(name);
+    var key = scheduler + "/" + channels;
+    WorkLoad snapshot;
+    synchronized (loaded) {
+      var warp = loaded.systems.get(key);
+      if (warp != null) {
+        return warp;
+      }
+      snapshot = loaded.snapshot;
+    }
+    var warp = SystemFactory.create(snapshot, channels, scheduler);
+    synchronized (loaded) {
+      if (loaded.snapshot == snapshot) { // else it was changed while warp was built
+        var built = loaded.systems.putIfAbsent(key, warp);
+        if (built != null) {
+          warp = built; // built by another request in the meantime
+        }
+      }
+    }
+    return warp;
+  }
+
+  /**
+   * Returns the data of a visualization of warp. The analyses a system computes on request aren't
+   * built to be computed twice at once, so they are done holding the lock on warp. The rows of the
+   * source are rendered from the built program, which isn't changed, as they are sent.
+   */
+  private Data visualization(WarpInterface warp, SystemChoices choice) {
+    synchronized (warp) {
+      if (choice == SystemChoices.SOURCE) {
+        var source = new ProgramVisualization(warp); // builds the program and its deadline analysis
+        return source::writeFileVisualization;
+      }
+      var content = VisualizationFactory.createProgramVisualization(warp, outputDirectory, choice)
+          .toFileContent();
+      return lines -> lines.append(content);
+    }
+  }
+
+  private static String requirements(WarpInterface warp, ScheduleChoices scheduler) {
+    synchronized (warp) {
+      var reliabilities = "n/a"; // RealTime HART doesn't adhere to reliability targets
+      if (scheduler != ScheduleChoices.RTHART) {
+        reliabilities = warp.reliabilitiesMet() ? "met" : "missed";
+      }
+      return String.format("deadlines=%s reliabilities=%s channels=%s",
+          warp.deadlinesMet() ? "met" : "missed", reliabilities,
+          warp.toChannelAnalysis().isChannelConflict() ? "conflict" : "ok");
+    }
+  }
+
+  /**
+   * Writes a response with no data.
+   */
+  private static void respond(BufferedWriter out, String status) throws IOException {
+    respond(out, status, null);
+  }
+
+  /**
+   * Writes a response: the status line, the data lines, if any, as data writes them, and the end
+   * line.
+   */
+  private static void respond(BufferedWriter out, String status, Data data) throws IOException {
+    out.write(status);
+    out.write('\n');
+    if (data != null) {
+      var lines = new DataLines(out);
+      try {
+        data.writeTo(lines);
+      } catch (RuntimeException e) { // too late for an ERROR status
+        e.printStackTrace();
+        lines.finish();
+        lines.append("ERROR " + e.getClass().getSimpleName() + ": " + e.getMessage() + "\n");
+      }
+      lines.finish();
+    }
+    out.write(END);
+    out.write('\n');
+    out.flush();
+  }
+
+  private static void checkArguments(String[] words, int min, int max, String usage) {
+    if (words.length < min || words.length > max) {
+      throw new IllegalArgumentException("usage: " + usage);
+    }
+  }
+
+  private static ScheduleChoices scheduler(String name) {
+    try {
+      return ScheduleChoices.valueOf(name.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("unknown scheduler " + name);
+    }
+  }
+
+  private static SystemChoices systemChoice(String name) {
+    try {
+      var choice = SystemChoices.valueOf(name.toUpperCase());
+      if (choice != SystemChoices.SIMULATOR_INPUT) {
+        return choice;
+      }
+    } catch (IllegalArgumentException e) {
+      // reported below
+    }
+    throw new IllegalArgumentException("unknown visualization " + name);
+  }
+
+  private static Integer channels(String[] words, int index) {
+    if (words.length <= index) {
+      return DEFAULT_CHANNELS;
+    }
+    var channels = (int) number(words[index]).doubleValue();
+    if (channels < 1 || channels > 16) {
+      throw new IllegalArgumentException("number of channels must be in [1,16]");
+    }
+    return channels;
+  }
+
+  private static Double number(String word) {
+    try {
+      return Double.valueOf(word);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("not a number: " + word);
+    }
+  }
+
+  /**
+   * Runs the server. Run with -help for the options.
+   */
+  public static void main(String[] args) throws IOException {
+    IntHolder port = new IntHolder(DEFAULT_PORT);
+    StringHolder socket = new StringHolder();
+    IntHolder threads = new IntHolder(Runtime.getRuntime().availableProcessors());
+    StringHolder output = new StringHolder("OutputFiles/");
+    StringHolder cache = new StringHolder();
+
+    ArgParser parser = new ArgParser("java -cp warp.jar edu.uiowa.cs.warp.WarpServer");
+    parser.addOption("-p, --port %d {[0,65535]} #TCP port on the loopback address", port);
+    parser.addOption("--socket %s #<SocketFile> of a Unix-domain socket, used instead of TCP",
+        socket);
+    parser.addOption("-j, --threads %d {[1,1024]} #number of clients served at the same time",
+        threads);
+    parser.addOption("-o, --output %s #<OutputDIRECTORY> used to name visualizations", output);
+    parser.addOption(
+        "--cache %s #<CacheDIRECTORY> where compiled workload (.wlb) files and tx costs are kept and reused",
+        cache);
+    parser.matchAllArgs(args);
+
+    var server = new WarpServer(port.value, socket.value, threads.value, output.value, cache.value);
+    System.out.println("WarpServer listening on " + server.getAddress());
+    server.serve();
+  }
+}
@@ -0,0 +1,204 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+class WarpServerTest {
+
+	private static final String DELTA = "+F9 (3, 40, 40, 0) : A -> C";
+
+	/*
+	 * A server run on a thread of its own, on a free TCP port, and a client connected to it.
+	 */
+	private static class Server implements AutoCloseable {
+		private final Path outputDirectory;
+		private final WarpServer server;
+		private final int port;
+		private final Thread thread;
+		private final Client client;
+
+		Server() throws IOException {
+			outputDirectory = Files.createTempDirectory("warpserver");
+			server = new WarpServer(0, null, 2, outputDirectory.toString(), null);
+			var address = server.getAddress();
+			port = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+			thread = new Thread(() -> {
+				try {
+					server.serve();
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			thread.start();
+			client = connect();
+		}
+
+		Client connect() throws IOException {
+			return new Client(new Socket(InetAddress.getLoopbackAddress(), port));
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (thread.isAlive()) {
+				try (var shutdown = connect()) {
+					shutdown.request("SHUTDOWN");
+				}
+			}
+			client.close();
+			try (var files = Files.walk(outputDirectory)) {
+				for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	private static class Client implements AutoCloseable {
+		private final Socket socket;
+		private final BufferedReader in;
+		private final BufferedWriter out;
+
+		Client(Socket socket) throws IOException {
+			this.socket = socket;
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		}
+
+		/* sends the lines of a request, and returns the status line and the data lines of the response */
+		List<String> request(String... lines) throws IOException {
+			for (String line : lines) {
+				out.write(line + "\n");
+			}
+			out.flush();
+			var response = new ArrayList<String>();
+			String line;
+			while ((line = in.readLine()) != null && !line.equals(".")) {
+				response.add(line.startsWith(".") ? line.substring(1) : line);
+			}
+			assertNotNull(line, "Connection closed before the end of the response");
+			return response;
+		}
+
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+
+	/* the source Warp writes for scheduler, split into lines */
+	private static List<String> source(WorkLoad workLoad, ScheduleChoices scheduler) {
+		var warp = SystemFactory.create(workLoad.snapshot(), 16, scheduler);
+		return new ProgramVisualization(warp).fileVisualization().toString().lines().toList();
+	}
+
+	@Test
+	@Timeout (value = 5000, unit = TimeUnit.MILLISECONDS)
+	//Tests that bad requests are answered with ERROR and the connection can still be used
+	public void testProtocolErrors() throws IOException {
+		try (var server = new Server()) {
+			var client = server.client;
+			assertEquals(List.of("ERROR unknown command FOO"), client.request("foo bar"));
+			assertEquals(List.of("ERROR usage: SYNTH name scheduler [channels]"), client.request("SYNTH"));
+			assertEquals(List.of("ERROR no workload none"), client.request("SYNTH none PRIORITY"));
+			assertEquals(List.of("ERROR input file NoSuchFile.txt doesn't exist"), client.request("LOAD x NoSuchFile.txt"));
+			assertEquals(List.of("ERROR not a number: high"), client.request("LOAD x Example.txt high"));
+			var status = client.request("LOAD ex Example.txt");
+			assertEquals(1, status.size(), "LOAD returned data");
+			assertTrue(status.get(0).matches("OK ex \\d+ flows"), "Unexpected LOAD status " + status);
+			assertEquals(List.of("ERROR unknown scheduler none"), client.request("SYNTH ex none"));
+			assertEquals(List.of("ERROR number of channels must be in [1,16]"), client.request("SYNTH ex PRIORITY 17"));
+			assertEquals(List.of("ERROR unknown visualization SIMULATOR_INPUT"), client.request("GET ex PRIORITY SIMULATOR_INPUT"));
+			var delta = client.request("DELTA ex", "this is not a delta", ".");
+			assertEquals(1, delta.size(), "DELTA error returned data");
+			assertTrue(delta.get(0).startsWith("ERROR "), "Bad delta was not an error: " + delta);
+			assertEquals(List.of("ERROR no workload none"), client.request("UNLOAD none"));
+			assertEquals(List.of("OK 1 workloads", "ex " + (status.get(0).split(" ")[2])), client.request("LIST"));
+		}
+	}
+
+	@Test
+	@Timeout (value = 5000, unit = TimeUnit.MILLISECONDS)
+	//Tests that QUIT closes only its connection and SHUTDOWN stops the server
+	public void testQuitAndShutdown() throws IOException, InterruptedException {
+		try (var server = new Server()) {
+			assertEquals(List.of("OK"), server.client.request("QUIT"));
+			assertNull(server.client.in.readLine(), "Connection is open after QUIT");
+			try (var client = server.connect()) {
+				assertEquals(List.of("OK 0 workloads"), client.request("LIST"));
+				assertEquals(List.of("OK"), client.request("SHUTDOWN"));
+				assertNull(client.in.readLine(), "Connection is open after SHUTDOWN");
+			}
+			server.thread.join(2000);
+			assertFalse(server.thread.isAlive(), "Server still runs after SHUTDOWN");
+			assertThrows(IOException.class, () -> server.connect().close()); // server socket is closed
+		}
+	}
+
+	@Test
+	@Timeout (value = 20000, unit = TimeUnit.MILLISECONDS)
+	//Tests that a source longer than what is sent between flushes arrives whole, from two clients at once
+	public void testSynthLongSource() throws IOException, InterruptedException {
+		try (var server = new Server(); var other = server.connect()) {
+			var expected = source(new WorkLoad(.9, .99, "StressTest4.txt"), ScheduleChoices.POSET_PRIORITY);
+			assertTrue(expected.size() > 2 * 64, "StressTest4 source is too short to be sent in parts");
+			server.client.request("LOAD stress StressTest4.txt");
+			var responses = new ArrayList<List<String>>();
+			var otherRequest = new Thread(() -> {
+				try {
+					responses.add(other.request("SYNTH stress POSET_PRIORITY"));
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			otherRequest.start();
+			var response = server.client.request("SYNTH stress POSET_PRIORITY");
+			otherRequest.join();
+			assertEquals(expected, response.subList(1, response.size()), "SYNTH did not send the whole source");
+			assertEquals(response, responses.get(0), "Clients were sent different sources");
+		}
+	}
+
+	@Test
+	@Timeout (value = 20000, unit = TimeUnit.MILLISECONDS)
+	//Tests that SYNTH sends the source Warp writes, and that a DELTA makes the next SYNTH build the program again
+	public void testSynthAfterDelta() throws IOException {
+		try (var server = new Server()) {
+			var client = server.client;
+			var workLoad = new WorkLoad(.9, .99, "Example.txt");
+			client.request("LOAD ex Example.txt");
+			var response = client.request("SYNTH ex PRIORITY");
+			assertEquals("OK PRIORITY deadlines=met reliabilities=met channels=ok", response.get(0));
+			var before = response.subList(1, response.size());
+			assertEquals(source(workLoad, ScheduleChoices.PRIORITY), before, "SYNTH did not send the source");
+			var get = client.request("GET ex PRIORITY SOURCE");
+			assertEquals(before, get.subList(1, get.size()), "GET SOURCE differs from SYNTH");
+
+			var effect = client.request("DELTA ex", DELTA, ".");
+			assertEquals(1, effect.size(), "DELTA returned data");
+			assertTrue(effect.get(0).startsWith("OK "), "DELTA failed: " + effect);
+			workLoad.apply(WorkLoadDelta.parse(DELTA + "\n"));
+			var after = client.request("SYNTH ex PRIORITY");
+			assertEquals(source(workLoad, ScheduleChoices.PRIORITY), after.subList(1, after.size()), "SYNTH after DELTA did not send the new source");
+			assertNotEquals(before, after.subList(1, after.size()), "SYNTH after DELTA sent the old source");
+		}
+	}
+}
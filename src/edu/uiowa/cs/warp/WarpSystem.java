@@ -23,7 +23,17 @@ public class WarpSystem implements WarpInterface {
   public WarpSystem(WorkLoad workLoad, Integer numChannels, ScheduleChoices choice) {
     this.workLoad = workLoad;
     this.numChannels = numChannels;
-    createProgram(workLoad, numChannels, choice);
+    createProgram(new SynthesisContext(workLoad), numChannels, choice);
+  }
+
+  /**
+   * Creates the system with a program built with context, so it can be cancelled with
+   * context.cancel(), in which case a CancellationException is thrown.
+   */
+  public WarpSystem(SynthesisContext context, Integer numChannels, ScheduleChoices choice) {
+    this.workLoad = context.getWorkLoad();
+    this.numChannels = numChannels;
+    createProgram(context, numChannels, choice);
   }
 
   @Override
@@ -81,8 +91,9 @@ public class WarpSystem implements WarpInterface {
   }
 
 
-  private void createProgram(WorkLoad workLoad, Integer numChannels, ScheduleChoices choice) {
-    program = new Program(workLoad, numChannels, choice, verboseMode, latencyRequested);
+  private void createProgram(SynthesisContext context, Integer numChannels,
+      ScheduleChoices choice) {
+    program = new Program(context, numChannels, choice, verboseMode, latencyRequested);
 
   }
 
@@ -0,0 +1,117 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+class WarpTest {
+
+	/* runs Warp with args, writing its output files to directory, and returns the schedulability of its systems */
+	private static Map<ScheduleChoices, Boolean> run(Path directory, String... args) throws IOException {
+		var options = new String[args.length + 2];
+		System.arraycopy(args, 0, options, 0, args.length);
+		options[args.length] = "-o";
+		options[args.length + 1] = directory.toString();
+		var warp = new Warp(options, false);
+		warp.run();
+		return warp.getSchedulability();
+	}
+
+	/* the files in directory, by name, and their contents */
+	private static Map<String, String> files(Path directory) throws IOException {
+		var files = new TreeMap<String, String>();
+		try (var paths = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) paths::iterator) {
+				files.put(file.getFileName().toString(), Files.readString(file));
+			}
+		}
+		return files;
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (var files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Test
+	@Timeout (value = 20000, unit = TimeUnit.MILLISECONDS)
+	//Tests that the portfolio picks the first scheduler whose system meets every requirement, and writes its source
+	public void testPortfolioFirstToMeetRequirementsWins() throws IOException {
+		var directory = Files.createTempDirectory("portfolio");
+		try {
+			/* PRIORITY and RM miss the deadlines of StressTest4, POSET_DM and WARP_POSET_DM meet them */
+			var schedulable = run(directory, "-i", "StressTest4.txt", "-j", "4", "--portfolio", "PRIORITY,RM,POSET_DM,WARP_POSET_DM");
+			assertEquals(Map.of(ScheduleChoices.POSET_DM, true), schedulable, "POSET_DM did not win");
+			var warp = SystemFactory.create(new WorkLoad(.9, .99, "StressTest4.txt").snapshot(), 16, ScheduleChoices.POSET_DM);
+			var source = new ProgramVisualization(warp).fileVisualization().toString();
+			assertTrue(files(directory).containsValue(source), "Source of the winner was not written");
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	@Timeout (value = 20000, unit = TimeUnit.MILLISECONDS)
+	//Tests that when several schedulers meet every requirement, the one first in the portfolio wins every time
+	public void testPortfolioTiesGoToFirst() throws IOException {
+		var directory = Files.createTempDirectory("portfolio");
+		try {
+			for (int i = 0; i < 3; i++) {
+				assertEquals(Map.of(ScheduleChoices.DM, true), run(directory, "-i", "Example.txt", "-j", "2", "--portfolio", "DM,PRIORITY"));
+				assertEquals(Map.of(ScheduleChoices.PRIORITY, true), run(directory, "-i", "Example.txt", "-j", "2", "--portfolio", "PRIORITY,DM"));
+				/* RTHART misses the deadlines of Example4, DM and PRIORITY meet them */
+				assertEquals(Map.of(ScheduleChoices.DM, true), run(directory, "-i", "Example4.txt", "-j", "3", "--portfolio", "RTHART,DM,PRIORITY"));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	@Timeout (value = 20000, unit = TimeUnit.MILLISECONDS)
+	//Tests that the first scheduler of the portfolio is used when none meets every requirement
+	public void testPortfolioNoWinner() throws IOException {
+		var directory = Files.createTempDirectory("portfolio");
+		try {
+			assertEquals(Map.of(ScheduleChoices.RM, false), run(directory, "-i", "StressTest4.txt", "--portfolio", "RM,PRIORITY"));
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	@Timeout (value = 60000, unit = TimeUnit.MILLISECONDS)
+	//Tests that building the systems of all schedulers at the same time writes the same files as building them one at a time
+	public void testAllSchedulersInParallel() throws IOException {
+		var oneAtATime = Files.createTempDirectory("all");
+		var parallel = Files.createTempDirectory("all");
+		try {
+			var expected = run(oneAtATime, "-i", "Example4.txt", "-a", "-j", "1");
+			assertEquals(ScheduleChoices.values().length, expected.size(), "Not every scheduler was run");
+			assertEquals(expected, run(parallel, "-i", "Example4.txt", "-a", "-j", "8"));
+			var expectedFiles = files(oneAtATime);
+			var actualFiles = files(parallel);
+			assertEquals(expectedFiles.keySet(), actualFiles.keySet(), "Different files were written");
+			for (String file : expectedFiles.keySet()) {
+				assertEquals(expectedFiles.get(file), actualFiles.get(file), file + " differs");
+			}
+		} finally {
+			delete(oneAtATime);
+			delete(parallel);
+		}
+	}
+}
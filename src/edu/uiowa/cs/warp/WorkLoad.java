@@ -6,16 +6,13 @@ package edu.uiowa.cs.warp;
 import edu.uiowa.cs.utilities.Utilities;
 
 import java.io.FileNotFoundException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 // import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.Vector;
-import java.util.stream.Collectors;
 
 /**
  * Build the nodes and flows for the workload described in the workload description file, whose name
@@ -23,7 +20,7 @@ import java.util.stream.Collectors;
  * constructors are m = 0.9, e2e = 0.99, and numFaults = 1 when the second constructor is used.
  * 
  * @author sgoddard
- * @version 1.4
+ * @version 1.5
  *
  */
 /**
@@ -40,6 +37,41 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
   private static final String FLOW_WARNING =
       "\n\tWarning! Bad situation: " + "Flow %s doesn't exist but trying to ";
 
+  /*
+   * Metrics derived from the flows and nodes. Each one is computed the first time it is asked for,
+   * and then kept until the workload is changed, i.e., until modCount is no longer the version the
+   * metrics were computed for.
+   */
+  private static class DerivedMetrics {
+    private final long version; // modCount when the metrics were computed
+    private int[][] flowOrders; // flow ids in each FlowOrder
+    private Integer hyperPeriod;
+    private Integer maxPhase;
+    private Integer minPeriod;
+    private Integer maxFlowLength;
+    private String[] nodeNamesOrderedAlphabetically;
+
+    DerivedMetrics(long version) {
+      this.version = version;
+    }
+  }
+
+  /**
+   * Orders in which the flows are scheduled. Flows that are equal in both keys of an order stay in
+   * the order of the FlowMap.
+   */
+  public enum FlowOrder {
+    PRIORITY(Comparator.comparingInt(Flow::getPriority).thenComparingInt(Flow::getIndex)),
+    RM(Comparator.comparingInt(Flow::getPeriod).thenComparingInt(Flow::getPriority)),
+    DM(Comparator.comparingInt(Flow::getDeadline).thenComparingInt(Flow::getPriority));
+
+    private final Comparator<Flow> comparator;
+
+    FlowOrder(Comparator<Flow> comparator) {
+      this.comparator = comparator;
+    }
+  }
+
   private Integer numFaults = 0;
   private Double minPacketReceptionRate = 0.0;
   private Double e2e = 0.0;
@@ -48,6 +80,14 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
   private FlowMap flows; // map of all flow nodes in the WARP graph (<name, Flow>)
   // private Integer nFlows = 0;
   private NodeMap nodes; // map of all graph nodes in the WARP graph (<name, Node>)
+  private SymbolTable symbols; // dense ids for the node and flow names
+  private ArrayList<Node> nodesById; // graph nodes indexed by their SymbolTable id
+  private ArrayList<Integer> nodeUses; // number of times each node, by id, is in a flow
+  private Integer nextFlowIndex; // index for the next flow added by a workload delta
+  private FlowOrder flowOrder; // order of flowNamesInPriorityOrder, null until it is set
+  private long modCount; // number of changes made to the flows and nodes
+  private boolean immutable; // true for a snapshot, which can't be changed
+  private DerivedMetrics metrics; // metrics computed from the flows and nodes, null until needed
   private String name; // name of the WARP graph defining the workload
   /**
  * Creates original array list of flows in the original order.
@@ -83,6 +123,7 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
      * objects
      */
     WorkLoadListener.buildNodesAndFlows(this);
+    metrics().flowOrders = computeFlowOrders(); // the workload is finalized, so compute them once
   }
 
 
@@ -99,16 +140,126 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
    */
 
   WorkLoad(Integer numFaults, Double m, Double e2e, String inputFileName) throws FileNotFoundException {
+    this(numFaults, m, e2e, inputFileName, null);
+  }
+
+  /**
+   * Constructor for WorkLoad that uses a cache of compiled workloads. When the workload, with
+   * these parameters, is in the cache, it is loaded from there instead of being built from the
+   * input file. Otherwise it is built and then added to the cache.
+   * 
+   * @param numFaults number of faults
+   * @param m used to set minPacketReceptionRate
+   * @param e2e flows object is populated as input file read
+   * @param inputFileName name of the input file
+   * @param cache compiled workload cache, or null to always build the workload
+   */
+  WorkLoad(Integer numFaults, Double m, Double e2e, String inputFileName, WorkLoadCache cache)
+      throws FileNotFoundException {
     super(inputFileName);
     setDefaultParameters();
     this.numFaults = numFaults;
     minPacketReceptionRate = m; // use file manager passed to this object
     this.e2e = e2e; // use populate this flows object as the input file is read
-    /*
-     * Read input file, build the AST of graph and the listener will build the node and flow data
-     * objects
-     */
+    if (cache == null || !cache.load(this)) { // no need to build the nodes and flows if cached
+      /*
+       * Read input file, build the AST of graph and the listener will build the node and flow data
+       * objects
+       */
+      WorkLoadListener.buildNodesAndFlows(this);
+      if (cache != null) {
+        cache.store(this);
+      }
+    }
+    metrics().flowOrders = computeFlowOrders(); // the workload is finalized, so compute them once
+  }
+
+  /*
+   * Constructor for a workload built from a description that has already been read by loader. The
+   * parsed description is replayed, or, when loader didn't parse it, it is parsed with ANTLR. Used
+   * to check that the ways of parsing a description build the same workload.
+   */
+  WorkLoad(Double m, Double e2e, String inputFileName, WorkLoadLoader loader) {
+    super(inputFileName, loader);
+    setDefaultParameters();
+    minPacketReceptionRate = m;
+    this.e2e = e2e;
     WorkLoadListener.buildNodesAndFlows(this);
+    metrics().flowOrders = computeFlowOrders(); // the workload is finalized, so compute them once
+  }
+
+  /*
+   * Copy constructor for snapshot(). The flows and nodes are copied, so later changes to workLoad
+   * are not seen by the copy, and the copy is immutable.
+   */
+  private WorkLoad(WorkLoad workLoad) {
+    super(workLoad);
+    numFaults = workLoad.numFaults;
+    minPacketReceptionRate = workLoad.minPacketReceptionRate;
+    e2e = workLoad.e2e;
+    intForNodeNames = workLoad.intForNodeNames;
+    intForFlowNames = workLoad.intForFlowNames;
+    name = workLoad.name;
+    symbols = new SymbolTable(workLoad.symbols);
+    /* copy in iteration order, so the copies iterate in the same order, which breaks sort ties */
+    nodes = new NodeMap();
+    for (Node node : workLoad.nodes.values()) {
+      nodes.put(node.getName(), new Node(node));
+    }
+    nodesById = new ArrayList<>(workLoad.nodesById.size());
+    for (Node node : workLoad.nodesById) { // a removed node is kept, so ids stay valid
+      var copy = nodes.get(node.getName());
+      nodesById.add((copy != null && copy.getId() == node.getId()) ? copy : new Node(node));
+    }
+    nodeUses = new ArrayList<>(workLoad.nodeUses);
+    flows = new FlowMap();
+    for (Flow flow : workLoad.flows.values()) {
+      flows.put(flow.getName(), new Flow(flow));
+    }
+    nextFlowIndex = workLoad.nextFlowIndex;
+    flowOrder = workLoad.flowOrder;
+    flowNamesInOriginalOrder = new ReadOnlyList<>(workLoad.flowNamesInOriginalOrder);
+    flowNamesInPriorityOrder = new ReadOnlyList<>(workLoad.flowNamesInPriorityOrder);
+    modCount = workLoad.getModificationCount();
+    metrics = null;
+    metrics().flowOrders = computeFlowOrders();
+    /* the flows and nodes are reachable through the getters, so they can't be changed either */
+    for (Flow flow : flows.values()) {
+      flow.freeze();
+    }
+    for (Node node : nodesById) {
+      node.freeze();
+    }
+    flows.freeze();
+    nodes.freeze();
+    immutable = true;
+  }
+
+  /**
+   * Returns an immutable copy of the workload, which can be shared by programs and analyses that
+   * run at the same time, e.g., on several threads. Every method that would change a snapshot
+   * throws UnsupportedOperationException instead; state that changes while a program is built is
+   * kept in a SynthesisContext for each run. The workload itself can still be changed, e.g., by
+   * apply(), without changing the snapshot.
+   * 
+   * @return the snapshot, which is this workload if it is a snapshot already
+   */
+  public WorkLoad snapshot() {
+    return immutable ? this : new WorkLoad(this);
+  }
+
+  /**
+   * @return true if this workload is a snapshot, which can't be changed
+   */
+  public Boolean isSnapshot() {
+    return immutable;
+  }
+
+  private void checkMutable() {
+    if (immutable) {
+      throw new UnsupportedOperationException(
+          String.format("Workload %s is a snapshot, which can't be changed", name));
+    }
   }
 
   private void setDefaultParameters() {
@@ -116,6 +267,16 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
     intForFlowNames = true; // default is that node names are all alpha names
     flows = new FlowMap(); // map of all flow nodes in the WARP graph (<name, Flow>)
     nodes = new NodeMap(); // map of all graph nodes in the WARP graph (<name, Node>)
+    flows.setChangeListener(this::workLoadChanged);
+    nodes.setChangeListener(this::workLoadChanged);
+    symbols = new SymbolTable();
+    nodesById = new ArrayList<>();
+    nodeUses = new ArrayList<>();
+    nextFlowIndex = 0;
+    flowOrder = null;
+    immutable = false;
+    modCount = 0;
+    metrics = null;
     flowNamesInOriginalOrder = new ArrayList<>(); // array to hold names of flows to preserve their
                                                   // order
     flowNamesInPriorityOrder = new ArrayList<>();
@@ -158,19 +319,34 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
   }
 
   /**
-   * @return the flows
+   * @return the flows; read-only for a snapshot, as are the flows in it (see Flow.freeze())
    */
   public FlowMap getFlows() {
     return flows;
   }
 
   /**
-   * @return the nodes
+   * @return the nodes; read-only for a snapshot, as are the nodes in it
    */
   public NodeMap getNodes() {
     return nodes;
   }
 
+  /**
+   * @return the symbol table with the node and flow ids
+   */
+  public SymbolTable getSymbolTable() {
+    return symbols;
+  }
+
+  /**
+   * @param id node id from the symbol table
+   * @return the graph node with that id
+   */
+  public Node getNode(int id) {
+    return nodesById.get(id);
+  }
+
   /**
    * @return the name
    */
@@ -179,14 +355,14 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
   }
 
   /**
-   * @return the flowNamesInOriginalOrder
+   * @return the flowNamesInOriginalOrder, read-only for a snapshot
    */
   public ArrayList<String> getFlowNamesInOriginalOrder() {
     return flowNamesInOriginalOrder;
   }
 
   /**
-   * @return the flowNamesInPriorityOrder
+   * @return the flowNamesInPriorityOrder, read-only for a snapshot
    */
   public ArrayList<String> getFlowNamesInPriorityOrder() {
     return flowNamesInPriorityOrder;
@@ -196,29 +372,39 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
    * @param minPacketReceptionRate the minPacketReceptionRate to set
    */
   public void setMinPacketReceptionRate(Double minPacketReceptionRate) {
+    checkMutable();
     this.minPacketReceptionRate = minPacketReceptionRate;
   }
 
   /**
    * @return the maximum phase of all flows
    */
-  public Integer getMaxPhase() {
-    var queue = new SchedulableObjectQueue<Flow>(new MaxPhaseComparator<Flow>(), flows.values());
-    return queue.poll().getPhase();
+  public synchronized Integer getMaxPhase() {
+    var cached = metrics();
+    if (cached.maxPhase == null) {
+      var queue = new SchedulableObjectQueue<Flow>(new MaxPhaseComparator<Flow>(), flows.values());
+      cached.maxPhase = queue.poll().getPhase();
+    }
+    return cached.maxPhase;
   }
 
   /**
    * @return the minimum period of all flows
    */
-  public Integer getMinPeriod() {
-    var queue = new SchedulableObjectQueue<Flow>(new PeriodComparator<Flow>(), flows.values());
-    return queue.poll().getPeriod();
+  public synchronized Integer getMinPeriod() {
+    var cached = metrics();
+    if (cached.minPeriod == null) {
+      var queue = new SchedulableObjectQueue<Flow>(new PeriodComparator<Flow>(), flows.values());
+      cached.minPeriod = queue.poll().getPeriod();
+    }
+    return cached.minPeriod;
   }
 
   /**
    * @param e2e the e2e to set
    */
   public void setE2e(Double e2e) {
+    checkMutable();
     this.e2e = e2e;
   }
 
@@ -226,6 +412,7 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
    * @param intForNodeNames the intForNodeNames to set
    */
   public void setIntForNodeNames(Boolean intForNodeNames) {
+    checkMutable();
     this.intForNodeNames = intForNodeNames;
   }
 
@@ -233,6 +420,7 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
    * @param intForFlowNames the intForFlowNames to set
    */
   public void setIntForFlowNames(Boolean intForFlowNames) {
+    checkMutable();
     this.intForFlowNames = intForFlowNames;
   }
 
@@ -240,20 +428,35 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
    * @param flows the flows to set
    */
   public void setFlows(FlowMap flows) {
+    checkMutable();
+    this.flows.setChangeListener(null);
+    for (Flow flow : this.flows.values()) {
+      flow.setChangeListener(null);
+    }
     this.flows = flows;
+    flows.setChangeListener(this::workLoadChanged);
+    for (Flow flow : flows.values()) {
+      flow.setChangeListener(this::workLoadChanged);
+    }
+    workLoadChanged();
   }
 
   /**
    * @param nodes the nodes to set
    */
   public void setNodes(NodeMap nodes) {
+    checkMutable();
+    this.nodes.setChangeListener(null);
     this.nodes = nodes;
+    nodes.setChangeListener(this::workLoadChanged);
+    workLoadChanged();
   }
 
   /**
    * @param name the name to set
    */
   public void setName(String name) {
+    checkMutable();
     this.name = name;
   }
 
@@ -261,13 +464,16 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
    * @param flowNamesInOriginalOrder the flowNamesInOriginalOrder to set
    */
   public void setFlowNamesInOriginalOrder(ArrayList<String> flowNamesInOriginalOrder) {
+    checkMutable();
     this.flowNamesInOriginalOrder = flowNamesInOriginalOrder;
+    workLoadChanged();
   }
 
   /**
    * @param flowNamesInPriorityOrder the flowNamesInPriorityOrder to set
    */
   public void setFlowNamesInPriorityOrder(ArrayList<String> flowNamesInPriorityOrder) {
+    checkMutable();
     this.flowNamesInPriorityOrder = flowNamesInPriorityOrder;
   }
 
@@ -276,11 +482,21 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
    * @param channel the channel to set
    */
   public void setNodeChannel(String name, Integer channel) {
+    checkMutable();
     var node = nodes.get(name); // get the node object
     node.setChannel(channel);
     nodes.put(name, node); // update the nodes map with the updated object
   }
 
+  /**
+   * @param id id of the node whose channel is to be set
+   * @param channel the channel to set
+   */
+  public void setNodeChannel(int id, Integer channel) {
+    checkMutable();
+    nodesById.get(id).setChannel(channel);
+  }
+
   /**
    * @return the node channel
    */
@@ -289,12 +505,20 @@ private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
     return node.getChannel();
   }
 
+  /**
+   * @return the channel of the node with id
+   */
+  public int getNodeChannel(int id) {
+    return nodesById.get(id).getChannel();
+  }
+
   /**
    * Adds a new flow node using name, priority, and index straight to the index.
    * 
  * @param flowName name of the flow to add
  */
 public void addFlow(String flowName) {
+    checkMutable();
     /*
      * add a new flow node to the Flows dictionary. Only name, priority, and index are changed from
      * default values priority is set to the number of flows already added (index), 0 for first flow
@@ -308,9 +532,16 @@ public void addFlow(String flowName) {
       System.out.printf("\n\tWarning! A flow with name %s already exists. "
           + "It has been replaced with a new flow\n.");
     }
-    var index = flows.size();
-    var flowNode = new Flow(flowName, index, index);
+    addFlow(flowName, flows.size());
+  }
+
+  /* adds a new flow with index, which is also its default priority */
+  private void addFlow(String flowName, Integer index) {
+    var flowNode = new Flow(flowName, symbols.addFlow(flowName), index, index);
+    flowNode.setChangeListener(this::workLoadChanged); // so changes made through getFlows() count
     flows.put(flowName, flowNode);
+    workLoadChanged();
+    nextFlowIndex = Math.max(nextFlowIndex, index + 1);
     if (!Utilities.isInteger(flowName) && intForFlowNames) {
       intForFlowNames = false; // set false because name not is a number; && above makes sure we
                                // only set it once
@@ -334,26 +565,36 @@ public void addFlow(String flowName) {
  * @param nodeName Passes the node name.
  */
 public void addNodeToFlow(String flowName, String nodeName) {
+    checkMutable();
     if (!Utilities.isInteger(nodeName) && intForNodeNames) {
       /* set false because name not is a number; && above makes sure we only set it once */
       intForNodeNames = false;
     }
+    var id = symbols.addNode(nodeName);
     if (!nodes.containsKey(nodeName)) { // create the node and add it to nodes if map doesn't have
                                         // this node already.
       /* If the node already exists, just need to add to the flow */
-      var index = nodes.size(); // nodeIndex will be the order added
-      var graphNode = new Node(nodeName, DEFAULT_PRIORITY, index); // create a new graph node
+      var index = id; // nodeIndex will be the order added, which is also the id order
+      var graphNode = new Node(nodeName, id, DEFAULT_PRIORITY, index); // create a new graph node
       nodes.put(nodeName, graphNode); // add it to the map of nodes
+      if (id < nodesById.size()) {
+        nodesById.set(id, graphNode); // a removed node that is added again keeps its id
+      } else {
+        nodesById.add(graphNode); // ids are also assigned in the order added
+        nodeUses.add(0);
+      }
     }
+    nodeUses.set(id, nodeUses.get(id) + 1);
     /*
      * Node is now created and in the nodes map Next we need to get the current flow and add this
      * node to that flow by appending it to the node array for that flow
      */
     var flowNode = getFlow(flowName);
-    var graphNode = new Node(nodeName, flowNode.nodes.size(), DEFAULT_INDEX);
+    var graphNode = new Node(nodeName, id, flowNode.nodes.size(), DEFAULT_INDEX);
     /* the priority is the node's index in the flow, which is the current array size */
     flowNode.addNode(graphNode);
     flowNode.linkTxAndTotalCost.add(DEFAULT_TX_NUM);
+    workLoadChanged();
   }
 
 
@@ -379,13 +620,17 @@ public Integer getFlowPriority(String flowName, String nodeName) {
   }
 
   public void setFlowPriority(String flowName, Integer priority) {
+    checkMutable();
     var flowNode = getFlow(flowName);
     flowNode.setPriority(priority);
+    workLoadChanged();
   }
 
   public void setFlowPeriod(String flowName, Integer period) {
+    checkMutable();
     var flowNode = getFlow(flowName);
     flowNode.setPeriod(period);
+    workLoadChanged();
   }
 
   /**
@@ -395,13 +640,17 @@ public Integer getFlowPriority(String flowName, String nodeName) {
  * @param deadline Takes flow name and sets the deadline.
  */
 public void setFlowDeadline(String flowName, Integer deadline) {
+    checkMutable();
     var flowNode = getFlow(flowName);
     flowNode.setDeadline(deadline);
+    workLoadChanged();
   }
 
   public void setFlowPhase(String flowName, Integer phase) {
+    checkMutable();
     var flowNode = getFlow(flowName);
     flowNode.setPhase(phase);
+    workLoadChanged();
   }
 
   public Integer getFlowIndex(String flowName) {
@@ -459,72 +708,117 @@ public Integer getFlowTxAttemptsPerLink(String flowName) {
   }
   
   /**
-   * Creates a list of flow objects from the FlowMap using the stream interface. Sorts by
-   * a secondary key, the index. Sorts by primary key, the priority. Creates a new 
-   * flowNamesInPriorityOrder that contains the flow names in the requested order.
+   * Sets flowNamesInPriorityOrder to the flow names sorted by priority, and then by index.
    */
   public void setFlowsInPriorityOrder() {
-    // create a list of Flow objects from the FlowMap using the stream interface.
-    List<Flow> unsortedFlows = flows.values().stream().collect(Collectors.toList());
-    // Now sort by a secondary key, which is index in this case
-    List<Flow> sortedByIndex = unsortedFlows.stream().sorted(Comparator.comparing(Flow::getIndex))
-        .collect(Collectors.toList());
-    // Now sort by primary key, which is priority in this case
-    List<Flow> sortedFlows = sortedByIndex.stream().sorted(Comparator.comparing(Flow::getPriority))
-        .collect(Collectors.toList());
-    // Finally, create a new flowNamesInPriorityOrder that contains the flow names in the requested
-    // order
-    flowNamesInPriorityOrder = new ArrayList<>();
-    sortedFlows.forEach((node) -> flowNamesInPriorityOrder.add(node.getName()));
+    setFlowsInOrder(FlowOrder.PRIORITY);
   }
 
   /**
-   * Creates a list of Flow objects from the FlowMap using the stream interface. Sorts
-   * by a secondary key, the priority. Sorts by primary key, the deadline. Creates a new
-   * flowNamesInPriorityOrder that contains the flow names in the requested order.
+   * Sets flowNamesInPriorityOrder to the flow names sorted by deadline, and then by priority.
    */
   public void setFlowsInDMorder() {
-    /* create a list of Flow objects from the FlowMap using the stream interface. */
-    List<Flow> unsortedFlows = flows.values().stream().collect(Collectors.toList());
-    /* Now sort by a secondary key, which is priority in this case */
-    List<Flow> sortedByPriority = unsortedFlows.stream()
-        .sorted(Comparator.comparing(Flow::getPriority)).collect(Collectors.toList());
-    /* Now sort by primary key, which is deadline in this case */
-    List<Flow> sortedFlows = sortedByPriority.stream()
-        .sorted(Comparator.comparing(Flow::getDeadline)).collect(Collectors.toList());
-    /*
-     * Finally, create a new flowNamesInPriorityOrder that contains the flow names in the requested
-     * order
-     */
-    flowNamesInPriorityOrder = new ArrayList<>();
-    sortedFlows.forEach((node) -> flowNamesInPriorityOrder.add(node.getName()));
+    setFlowsInOrder(FlowOrder.DM);
   }
   
   /**
-   * Creates a list of Flow objects from the FlowMap using the stream interface. Sorts
-   * by a secondary key, the priority. Sorts by primary key, the period. Creates a new
-   * flowNamesInPriorityOrder that contains the flow names in the requested order.
+   * Sets flowNamesInPriorityOrder to the flow names sorted by period, and then by priority.
    */
   public void setFlowsInRMorder() {
-    // create a list of Flow objects from the FlowMap using the stream interface.
-    List<Flow> unsortedFlows = flows.values().stream().collect(Collectors.toList());
-    // Now sort by a secondary key, which is priority in this case
-    List<Flow> sortedByPriority = unsortedFlows.stream()
-        .sorted(Comparator.comparing(Flow::getPriority)).collect(Collectors.toList());
-    // Now sort by primary key, which is period in this case
-    List<Flow> sortedFlows = sortedByPriority.stream().sorted(Comparator.comparing(Flow::getPeriod))
-        .collect(Collectors.toList());
-    // Finally, create a new flowNamesInPriorityOrder that contains the flow names in the requested
-    // order
-    flowNamesInPriorityOrder = new ArrayList<>();
-    sortedFlows.forEach((node) -> flowNamesInPriorityOrder.add(node.getName()));
+    setFlowsInOrder(FlowOrder.RM);
   }
 
   public void setFlowsInRealTimeHARTorder() {
     setFlowsInPriorityOrder(); // use Priority order for RealTimeHART
   }
 
+  private void setFlowsInOrder(FlowOrder order) {
+    checkMutable();
+    flowNamesInPriorityOrder = new ArrayList<>(getFlowNamesInOrder(order));
+    flowOrder = order;
+  }
+
+  /**
+   * Returns the flow names in order, without sorting the flows and without changing the workload,
+   * so several programs can be built from one workload, each in its own order.
+   * 
+   * @param order order of the flows
+   * @return read-only view of the flow names in order
+   */
+  public List<String> getFlowNamesInOrder(FlowOrder order) {
+    var ids = getFlowOrders()[order.ordinal()];
+    return new AbstractList<String>() {
+      @Override
+      public String get(int index) {
+        return symbols.getFlowName(ids[index]);
+      }
+
+      @Override
+      public int size() {
+        return ids.length;
+      }
+    };
+  }
+
+  /**
+   * @param order order of the flows
+   * @return the SymbolTable ids of the flows in order
+   */
+  public int[] getFlowIdsInOrder(FlowOrder order) {
+    return getFlowOrders()[order.ordinal()].clone();
+  }
+
+  /**
+   * Returns the number of changes made to the flows and nodes of the workload. Anything computed
+   * from the workload when the count was n is still valid as long as the count is n.
+   * 
+   * @return the modification count
+   */
+  public synchronized long getModificationCount() {
+    return modCount;
+  }
+
+  /* the metrics for the current version of the workload */
+  private synchronized DerivedMetrics metrics() {
+    if (metrics == null || metrics.version != modCount) {
+      metrics = new DerivedMetrics(modCount);
+    }
+    return metrics;
+  }
+
+  /*
+   * invalidates the metrics; called by every method that changes the flows or nodes, and by the
+   * FlowMap, NodeMap and flows when they are changed directly, e.g., through getFlows()
+   */
+  private synchronized void workLoadChanged() {
+    modCount++;
+  }
+
+  private synchronized int[][] getFlowOrders() {
+    var cached = metrics();
+    if (cached.flowOrders == null) {
+      cached.flowOrders = computeFlowOrders();
+    }
+    return cached.flowOrders;
+  }
+
+  /*
+   * Returns the flow ids in each FlowOrder. The sort is stable, so flows that are equal in both
+   * keys stay in the FlowMap order, as they did with the two stable sorts that were used before.
+   */
+  private int[][] computeFlowOrders() {
+    var orders = new int[FlowOrder.values().length][];
+    var unsortedFlows = flows.values().toArray(new Flow[0]);
+    for (FlowOrder order : FlowOrder.values()) {
+      var sortedFlows = unsortedFlows.clone();
+      Arrays.sort(sortedFlows, order.comparator);
+      orders[order.ordinal()] = Arrays.stream(sortedFlows).mapToInt(Flow::getId).toArray();
+    }
+    return orders;
+  }
+
   public void finalizeCurrentFlow(String flowName) {
+    checkMutable();
     if (numFaults > 0) {
       finalizeFlowWithFixedFaultTolerance(flowName);
     } else {
@@ -532,48 +826,157 @@ public Integer getFlowTxAttemptsPerLink(String flowName) {
     }
   }
 
+  /**
+   * Sets the transmission costs of a flow that were computed by finalizeCurrentFlow() on an
+   * earlier run, e.g., for a flow loaded from a WorkLoadCache.
+   * 
+   * @param flowName name of the flow
+   * @param numTxPerLink number of transmissions per link
+   * @param linkTxAndTotalCost tx cost of each link, followed by the total E2E tx cost
+   */
+  void setFlowTxCosts(String flowName, int numTxPerLink, ArrayList<Integer> linkTxAndTotalCost) {
+    checkMutable();
+    var flowNode = getFlow(flowName);
+    flowNode.numTxPerLink = numTxPerLink;
+    flowNode.linkTxAndTotalCost = linkTxAndTotalCost;
+  }
+
+  /**
+   * Applies a workload delta: flows are added, removed and modified in the order of the delta.
+   * Only the changed flows are updated. The nodes of an added flow are added to the NodeMap and
+   * SymbolTable if they are new, and nodes that are no longer in any flow are removed. Tx costs are
+   * computed only for the added flows, since they don't depend on the flow parameters, and a flow
+   * priority order that has been set is kept up to date. Programs built from the workload before
+   * the delta was applied are not changed.
+   * 
+   * @param delta changes to make
+   * @return the flows and nodes affected by the delta
+   * @throws IllegalArgumentException if the delta adds a flow that exists, or removes or modifies
+   *         one that doesn't; the workload is not changed in that case
+   */
+  public WorkLoadDelta.Effect apply(WorkLoadDelta delta) {
+    checkMutable();
+    delta.check(flows.keySet()); // check the whole delta before changing anything
+    var effect = new WorkLoadDelta.Effect();
+    for (WorkLoadDelta.Change change : delta.getChanges()) {
+      switch (change.getKind()) {
+        case ADD -> addFlow(change.getFlow(), effect);
+        case REMOVE -> removeFlow(change.getFlowName(), effect);
+        case MODIFY -> modifyFlow(change.getFlowName(), change.getParameters(), effect);
+      }
+    }
+    workLoadChanged();
+    if (!effect.getRemovedFlows().isEmpty()) {
+      /* names that weren't integers may have been removed */
+      intForFlowNames = flows.keySet().stream().allMatch(Utilities::isInteger);
+      intForNodeNames = nodes.keySet().stream().allMatch(Utilities::isInteger);
+    }
+    return effect;
+  }
+
+  private void addFlow(WorkLoadLoader.FlowDescription description, WorkLoadDelta.Effect effect) {
+    addFlow(description.name, nextFlowIndex);
+    if (description.parameters != null) {
+      setFlowPriority(description.name, description.parameters[0]);
+      setFlowPeriod(description.name, description.parameters[1]);
+      setFlowDeadline(description.name, description.parameters[2]);
+      setFlowPhase(description.name, description.parameters[3]);
+    }
+    for (String nodeName : description.nodes) {
+      if (!nodes.containsKey(nodeName)) {
+        effect.nodeAdded(nodeName);
+      }
+      addNodeToFlow(description.name, nodeName);
+    }
+    finalizeCurrentFlow(description.name);
+    insertInPriorityOrder(flows.get(description.name));
+    effect.flowAdded(flows.get(description.name));
+  }
+
+  private void removeFlow(String flowName, WorkLoadDelta.Effect effect) {
+    var flow = flows.remove(flowName);
+    flow.setChangeListener(null);
+    flowNamesInOriginalOrder.removeIf(flowName::equals);
+    flowNamesInPriorityOrder.remove(flowName);
+    for (Node node : flow.nodes) {
+      var id = node.getId();
+      nodeUses.set(id, nodeUses.get(id) - 1);
+      if (nodeUses.get(id) == 0) { // no other flow uses the node
+        nodes.remove(node.getName());
+        symbols.removeNode(node.getName());
+        effect.nodeRemoved(node.getName());
+      }
+    }
+    effect.flowRemoved(flow);
+  }
+
+  private void modifyFlow(String flowName, Integer[] parameters, WorkLoadDelta.Effect effect) {
+    var flow = flows.get(flowName);
+    if (parameters[0] != null) {
+      flow.setPriority(parameters[0]);
+    }
+    if (parameters[1] != null) {
+      flow.setPeriod(parameters[1]);
+    }
+    if (parameters[2] != null) {
+      flow.setDeadline(parameters[2]);
+    }
+    if (parameters[3] != null) {
+      flow.setPhase(parameters[3]);
+    }
+    /* its place in the priority order may have changed */
+    if (flowNamesInPriorityOrder.remove(flowName)) {
+      insertInPriorityOrder(flow);
+    }
+    effect.flowModified(flow);
+  }
+
+  /*
+   * Inserts flow into flowNamesInPriorityOrder, after the flows that are equal to it in flowOrder,
+   * with a binary search. Nothing is done when no priority order has been set.
+   */
+  private void insertInPriorityOrder(Flow flow) {
+    if (flowOrder == null) {
+      return;
+    }
+    var low = 0;
+    var high = flowNamesInPriorityOrder.size();
+    while (low < high) {
+      var middle = (low + high) >>> 1;
+      if (flowOrder.comparator.compare(flows.get(flowNamesInPriorityOrder.get(middle)), flow) <= 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    flowNamesInPriorityOrder.add(low, flow.getName());
+  }
+
+  /*
+   * The release times are computed without changing the flow, so analyses of several programs can
+   * use them at the same time.
+   */
   public Integer nextReleaseTime(String flowName, Integer currentTime) {
     var flow = getFlow(flowName);
-    flow.setLastUpdateTime(currentTime);
-    flow.setNextReleaseTime(currentTime);
-    return flow.getReleaseTime(); // next release Time at or after currentTime
+    return flow.releaseTimeAtOrAfter(currentTime); // next release Time at or after currentTime
   }
 
   public Integer nextAbsoluteDeadline(String flowName, Integer currentTime) {
     var flow = getFlow(flowName);
-    flow.setLastUpdateTime(currentTime);
-    flow.setNextReleaseTime(currentTime);
-    return flow.getReleaseTime() + flow.getDeadline(); // next deadline after currentTime
+    /* next deadline after currentTime */
+    return flow.releaseTimeAtOrAfter(currentTime) + flow.getDeadline();
   }
 
   private void finalizeFlowWithE2eParameters(String flowName) {
     var flowNode = flows.get(flowName);
     var m = minPacketReceptionRate; // shorten the name :-)
     if (flowNode != null) {
-      var nodes = flowNode.nodes;
-      int nHops = nodes.size();
-      if (nHops < 1) {
-        /*
-         * number of hops in flow, but make sure it will be at least 1, else it isn't a flow! || was
-         * -1 at end
-         */
-        nHops = 2;
-      }
-      Double nTx = 1.0; // set nTx to 1 by default (1 transmission per link required at a minimum
-                        // and when m == 1.0
-      if (m < 1.0) {
-        /*
-         * now compute nTXper link based on Ryan's formula: log(1 - e2e^(1/hops)) / log(1 - M) = #
-         * txs per hop
-         */
-        nTx = Math.log((1.0 - Math.pow(e2e, (1.0 / (double) nHops)))) / Math.log(1.0 - m);
-      }
-      /* set numTxPerLink based on M, E2E, and flow length */
-      flowNode.numTxPerLink = (int) Math.ceil(nTx);
-      /* Now compute nTx per link to reach E2E requirement. */
-      ArrayList<Integer> linkTxAndTotalCost =
-          numTxAttemptsPerLinkAndTotalTxAttempts(flowNode, e2e, m, true);
-      flowNode.linkTxAndTotalCost = linkTxAndTotalCost;
+      /* the costs depend only on M, E2E, and flow length, so flows of the same length share them */
+      var nNodesInFlow = flowNode.nodes.size();
+      var costs = TxCostTable.getSharedTable().getTxCosts(nNodesInFlow, m, e2e,
+          () -> computeE2eTxCosts(nNodesInFlow, m, e2e));
+      flowNode.numTxPerLink = costs.getNumTxPerLink();
+      flowNode.linkTxAndTotalCost = new ArrayList<Integer>(costs.getLinkTxAndTotalCost());
       flows.put(flowName, flowNode); // update flow node in Flows array
     } else { // should never happen...
       System.out.printf("\n\tWarning! Bad situation: Flow %s doesn't exist but "
@@ -581,6 +984,39 @@ public Integer getFlowTxAttemptsPerLink(String flowName) {
     }
   }
 
+  /**
+   * Computes the costs of a flow with nNodesInFlow nodes from the E2E reliability parameters.
+   * 
+   * @param nNodesInFlow number of nodes in the flow
+   * @param m minimum packet reception rate
+   * @param e2e end-to-end reliability target
+   * @return number of tx per link, and the tx cost of each link and the total tx cost
+   */
+  private static TxCostTable.TxCosts computeE2eTxCosts(int nNodesInFlow, double m, double e2e) {
+    int nHops = nNodesInFlow;
+    if (nHops < 1) {
+        /*
+         * number of hops in flow, but make sure it will be at least 1, else it isn't a flow! || was
+         * -1 at end
+         */
+      nHops = 2;
+    }
+    double nTx = 1.0; // set nTx to 1 by default (1 transmission per link required at a minimum
+                      // and when m == 1.0
+    if (m < 1.0) {
+      /*
+       * now compute nTXper link based on Ryan's formula: log(1 - e2e^(1/hops)) / log(1 - M) = #
+       * txs per hop
+       */
+      nTx = Math.log((1.0 - Math.pow(e2e, (1.0 / (double) nHops)))) / Math.log(1.0 - m);
+    }
+    /* numTxPerLink is based on M, E2E, and flow length */
+    var numTxPerLink = (int) Math.ceil(nTx);
+    /* Now compute nTx per link to reach E2E requirement. */
+    var linkTxAndTotalCost = numTxAttemptsPerLinkAndTotalTxAttempts(nNodesInFlow, e2e, m);
+    return new TxCostTable.TxCosts(numTxPerLink, linkTxAndTotalCost);
+  }
+
   private void finalizeFlowWithFixedFaultTolerance(String flowName) {
     var flowNode = flows.get(flowName);
     if (flowNode != null) {
@@ -627,205 +1063,98 @@ private ArrayList<Integer> getFixedTxPerLinkAndTotalTxCost(Flow flow) {
   /** 
    * Finds the number of tx attempts per link and total tx attempts.
    * 
-   * @param flow passes flow
-   * @param e2e passes e2e
-   * @param M passes M
-   * @param optimizationRequested passes optimizationRequested
-   * @return number of tx attempts per link and total tx attempts in an arraylist
-   */
-  private ArrayList<Integer> numTxAttemptsPerLinkAndTotalTxAttempts(Flow flow, Double e2e, Double M,
-      boolean optimizationRequested) {
-    var nodesInFlow = flow.nodes;
-    var nNodesInFlow = nodesInFlow.size(); // The last entry will contain the worst-case cost of
-                                           // transmitting E2E in isolation
-    // var nPushes = Array(repeating: 0, count: nNodesInFlow+1);
-    var nPushes = new Integer[nNodesInFlow + 1]; // Array to track nPushes for each node in this
-                                                 // flow (same as nTx per link)
-    Arrays.fill(nPushes, 0); // initialize to all 0 values
+   * The reliability of the packet reaching each node is computed one time slot at a time, until
+   * the sink reaches the E2E target. Each slot only reads the row of the slot before it, so two rows
+   * are used in turn instead of keeping every row; the number of slots is the worst-case cost.
+   * 
+   * @param nNodesInFlow number of nodes in the flow
+   * @param e2eTarget passes e2e
+   * @param m passes M
+   * @return number of tx attempts per link and total tx attempts
+   */
+  private static int[] numTxAttemptsPerLinkAndTotalTxAttempts(int nNodesInFlow, double e2eTarget,
+      double m) {
+    /*
+     * nPushes for each node in this flow (same as nTx per link). The last entry will contain the
+     * worst-case cost of transmitting E2E in isolation
+     */
+    var nPushes = new int[nNodesInFlow + 1];
     var nHops = nNodesInFlow - 1;
-    // minLinkReliablityNeded is the minimum reliability needed per link in a flow to hit E2E
-    // reliability for the flow
-    Double minLinkReliablityNeded = Math.max(e2e, Math.pow(e2e, (1.0 / (double) nHops))); // use max
-                                                                                          // to
-                                                                                          // handle
-                                                                                          // rounding
-                                                                                          // error
-                                                                                          // when
-                                                                                          // e2e ==
-                                                                                          // 1.0
-    // Now compute reliability of packet reaching each node in the given time slot
-    // Start with a 2-D reliability window that is a 2-D matrix of no size
-    // each row is a time slot, stating at time 0
-    // each column represents the reliability of the packet reaching that node at the
-    // current time slot (i.e., the row it is in)
-    // will add rows as we compute reliabilities until the final reliability is reached
-    // for all nodes.
-    var reliabilityWindow = new Vector<Vector<Double>>();
-    var newReliabilityRow = new Vector<Double>();
-    for (int i = 0; i < nNodesInFlow; i++) {
-      newReliabilityRow.add(0.0); // create the the row initialized with 0.0 values
-    }
-    reliabilityWindow.add(newReliabilityRow); // now add row to the reliability window, Time 0
-    Vector<Double> tmpVector = reliabilityWindow.get(0);
-    var currentReliabilityRow = tmpVector.toArray(new Double[tmpVector.size()]);
-    // var currentReliabilityRow = (Double[]) reliabilityWindow.get(0).toArray();
-    // Want reliabilityWindow[0][0] = 1.0 (i.e., P(packet@FlowSrc) = 1
-    // but I din't want to mess with the newReliablityRow vector I use below
-    // So, we initialize this first entry to 1.0, wich is reliabilityWindow[0][0]
-    // We will then update this row with computed values for each node and put it
-    // back in the matrix
-    currentReliabilityRow[0] = 1.0; // initialize (i.e., P(packet@FlowSrc) = 1
-    Double e2eReliabilityState = currentReliabilityRow[nNodesInFlow - 1]; // the analysis will end
-                                                                          // when the 2e2
-                                                                          // reliability metrix is
-                                                                          // met, initially the
-                                                                          // state is not met and
-                                                                          // will be 0 with this
-                                                                          // statement
+    /*
+     * minLinkReliablityNeded is the minimum reliability needed per link in a flow to hit E2E
+     * reliability for the flow; use max to handle rounding error when e2e == 1.0
+     */
+    double minLinkReliablityNeded = Math.max(e2eTarget, Math.pow(e2eTarget, (1.0 / (double) nHops)));
+    /*
+     * Each entry of a row is the reliability of the packet reaching that node by the time slot of
+     * the row. The row for time 0 has P(packet@FlowSrc) = 1 and 0 for every other node.
+     */
+    var prevReliabilityRow = new double[nNodesInFlow];
+    var currentReliabilityRow = new double[nNodesInFlow];
+    currentReliabilityRow[0] = 1.0;
+    /* the analysis will end when the e2e reliability target is met; initially it is 0 */
+    var e2eReliabilityState = currentReliabilityRow[nNodesInFlow - 1];
+    var numTimeSlots = 1; // the row for time 0 is always there
     var timeSlot = 0; // start time at 0
-    while (e2eReliabilityState < e2e) { // change to while and increment increment timeSlot becuase
-                                        // we don't know how long this schedule window will last
-      var prevReliabilityRow = currentReliabilityRow;
-      currentReliabilityRow = newReliabilityRow.toArray(new Double[newReliabilityRow.size()]); // would
-                                                                                               // be
-                                                                                               // reliabilityWindow[timeSlot]
-                                                                                               // if
-                                                                                               // working
-                                                                                               // through
-                                                                                               // a
-                                                                                               // schedule
-      // Now use each flow:src->sink to update reliability computations
-      // this is the update formula for the state probabilities
-      // nextState = (1 - M) * prevState + M*NextHighestFlowState
-      // use MinLQ for M in above equation
-      // NewSinkNodeState = (1-M)*PrevSnkNodeState + M*PrevSrcNodeState
-
-      for (int nodeIndex = 0; nodeIndex < (nNodesInFlow - 1); nodeIndex++) { // loop through each
-                                                                             // node in the flow and
-                                                                             // update the sates for
-                                                                             // each link (i.e.,
-                                                                             // sink->src pair)
-        var flowSrcNodeindex = nodeIndex;
-        var flowSnkNodeindex = nodeIndex + 1;
-        var prevSrcNodeState = prevReliabilityRow[flowSrcNodeindex];
-        var prevSnkNodeState = prevReliabilityRow[flowSnkNodeindex];
-        Double nextSnkState;
-        if ((prevSnkNodeState < minLinkReliablityNeded) && prevSrcNodeState > 0) { // do a push
-                                                                                   // until PrevSnk
-                                                                                   // state > e2e to
-                                                                                   // ensure next
-                                                                                   // node reaches
-                                                                                   // target E2E BUT
-                                                                                   // skip if no
-                                                                                   // chance of
-                                                                                   // success (i.e.,
-                                                                                   // source doesn't
-                                                                                   // have packet)
-          nextSnkState = ((1.0 - M) * prevSnkNodeState) + (M * prevSrcNodeState); // need to
-                                                                                  // continue
-                                                                                  // attempting to
-                                                                                  // Tx, so update
-                                                                                  // current state
-          nPushes[nodeIndex] += 1; // increment the number of pushes for for this node to snk node
+    while (e2eReliabilityState < e2eTarget) { // we don't know how long this schedule window will last
+      /* the current row becomes the previous row, and the old previous row is reused */
+      var tmpRow = prevReliabilityRow;
+      prevReliabilityRow = currentReliabilityRow;
+      currentReliabilityRow = tmpRow;
+      Arrays.fill(currentReliabilityRow, 0.0);
+      /*
+       * Now use each flow:src->sink to update reliability computations. This is the update formula
+       * for the state probabilities, using MinLQ for M:
+       * NewSinkNodeState = (1-M)*PrevSnkNodeState + M*PrevSrcNodeState
+       */
+      for (int nodeIndex = 0; nodeIndex < (nNodesInFlow - 1); nodeIndex++) {
+        var prevSrcNodeState = prevReliabilityRow[nodeIndex];
+        var prevSnkNodeState = prevReliabilityRow[nodeIndex + 1];
+        double nextSnkState;
+        if ((prevSnkNodeState < minLinkReliablityNeded) && prevSrcNodeState > 0) {
+          /*
+           * do a push until the snk node reaches the link reliability target, but skip it if there
+           * is no chance of success (i.e., source doesn't have packet)
+           */
+          nextSnkState = ((1.0 - m) * prevSnkNodeState) + (m * prevSrcNodeState);
+          nPushes[nodeIndex] += 1;
         } else {
-          nextSnkState = prevSnkNodeState; // snkNode has met its reliability. Thus move on to the
-                                           // next node and record the reliability met
+          nextSnkState = prevSnkNodeState; // snkNode has met its reliability
         }
-
-        if (currentReliabilityRow[flowSrcNodeindex] < prevReliabilityRow[flowSrcNodeindex]) { // probabilities
-                                                                                              // are
-                                                                                              // non-decreasing
-                                                                                              // so
-                                                                                              // update
-                                                                                              // if
-                                                                                              // we
-                                                                                              // were
-                                                                                              // higher
-                                                                                              // by
-                                                                                              // carring
-                                                                                              // old
-                                                                                              // value
-                                                                                              // forward
-          currentReliabilityRow[flowSrcNodeindex] = prevReliabilityRow[flowSrcNodeindex]; // carry
-                                                                                          // forward
-                                                                                          // the
-                                                                                          // previous
-                                                                                          // state
-                                                                                          // for the
-                                                                                          // src
-                                                                                          // node,
-                                                                                          // which
-                                                                                          // may get
-                                                                                          // over
-                                                                                          // written
-                                                                                          // later
-                                                                                          // by
-                                                                                          // another
-                                                                                          // instruction
-                                                                                          // in this
-                                                                                          // slot
+        /*
+         * probabilities are non-decreasing, so carry the previous state of the src node forward if
+         * it was higher; it may be overwritten later by another instruction in this slot
+         */
+        if (currentReliabilityRow[nodeIndex] < prevReliabilityRow[nodeIndex]) {
+          currentReliabilityRow[nodeIndex] = prevReliabilityRow[nodeIndex];
         }
-        currentReliabilityRow[flowSnkNodeindex] = nextSnkState;
+        currentReliabilityRow[nodeIndex + 1] = nextSnkState;
       }
-
       e2eReliabilityState = currentReliabilityRow[nNodesInFlow - 1];
-      Vector<Double> currentReliabilityVector = new Vector<Double>();
-      // convert the row to a vector so we can add it to the reliability window
-      Collections.addAll(currentReliabilityVector, currentReliabilityRow);
-      if (timeSlot < reliabilityWindow.size()) {
-        reliabilityWindow.set(timeSlot, (currentReliabilityVector));
-      } else {
-        reliabilityWindow.add(currentReliabilityVector);
-      }
       timeSlot += 1; // increase to next time slot
+      numTimeSlots = Math.max(numTimeSlots, timeSlot);
     }
-    var size = reliabilityWindow.size();
-    nPushes[nNodesInFlow] = size; // The total (worst-case) cost to transmit E2E in isolation with
-                                  // specified reliability target is the number of rows in the
-                                  // reliabilityWindow
-    // Now convert the array to the ArrayList needed to return
-    ArrayList<Integer> nPushesArrayList = new ArrayList<Integer>();
-    Collections.addAll(nPushesArrayList, nPushes);
-    return nPushesArrayList;
+    /*
+     * The total (worst-case) cost to transmit E2E in isolation with specified reliability target is
+     * the number of time slots in the reliability window
+     */
+    nPushes[nNodesInFlow] = numTimeSlots;
+    return nPushes;
   }
 
 
   /**
-   * Gets the names from the node map, sorts them, handles the case where the node names are
+   * Gets the names from the symbol table, sorts them, handles the case where the node names are
    * arrays of integers. Returns the node names sorted alphabetically.
    * 
    * @return nodeNames the names of the nodes sorted alphabetically
    */
-  public String[] getNodeNamesOrderedAlphabetically() {
-    var nodes = getNodes();
-    Set<String> keys = nodes.keySet(); // get the names from the node map
-    String[] nodeNames = keys.toArray(new String[keys.size()]);
-    Arrays.sort(nodeNames); // NodeNames are now sorted
-    // However, if names are actually strings of integers, then the sort doesn't come out
-    // the way we would like. So, handle that case
-    var nodeNamesAsInts = new Integer[nodeNames.length];
-    var allIntNames = true; // flag to see if all names are Ints or not
-    for (int i = 0; i < nodeNames.length; i++) {
-      var nodeName = nodeNames[i];
-      if (Utilities.isInteger(nodeName) && allIntNames) {
-        // nodeName is an alpha representation of an integer
-        nodeNamesAsInts[i] = Integer.parseInt(nodeName);
-      } else {
-        // nodeName is an alpha name and not an integer, so set flag and terminate loop
-        allIntNames = false; // set false because name not is a number; && above makes sure we only
-                             // set it once
-        break; // can stop the loop once we know not all of the names are ints
-      }
+  public synchronized String[] getNodeNamesOrderedAlphabetically() {
+    var cached = metrics();
+    if (cached.nodeNamesOrderedAlphabetically == null) {
+      cached.nodeNamesOrderedAlphabetically = symbols.getNodeNamesOrderedAlphabetically();
     }
-    if (allIntNames) {
-      // If all names are ints, then we need to sort them accordingly
-      // Otherwise, we get names in what appears to not be in order because
-      Arrays.sort(nodeNamesAsInts); // sort the ints in assending order
-      for (int i = 0; i < nodeNamesAsInts.length; i++) {
-        nodeNames[i] = Integer.toString(nodeNamesAsInts[i]); // convert int to string
-      }
-    }
-    return nodeNames;
+    return cached.nodeNamesOrderedAlphabetically.clone(); // callers may change their copy
   }
 
   // private function to the flow node with specified name
@@ -895,14 +1224,43 @@ public Integer getNodeIndex(String nodeName) {
     return nodes;
   }
 
+  /**
+   * Returns the ids of the nodes in the flow, in the same order as getNodesInFlow().
+   * 
+   * @param flowName passes flowName
+   * @return node ids in the order they exist in the flow specification
+   */
+  public int[] getNodeIdsInFlow(String flowName) {
+    var flow = flows.get(flowName);
+    int[] ids;
+    if (flow != null) {
+      ids = new int[flow.nodes.size()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = flow.nodes.get(i).getId();
+      }
+    } else {
+      ids = new int[0]; // return empty array
+      System.out.printf("\n\t Warning! No Flow with name %s.\n", flowName);
+    }
+    return ids;
+  }
+
   /**
    * Finds and returns the hyperPeriod, which is the least common multiple of all periods.
    * 
    * @return hyperPeriod least common multiple of all periods
    */
-  public Integer getHyperPeriod() {
+  public synchronized Integer getHyperPeriod() {
+    var cached = metrics();
+    if (cached.hyperPeriod == null) {
+      cached.hyperPeriod = computeHyperPeriod();
+    }
+    return cached.hyperPeriod;
+  }
+
+  private Integer computeHyperPeriod() {
     var hyperPeriod = 1; // hyperPeriod is LCM of all periods. Initialize to 1
-    for (String flowName : getFlowNames()) {
+    for (String flowName : flowNamesInOriginalOrder) {
       // var dm = new Utlitities();
       hyperPeriod = Utilities.lcm(hyperPeriod, getFlowPeriod(flowName)); // Find LCM of hyperPeriod
                                                                          // so far and the current
@@ -952,6 +1310,7 @@ public Integer getNodeIndex(String nodeName) {
    * @param edge edge to add
    */
   public void addEdge(String nodeName, Edge edge) {
+    checkMutable();
     var node = nodes.get(nodeName); // get the node object
     node.addEdge(edge);
   }
@@ -961,11 +1320,15 @@ public Integer getNodeIndex(String nodeName) {
    * 
    * @return max length of a flow
    */
-  public Integer maxFlowLength() {
-    Integer maxLength = 0;
-    for (Flow flow : flows.values()) {
-      maxLength = Math.max(maxLength, flow.nodes.size());
+  public synchronized Integer maxFlowLength() {
+    var cached = metrics();
+    if (cached.maxFlowLength == null) {
+      Integer maxLength = 0;
+      for (Flow flow : flows.values()) {
+        maxLength = Math.max(maxLength, flow.nodes.size());
+      }
+      cached.maxFlowLength = maxLength;
     }
-    return maxLength;
+    return cached.maxFlowLength;
   }
 }
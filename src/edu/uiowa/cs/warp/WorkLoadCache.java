@@ -0,0 +1,243 @@
+package edu.uiowa.cs.warp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * WorkLoadCache keeps compiled workloads in binary (.wlb) files, so a workload that has been built
+ * before can be loaded without parsing the workload description or computing the number of
+ * transmissions per link of each flow (finalizeCurrentFlow()).
+ *
+ * A .wlb file is named by a key, the SHA-256 hash of the workload description together with the
+ * numFaults, M and E2E parameters, so a change to any of them builds a new file. It holds the node
+ * names, indexed by SymbolTable id, and for each flow its name, parameters, route as an array of
+ * node ids, numTxPerLink and tx costs per link. Files are read and written with CacheFiles.
+ *
+ * @version 1.1
+ */
+public class WorkLoadCache {
+
+  public static final String CACHE_FILE_SUFFIX = ".wlb";
+  private static final int MAGIC = 0x574c4231; // "WLB1"
+
+  private final Path directory;
+  private long hits; // workloads loaded from a .wlb file
+  private long misses; // workloads that had to be built
+
+  /**
+   * @param directory directory where the .wlb files are kept; it is created if needed
+   */
+  WorkLoadCache(String directory) {
+    this.directory = Path.of(directory);
+    this.hits = 0;
+    this.misses = 0;
+  }
+
+  /**
+   * Loads workLoad from its .wlb file, if there is one. When this returns false, workLoad has not
+   * been changed.
+   *
+   * @return true if workLoad was loaded from the cache
+   */
+  public Boolean load(WorkLoad workLoad) {
+    var key = key(workLoad);
+    var compiled =
+        CacheFiles.read(cacheFile(key), "compiled workload", buffer -> read(buffer, key));
+    synchronized (this) {
+      if (compiled == null) {
+        misses++;
+        return false;
+      }
+      hits++;
+    }
+    /* the file has been read, so now build the workload */
+    var nodeNames = compiled.nodeNames;
+    workLoad.setName(compiled.name);
+    for (CachedFlow flow : compiled.flows) {
+      workLoad.addFlow(flow.name);
+      workLoad.setFlowPriority(flow.name, flow.parameters[0]);
+      workLoad.setFlowPeriod(flow.name, flow.parameters[1]);
+      workLoad.setFlowDeadline(flow.name, flow.parameters[2]);
+      workLoad.setFlowPhase(flow.name, flow.parameters[3]);
+      for (int id : flow.route) {
+        workLoad.addNodeToFlow(flow.name, nodeNames[id]);
+      }
+      var linkTxAndTotalCost = new ArrayList<Integer>(flow.linkTxAndTotalCost.length);
+      for (int cost : flow.linkTxAndTotalCost) {
+        linkTxAndTotalCost.add(cost);
+      }
+      workLoad.setFlowTxCosts(flow.name, flow.numTxPerLink, linkTxAndTotalCost);
+    }
+    return true;
+  }
+
+  /**
+   * Writes the .wlb file for workLoad. Workloads that were not read without errors, or that have
+   * more than one flow with the same name, are not stored, since they can't be rebuilt exactly.
+   *
+   * @return true if the file was written
+   */
+  public Boolean store(WorkLoad workLoad) {
+    var loader = workLoad.getWorkLoadLoader();
+    var flowNames = workLoad.getFlowNamesInOriginalOrder();
+    if (loader == null || !loader.isParsed()
+        || new HashSet<String>(flowNames).size() != flowNames.size()) {
+      return false;
+    }
+    var key = key(workLoad);
+    var symbols = workLoad.getSymbolTable();
+    var bytes = new ByteArrayBuilder();
+    bytes.putInt(MAGIC);
+    bytes.putString(key);
+    bytes.putString(workLoad.getName());
+    bytes.putInt(symbols.getNumNodes());
+    for (int id = 0; id < symbols.getNumNodes(); id++) {
+      bytes.putString(symbols.getNodeName(id));
+    }
+    bytes.putInt(flowNames.size());
+    for (String flowName : flowNames) {
+      var flow = workLoad.getFlows().get(flowName);
+      bytes.putString(flowName);
+      bytes.putInt(flow.getPriority());
+      bytes.putInt(flow.getPeriod());
+      bytes.putInt(flow.getDeadline());
+      bytes.putInt(flow.getPhase());
+      bytes.putInt(flow.numTxPerLink);
+      bytes.putInt(flow.nodes.size());
+      for (Node node : flow.nodes) {
+        bytes.putInt(node.getId());
+      }
+      bytes.putInt(flow.linkTxAndTotalCost.size());
+      for (Integer cost : flow.linkTxAndTotalCost) {
+        bytes.putInt(cost);
+      }
+    }
+    return CacheFiles.writeAtomically(cacheFile(key), "compiled workload", bytes.toByteBuffer());
+  }
+
+  /* reads a .wlb file, or returns null if it isn't the file for key */
+  private static CompiledWorkLoad read(ByteBuffer buffer, String key) {
+    if (buffer.getInt() != MAGIC || !key.equals(getString(buffer))) {
+      return null; // not a .wlb file for this workload
+    }
+    var compiled = new CompiledWorkLoad(getString(buffer));
+    compiled.nodeNames = new String[buffer.getInt()];
+    for (int i = 0; i < compiled.nodeNames.length; i++) {
+      compiled.nodeNames[i] = getString(buffer);
+    }
+    var numFlows = buffer.getInt();
+    for (int i = 0; i < numFlows; i++) {
+      var flow = new CachedFlow(getString(buffer));
+      for (int j = 0; j < flow.parameters.length; j++) {
+        flow.parameters[j] = buffer.getInt();
+      }
+      flow.numTxPerLink = buffer.getInt();
+      flow.route = CacheFiles.getInts(buffer);
+      flow.linkTxAndTotalCost = CacheFiles.getInts(buffer);
+      compiled.flows.add(flow);
+    }
+    return compiled;
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return the key of the .wlb file for workLoad, the hex SHA-256 hash of its description and
+   *         parameters
+   */
+  public String key(WorkLoad workLoad) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e); // required of every JVM
+    }
+    digest.update(workLoad.toString().getBytes(StandardCharsets.UTF_8));
+    var parameters = String.format("\n%d %s %s", workLoad.getNumFaults(),
+        Double.toString(workLoad.getMinPacketReceptionRate()), Double.toString(workLoad.getE2e()));
+    digest.update(parameters.getBytes(StandardCharsets.UTF_8));
+    var hash = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hash.append(String.format("%02x", b));
+    }
+    return hash.toString();
+  }
+
+  /**
+   * @return the .wlb file with key
+   */
+  public Path cacheFile(String key) {
+    return directory.resolve(key + CACHE_FILE_SUFFIX);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    var bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /* what a .wlb file holds */
+  private static class CompiledWorkLoad {
+    final String name;
+    String[] nodeNames; // indexed by SymbolTable id
+    final ArrayList<CachedFlow> flows = new ArrayList<>();
+
+    CompiledWorkLoad(String name) {
+      this.name = name;
+    }
+  }
+
+  /* a flow read from a .wlb file */
+  private static class CachedFlow {
+    final String name;
+    final int[] parameters = new int[4]; // priority, period, deadline, phase
+    int numTxPerLink;
+    int[] route; // node ids
+    int[] linkTxAndTotalCost;
+
+    CachedFlow(String name) {
+      this.name = name;
+    }
+  }
+
+  /* growable big-endian buffer for writing a .wlb file */
+  private static class ByteArrayBuilder {
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    void putInt(int value) {
+      ensureCapacity(Integer.BYTES);
+      buffer.putInt(value);
+    }
+
+    void putString(String value) {
+      var bytes = value.getBytes(StandardCharsets.UTF_8);
+      putInt(bytes.length);
+      ensureCapacity(bytes.length);
+      buffer.put(bytes);
+    }
+
+    ByteBuffer toByteBuffer() {
+      return buffer.duplicate().flip();
+    }
+
+    private void ensureCapacity(int numBytes) {
+      if (buffer.remaining() < numBytes) {
+        var larger =
+            ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + numBytes));
+        larger.put(buffer.flip());
+        buffer = larger;
+      }
+    }
+  }
+}
@@ -0,0 +1,304 @@
+package edu.uiowa.cs.warp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+/**
+ * WorkLoadDelta is a list of changes to the flows of a workload, so a workload can be changed
+ * without building it again from a whole workload description file. Each line of a delta is one
+ * change:
+ *
+ * <pre>
+ * +F49 (1, 120, 120, 0) : 12 -> 3     adds a flow, written as in a workload description
+ * -F7                                 removes a flow
+ * ~F3 period=116 deadline=100         changes the priority, period, deadline or phase of a flow
+ * </pre>
+ *
+ * Blank lines are ignored. WorkLoad.apply() makes the changes, in order, and returns an Effect
+ * with the flows and nodes that were affected.
+ *
+ * @version 1.0
+ */
+public class WorkLoadDelta {
+
+  public static final String DELTA_FILE_SUFFIX = ".wdl";
+  private static final String[] PARAMETER_NAMES = {"priority", "period", "deadline", "phase"};
+  private static final String NAME = "[a-zA-Z0-9]+"; // NAME in the WARP grammar
+  private static final String NUMBER = "[0-9]{1,9}"; // NUMBER that fits in an int
+
+  /**
+   * Kind of change made to a flow.
+   */
+  public enum Kind {
+    ADD, REMOVE, MODIFY
+  }
+
+  /**
+   * Change is one line of a delta.
+   */
+  public static class Change {
+    private final Kind kind;
+    private final String flowName;
+    private final int line; // line of the delta, for error messages
+    private final WorkLoadLoader.FlowDescription flow; // flow to add, null for other kinds
+    private final Integer[] parameters; // priority, period, deadline, phase; null if not changed
+
+    private Change(Kind kind, String flowName, int line, WorkLoadLoader.FlowDescription flow,
+        Integer[] parameters) {
+      this.kind = kind;
+      this.flowName = flowName;
+      this.line = line;
+      this.flow = flow;
+      this.parameters = parameters;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    public String getFlowName() {
+      return flowName;
+    }
+
+    WorkLoadLoader.FlowDescription getFlow() {
+      return flow;
+    }
+
+    /**
+     * @return the new priority, period, deadline and phase of a modified flow, with null for each
+     *         one that isn't changed
+     */
+    public Integer[] getParameters() {
+      return parameters.clone();
+    }
+  }
+
+  private final ArrayList<Change> changes;
+
+  private WorkLoadDelta() {
+    changes = new ArrayList<>();
+  }
+
+  /**
+   * Reads a delta from file.
+   *
+   * @throws IOException if the file can't be read
+   * @throws IllegalArgumentException if a line of the file isn't a valid change
+   */
+  public static WorkLoadDelta load(String file) throws IOException {
+    return parse(Files.readString(Path.of(file)));
+  }
+
+  /**
+   * Parses a delta that is already in memory.
+   *
+   * @throws IllegalArgumentException if a line isn't a valid change
+   */
+  public static WorkLoadDelta parse(String text) {
+    var delta = new WorkLoadDelta();
+    var lines = text.split("\\R");
+    for (int i = 0; i < lines.length; i++) {
+      var line = lines[i].strip();
+      if (!line.isEmpty()) {
+        delta.changes.add(parseChange(line, i + 1));
+      }
+    }
+    return delta;
+  }
+
+  /**
+   * @return the changes, in the order they are made
+   */
+  public ArrayList<Change> getChanges() {
+    return changes;
+  }
+
+  /**
+   * Checks that the changes can be made, in order, to a workload with flowNames: a flow that is
+   * added doesn't exist yet, and a flow that is removed or modified does.
+   *
+   * @throws IllegalArgumentException for the first change that can't be made
+   */
+  void check(Collection<String> flowNames) {
+    var names = new HashSet<String>(flowNames);
+    for (Change change : changes) {
+      if (change.kind == Kind.ADD) {
+        if (!names.add(change.flowName)) {
+          throw error(change.line, "flow %s already exists", change.flowName);
+        }
+      } else if (!names.contains(change.flowName)) {
+        throw error(change.line, "there is no flow %s", change.flowName);
+      } else if (change.kind == Kind.REMOVE) {
+        names.remove(change.flowName);
+      }
+    }
+  }
+
+  private static Change parseChange(String line, int lineNumber) {
+    var rest = line.substring(1).strip();
+    switch (line.charAt(0)) {
+      case '+' -> {
+        /* a flow is written as in a workload description, so let the loader parse it */
+        var loader = WorkLoadLoader.parse("Delta {\n" + rest + "\n}", 0);
+        if (!loader.isParsed() || loader.getFlows().size() != 1) {
+          throw error(lineNumber, "%s is not a flow", rest);
+        }
+        var flow = loader.getFlows().get(0);
+        return new Change(Kind.ADD, flow.name, lineNumber, flow, null);
+      }
+      case '-' -> {
+        if (!rest.matches(NAME)) {
+          throw error(lineNumber, "%s is not a flow name", rest);
+        }
+        return new Change(Kind.REMOVE, rest, lineNumber, null, null);
+      }
+      case '~' -> {
+        var words = rest.replaceAll("\\s*=\\s*", "=").split("[\\s,]+");
+        if (!words[0].matches(NAME) || words.length < 2) {
+          throw error(lineNumber, "expected a flow name and one or more parameter=value");
+        }
+        var parameters = new Integer[PARAMETER_NAMES.length];
+        for (int i = 1; i < words.length; i++) {
+          var parameter = words[i].split("=", -1);
+          var index = (parameter.length == 2) ? parameterIndex(parameter[0]) : -1;
+          if (index < 0 || !parameter[1].matches(NUMBER)) {
+            throw error(lineNumber, "%s is not a parameter=value", words[i]);
+          }
+          parameters[index] = Integer.parseInt(parameter[1]);
+        }
+        return new Change(Kind.MODIFY, words[0], lineNumber, null, parameters);
+      }
+      default -> throw error(lineNumber, "a change starts with +, - or ~");
+    }
+  }
+
+  private static int parameterIndex(String name) {
+    for (int i = 0; i < PARAMETER_NAMES.length; i++) {
+      if (PARAMETER_NAMES[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static IllegalArgumentException error(int line, String format, Object... args) {
+    return new IllegalArgumentException(
+        String.format("Line %d of workload delta: ", line) + String.format(format, args));
+  }
+
+  /**
+   * Effect lists the flows and nodes affected by applying a delta to a workload. Changes that undo
+   * each other, e.g., removing a flow and adding it back, are reported as a modified flow.
+   */
+  public static class Effect {
+    private final LinkedHashSet<String> addedFlows = new LinkedHashSet<>();
+    private final LinkedHashSet<String> removedFlows = new LinkedHashSet<>();
+    private final LinkedHashSet<String> modifiedFlows = new LinkedHashSet<>();
+    private final LinkedHashSet<String> addedNodes = new LinkedHashSet<>();
+    private final LinkedHashSet<String> removedNodes = new LinkedHashSet<>();
+    private final LinkedHashSet<String> affectedNodes = new LinkedHashSet<>();
+
+    Effect() {}
+
+    /**
+     * @return the flows that are new to the workload
+     */
+    public ArrayList<String> getAddedFlows() {
+      return new ArrayList<>(addedFlows);
+    }
+
+    /**
+     * @return the flows that are no longer in the workload
+     */
+    public ArrayList<String> getRemovedFlows() {
+      return new ArrayList<>(removedFlows);
+    }
+
+    /**
+     * @return the flows that are still in the workload, but with new parameters or a new route
+     */
+    public ArrayList<String> getModifiedFlows() {
+      return new ArrayList<>(modifiedFlows);
+    }
+
+    /**
+     * @return the nodes that are new to the workload
+     */
+    public ArrayList<String> getAddedNodes() {
+      return new ArrayList<>(addedNodes);
+    }
+
+    /**
+     * @return the nodes that are no longer in any flow, so were removed from the workload
+     */
+    public ArrayList<String> getRemovedNodes() {
+      return new ArrayList<>(removedNodes);
+    }
+
+    /**
+     * @return every node of a flow that was added, removed or modified
+     */
+    public ArrayList<String> getAffectedNodes() {
+      return new ArrayList<>(affectedNodes);
+    }
+
+    public Boolean isEmpty() {
+      return affectedNodes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "added flows=%s removed flows=%s modified flows=%s added nodes=%s removed nodes=%s "
+              + "affected nodes=%s",
+          addedFlows, removedFlows, modifiedFlows, addedNodes, removedNodes, affectedNodes);
+    }
+
+    void flowAdded(Flow flow) {
+      if (removedFlows.remove(flow.getName())) {
+        modifiedFlows.add(flow.getName());
+      } else {
+        addedFlows.add(flow.getName());
+      }
+      nodesAffected(flow);
+    }
+
+    void flowRemoved(Flow flow) {
+      modifiedFlows.remove(flow.getName());
+      if (!addedFlows.remove(flow.getName())) {
+        removedFlows.add(flow.getName());
+      }
+      nodesAffected(flow);
+    }
+
+    void flowModified(Flow flow) {
+      if (!addedFlows.contains(flow.getName())) {
+        modifiedFlows.add(flow.getName());
+      }
+      nodesAffected(flow);
+    }
+
+    void nodeAdded(String name) {
+      if (!removedNodes.remove(name)) {
+        addedNodes.add(name);
+      }
+    }
+
+    void nodeRemoved(String name) {
+      if (!addedNodes.remove(name)) {
+        removedNodes.add(name);
+      }
+    }
+
+    private void nodesAffected(Flow flow) {
+      for (Node node : flow.getNodes()) {
+        affectedNodes.add(node.getName());
+      }
+    }
+  }
+}
@@ -5,7 +5,6 @@ package edu.uiowa.cs.warp;
 
 import java.util.ArrayList;
 import java.io.*;  
-import java.util.Scanner;
 import java.util.Collections; 
 
 /**
@@ -26,6 +25,7 @@ public class WorkLoadDescription extends VisualizationObject {
   private FileManager fm;
   private String inputFileName;
   private ArrayList<String> inputFileList; 
+  private WorkLoadLoader loader; // contents, lines and parsed workload of the input file
 
   WorkLoadDescription(String inputFileName) throws FileNotFoundException {
     super(new FileManager(), EMPTY, INPUT_FILE_SUFFIX); // VisualizationObject constructor
@@ -33,6 +33,30 @@ public class WorkLoadDescription extends VisualizationObject {
     initialize(inputFileName);
   }
 
+  /*
+   * Constructor for a workload description that has already been read by loader, e.g., one that
+   * was parsed in a different way, to compare the workloads built from it
+   */
+  WorkLoadDescription(String inputFileName, WorkLoadLoader loader) {
+    super(new FileManager(), EMPTY, INPUT_FILE_SUFFIX); // VisualizationObject constructor
+    this.fm = this.getFileManager();
+    this.inputFileName = inputFileName;
+    setLoader(loader);
+  }
+
+  /*
+   * Copy constructor, for a workload snapshot. The file contents are only read, so they are shared.
+   */
+  WorkLoadDescription(WorkLoadDescription workLoadDescription) {
+    super(new FileManager(), EMPTY, INPUT_FILE_SUFFIX); // VisualizationObject constructor
+    this.fm = this.getFileManager();
+    this.description = workLoadDescription.description;
+    this.inputGraphString = workLoadDescription.inputGraphString;
+    this.inputFileName = workLoadDescription.inputFileName;
+    this.inputFileList = new ArrayList<String>(workLoadDescription.inputFileList);
+    this.loader = workLoadDescription.loader;
+  }
+
   @Override
   public Description visualization() {
     return description;
@@ -53,32 +77,47 @@ public class WorkLoadDescription extends VisualizationObject {
     return inputGraphString;
   }
 
+  /**
+   * @return the input file name without its suffix; the name itself is not changed, so it can be
+   *         asked for more than once
+   */
   public String getInputFileName() {
-	inputFileName = inputFileName.substring(0, inputFileName.length()-4);
-    return inputFileName;
+    return inputFileName.substring(0, inputFileName.length()-4);
   }
   
   public ArrayList<String> getInputFileList() {
 	  return inputFileList;
   }
 
+  WorkLoadLoader getWorkLoadLoader() {
+    return loader;
+  }
+
   private void initialize(String inputFile) throws FileNotFoundException {
-    // Get the input graph file name and read its contents
+    // Get the input graph file name and read its contents, lines and workload in one pass
     InputGraphFile gf = new InputGraphFile(fm);
-    inputGraphString = gf.readGraphFile(inputFile);
-    this.inputFileName = gf.getGraphFileName();
+    this.inputFileName = gf.findGraphFile(inputFile);
+    WorkLoadLoader loader;
+    try {
+      loader = WorkLoadLoader.load(inputFileName);
+    } catch (IOException e) {
+      System.err.println("Error on reading file" + inputFileName + ": " + e.getMessage());
+      loader = WorkLoadLoader.parse(EMPTY);
+    }
+    setLoader(loader);
+  }
+
+  private void setLoader(WorkLoadLoader loader) {
+    this.loader = loader;
+    inputGraphString = loader.getContents();
     description = new Description(inputGraphString);
     
     //Set Up Input Graph as ArrayList
-    inputFileList = new ArrayList<String>();
-    FileInputStream fis = new FileInputStream(inputFile);  
-    Scanner sc=new Scanner(fis); 
-    sc.nextLine(); //Remove title line
-	  while(sc.hasNextLine()) {  
-		  inputFileList.add(sc.nextLine());
-	  }  
-	  sc.close();
-	  inputFileList.remove(inputFileList.size()-1); //Remove end bracket line
+    var lines = loader.getLines();
+    inputFileList = new ArrayList<String>(lines.subList(Math.min(1, lines.size()), lines.size())); //Remove title line
+    if (!inputFileList.isEmpty()) {
+      inputFileList.remove(inputFileList.size()-1); //Remove end bracket line
+    }
   } 
   
   public static void main(String[] args) throws FileNotFoundException {
@@ -0,0 +1,424 @@
+package edu.uiowa.cs.warp;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import argparser.ArgParser;
+import argparser.BooleanHolder;
+import argparser.IntHolder;
+import argparser.StringHolder;
+
+/**
+ * WorkLoadGenerator writes synthetic workload description files, e.g., for scalability benchmarks
+ * with many more flows than the example workloads. A topology is built first, and then each flow
+ * is a route through it:
+ *
+ * <pre>
+ * TREE        one base station (node 0) at the root of a random tree of the other nodes
+ * MESH        nodes on a grid, each linked to its neighbors; routes are shortest paths
+ * MULTI_BASE  a random tree under each base station, with the base stations linked in a chain
+ * </pre>
+ *
+ * In a tree, a route goes up from a random node toward a base station and then possibly down
+ * again, like the collection, dissemination and mixed flows of the example workloads. The number
+ * of hops of each route is drawn from a uniform or geometric distribution, and each period from a
+ * harmonic or a non-harmonic set. Everything is drawn from one Random with the given seed, so the
+ * same parameters and seed always give the same file.
+ *
+ * Nodes are named by number, as in WARP-INDRIYA-MIX.txt, and flow Fi has priority i.
+ *
+ * @version 1.1
+ */
+public class WorkLoadGenerator {
+
+  private static final int MAX_ROUTE_TRIES = 8; // tries to find a route with all of its hops
+  private static final String DEFAULT_NAME = "Synthetic";
+
+  public enum Topology {
+    TREE, MESH, MULTI_BASE
+  }
+
+  public enum HopDistribution {
+    UNIFORM, GEOMETRIC
+  }
+
+  /**
+   * Periods of the flows. Any two harmonic periods divide one another, so the hyper-period is the
+   * largest period; the non-harmonic periods have a hyper-period of 3000.
+   */
+  public enum PeriodSet {
+    HARMONIC(100, 200, 400, 800, 1600), NON_HARMONIC(100, 150, 200, 250, 300);
+
+    private final int[] periods;
+
+    PeriodSet(int... periods) {
+      this.periods = periods;
+    }
+  }
+
+  private final Random random;
+  private Topology topology = Topology.TREE;
+  private int numNodes = 100;
+  private int numFlows = 50;
+  private int numBaseStations = 4; // used only by MULTI_BASE
+  private int fanOut = 4; // maximum number of children of a tree node
+  private int minHops = 1;
+  private int maxHops = 6;
+  private HopDistribution hopDistribution = HopDistribution.UNIFORM;
+  private PeriodSet periodSet = PeriodSet.HARMONIC;
+  private int maxPhase = 0;
+  private Boolean constrainedDeadlines = false; // deadline <= period instead of deadline = period
+  private ArrayList<int[]> links; // neighbors of each node, built by generate()
+  private int gridColumns; // MESH only: node i is in row i / gridColumns, column i % gridColumns
+
+  WorkLoadGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  public void setTopology(Topology topology) {
+    this.topology = topology;
+  }
+
+  /**
+   * @param numNodes number of nodes, including the base stations; at least 2
+   */
+  public void setNumNodes(int numNodes) {
+    if (numNodes < 2) {
+      throw new IllegalArgumentException("A workload needs at least 2 nodes");
+    }
+    this.numNodes = numNodes;
+  }
+
+  public void setNumFlows(int numFlows) {
+    if (numFlows < 1) {
+      throw new IllegalArgumentException("A workload needs at least 1 flow");
+    }
+    this.numFlows = numFlows;
+  }
+
+  /**
+   * @param numBaseStations number of base stations of a MULTI_BASE topology
+   */
+  public void setNumBaseStations(int numBaseStations) {
+    if (numBaseStations < 1) {
+      throw new IllegalArgumentException("A topology needs at least 1 base station");
+    }
+    this.numBaseStations = numBaseStations;
+  }
+
+  /**
+   * @param fanOut maximum number of children of a node in a tree
+   */
+  public void setFanOut(int fanOut) {
+    if (fanOut < 1) {
+      throw new IllegalArgumentException("The fan-out of a tree must be at least 1");
+    }
+    this.fanOut = fanOut;
+  }
+
+  /**
+   * Sets the range of the number of hops of the routes. A route is shorter than the number of hops
+   * drawn only when the topology has no route that long from where it starts.
+   *
+   * @param minHops minimum number of hops, at least 1
+   * @param maxHops maximum number of hops
+   * @param hopDistribution how the number of hops is drawn; GEOMETRIC has a mean halfway between
+   *        minHops and maxHops, but favors short routes
+   */
+  public void setHops(int minHops, int maxHops, HopDistribution hopDistribution) {
+    if (minHops < 1 || maxHops < minHops) {
+      throw new IllegalArgumentException(
+          String.format("Bad range of hops [%d, %d]", minHops, maxHops));
+    }
+    this.minHops = minHops;
+    this.maxHops = maxHops;
+    this.hopDistribution = hopDistribution;
+  }
+
+  public void setPeriodSet(PeriodSet periodSet) {
+    this.periodSet = periodSet;
+  }
+
+  /**
+   * @param maxPhase maximum phase of a flow; phases are drawn from [0, min(maxPhase, period - 1)]
+   */
+  public void setMaxPhase(int maxPhase) {
+    if (maxPhase < 0) {
+      throw new IllegalArgumentException("The phase of a flow can't be negative");
+    }
+    this.maxPhase = maxPhase;
+  }
+
+  /**
+   * @param constrainedDeadlines true to draw deadlines from [period / 2, period], false to make
+   *        each deadline equal to the period
+   */
+  public void setConstrainedDeadlines(Boolean constrainedDeadlines) {
+    this.constrainedDeadlines = constrainedDeadlines;
+  }
+
+  /**
+   * @param name name of the workload
+   * @return the workload description
+   */
+  public String generate(String name) {
+    var out = new StringWriter();
+    try {
+      write(out, name);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // a StringWriter doesn't throw
+    }
+    return out.toString();
+  }
+
+  /**
+   * Writes a workload description file.
+   *
+   * @param file name of the file
+   * @param name name of the workload
+   * @throws IOException if the file can't be written
+   */
+  public void write(String file, String name) throws IOException {
+    try (var out = Files.newBufferedWriter(Path.of(file))) {
+      write(out, name);
+    }
+  }
+
+  /**
+   * Writes a workload description to out.
+   *
+   * @param out where the description is written
+   * @param name name of the workload
+   * @throws IOException if out can't be written
+   */
+  public void write(Writer out, String name) throws IOException {
+    buildTopology();
+    out.write(name + " {\n");
+    var line = new StringBuilder();
+    for (int flow = 0; flow < numFlows; flow++) {
+      var route = route(numHops());
+      var period = periodSet.periods[random.nextInt(periodSet.periods.length)];
+      var deadline = period;
+      if (constrainedDeadlines) {
+        deadline = period / 2 + random.nextInt(period - period / 2 + 1);
+      }
+      var phase = random.nextInt(Math.min(maxPhase, period - 1) + 1);
+      line.setLength(0);
+      line.append(String.format("F%d (%d,%d,%d,%d) : ", flow, flow, period, deadline, phase));
+      for (int i = 0; i < route.size(); i++) {
+        line.append((i == 0) ? "" : "->").append(route.get(i));
+      }
+      out.write(line.append('\n').toString());
+    }
+    out.write("}\n");
+  }
+
+  private int numHops() {
+    if (hopDistribution == HopDistribution.UNIFORM) {
+      return minHops + random.nextInt(maxHops - minHops + 1);
+    }
+    /* geometric number of hops beyond minHops, with the mean halfway to maxHops */
+    var p = 1.0 / (1.0 + (maxHops - minHops) / 2.0);
+    var hops = minHops;
+    while (hops < maxHops && random.nextDouble() >= p) {
+      hops++;
+    }
+    return hops;
+  }
+
+  private void buildTopology() {
+    var neighbors = new ArrayList<ArrayList<Integer>>(numNodes);
+    for (int node = 0; node < numNodes; node++) {
+      neighbors.add(new ArrayList<>());
+    }
+    switch (topology) {
+      case TREE -> buildForest(neighbors, 1);
+      case MULTI_BASE -> {
+        var numRoots = Math.min(numBaseStations, numNodes);
+        buildForest(neighbors, numRoots);
+        for (int root = 1; root < numRoots; root++) { // backbone that links the base stations
+          link(neighbors, root - 1, root);
+        }
+      }
+      case MESH -> {
+        var columns = (int) Math.ceil(Math.sqrt(numNodes));
+        for (int node = 0; node < numNodes; node++) {
+          if (node % columns + 1 < columns && node + 1 < numNodes) {
+            link(neighbors, node, node + 1);
+          }
+          if (node + columns < numNodes) {
+            link(neighbors, node, node + columns);
+          }
+        }
+        gridColumns = columns;
+      }
+    }
+    links = new ArrayList<>(numNodes);
+    for (ArrayList<Integer> nodeNeighbors : neighbors) {
+      links.add(nodeNeighbors.stream().mapToInt(Integer::intValue).toArray());
+    }
+  }
+
+  /* nodes 0..numRoots-1 are roots; every other node gets a random parent that isn't full yet */
+  private void buildForest(ArrayList<ArrayList<Integer>> neighbors, int numRoots) {
+    var open = new ArrayList<Integer>(); // nodes with fewer than fanOut children
+    var numChildren = new int[numNodes];
+    for (int node = 0; node < numNodes; node++) {
+      if (node >= numRoots) {
+        var slot = random.nextInt(open.size());
+        var parent = open.get(slot);
+        link(neighbors, parent, node);
+        if (++numChildren[parent] == fanOut) { // remove parent by moving the last one to its slot
+          open.set(slot, open.get(open.size() - 1));
+          open.remove(open.size() - 1);
+        }
+      }
+      open.add(node);
+    }
+  }
+
+  private static void link(ArrayList<ArrayList<Integer>> neighbors, int node1, int node2) {
+    neighbors.get(node1).add(node2);
+    neighbors.get(node2).add(node1);
+  }
+
+  /*
+   * Returns a route that starts at a random node, with hops hops if one is found in a few tries,
+   * else the longest route found. A route never visits a node twice.
+   */
+  private ArrayList<Integer> route(int hops) {
+    ArrayList<Integer> longest = null;
+    for (int tries = 0; tries < MAX_ROUTE_TRIES; tries++) {
+      var route = (topology == Topology.MESH) ? gridRoute(hops) : treeRoute(hops);
+      if (longest == null || route.size() > longest.size()) {
+        longest = route;
+      }
+      if (longest.size() > hops) {
+        break;
+      }
+    }
+    return longest;
+  }
+
+  /* a walk that never goes back to a node; in a tree, that is the unique path between its ends */
+  private ArrayList<Integer> treeRoute(int hops) {
+    var route = new ArrayList<Integer>(hops + 1);
+    route.add(random.nextInt(numNodes));
+    var candidates = new int[fanOut + 2];
+    while (route.size() <= hops) {
+      var node = route.get(route.size() - 1);
+      var numCandidates = 0;
+      for (int neighbor : links.get(node)) {
+        if (!route.contains(neighbor)) {
+          if (numCandidates == candidates.length) {
+            candidates = Arrays.copyOf(candidates, 2 * numCandidates);
+          }
+          candidates[numCandidates++] = neighbor;
+        }
+      }
+      if (numCandidates == 0) {
+        break; // a leaf, so the route can't be longer
+      }
+      route.add(candidates[random.nextInt(numCandidates)]);
+    }
+    return route;
+  }
+
+  /* a walk that only moves away from its start, in one horizontal and one vertical direction */
+  private ArrayList<Integer> gridRoute(int hops) {
+    var columns = gridColumns;
+    var route = new ArrayList<Integer>(hops + 1);
+    var node = random.nextInt(numNodes);
+    route.add(node);
+    var columnStep = random.nextBoolean() ? 1 : -1;
+    var rowStep = random.nextBoolean() ? columns : -columns;
+    while (route.size() <= hops) {
+      var column = node % columns;
+      var right = column + columnStep >= 0 && column + columnStep < columns
+          && node + columnStep < numNodes;
+      var down = node + rowStep >= 0 && node + rowStep < numNodes;
+      if (!right && !down) {
+        break; // at a corner in the directions of the walk
+      }
+      node += (right && (!down || random.nextBoolean())) ? columnStep : rowStep;
+      route.add(node);
+    }
+    return route;
+  }
+
+  /**
+   * Generates a workload description file. Run with -h for the options.
+   */
+  public static void main(String[] args) throws IOException {
+    IntHolder seed = new IntHolder();
+    StringHolder topology = new StringHolder("tree");
+    IntHolder nodes = new IntHolder(100);
+    IntHolder flows = new IntHolder(50);
+    IntHolder baseStations = new IntHolder(4);
+    IntHolder fanOut = new IntHolder(4);
+    IntHolder minHops = new IntHolder(1);
+    IntHolder maxHops = new IntHolder(6);
+    StringHolder hops = new StringHolder("uniform");
+    StringHolder periods = new StringHolder("harmonic");
+    IntHolder maxPhase = new IntHolder(0);
+    BooleanHolder constrained = new BooleanHolder();
+    StringHolder name = new StringHolder(DEFAULT_NAME);
+    StringHolder output = new StringHolder();
+
+    ArgParser parser = new ArgParser("java edu.uiowa.cs.warp.WorkLoadGenerator");
+    parser.addOption("--seed %d #seed of the random numbers", seed);
+    parser.addOption("-t, --topology %s {tree,mesh,multiBase} #topology of the network", topology);
+    parser.addOption("-n, --nodes %d {[2,10000000]} #number of nodes", nodes);
+    parser.addOption("-f, --flows %d {[1,10000000]} #number of flows", flows);
+    parser.addOption("--baseStations %d {[1,1000]} #number of base stations of multiBase",
+        baseStations);
+    parser.addOption("--fanOut %d {[1,1000]} #maximum number of children in a tree", fanOut);
+    parser.addOption("--minHops %d {[1,1000]} #minimum number of hops of a flow", minHops);
+    parser.addOption("--maxHops %d {[1,1000]} #maximum number of hops of a flow", maxHops);
+    parser.addOption("--hops %s {uniform,geometric} #distribution of the number of hops", hops);
+    parser.addOption("-p, --periods %s {harmonic,nonHarmonic} #set of flow periods", periods);
+    parser.addOption("--maxPhase %d {[0,100000]} #maximum phase of a flow", maxPhase);
+    parser.addOption("--constrained %v #deadlines from [period/2, period] instead of period",
+        constrained);
+    parser.addOption("--name %s #name of the workload", name);
+    parser.addOption("-o, --output %s #<OutputFile> for the workload, else standard output",
+        output);
+    parser.matchAllArgs(args);
+
+    var generator = new WorkLoadGenerator(seed.value);
+    try {
+      generator.setTopology(switch (topology.value) {
+        case "mesh" -> Topology.MESH;
+        case "multiBase" -> Topology.MULTI_BASE;
+        default -> Topology.TREE;
+      });
+      generator.setNumNodes(nodes.value);
+      generator.setNumFlows(flows.value);
+      generator.setNumBaseStations(baseStations.value);
+      generator.setFanOut(fanOut.value);
+      generator.setHops(minHops.value, maxHops.value,
+          hops.value.equals("geometric") ? HopDistribution.GEOMETRIC : HopDistribution.UNIFORM);
+      generator.setPeriodSet(
+          periods.value.equals("nonHarmonic") ? PeriodSet.NON_HARMONIC : PeriodSet.HARMONIC);
+      generator.setMaxPhase(maxPhase.value);
+      generator.setConstrainedDeadlines(constrained.value);
+    } catch (IllegalArgumentException e) {
+      parser.printErrorAndExit(e.getMessage());
+    }
+    if (output.value != null) {
+      generator.write(output.value, name.value);
+    } else {
+      var out = new BufferedWriter(new OutputStreamWriter(System.out));
+      generator.write(out, name.value);
+      out.flush();
+    }
+  }
+}
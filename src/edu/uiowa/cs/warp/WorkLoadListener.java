@@ -17,13 +17,16 @@ import edu.uiowa.cs.warpdsls.WARPParser;
  *
  */
 //Extend WARP Base Listener Class to extract info for Flows
-final class WorkLoadListener extends WARPBaseListener {
+final class WorkLoadListener extends WARPBaseListener implements WorkLoadLoader.Handler {
     
 	WorkLoad workLoad;
     String currentFlow; 
     private WorkLoadListener(WorkLoad workLoad){
         this.workLoad = workLoad; // used to populate the workLoad as the input file is read
         this.currentFlow = new String();
+    }
+
+    private void parse() {
      // Read input file and build AST of graphFile
         try {
         	CharStream inputGraph = CharStreams.fromString(workLoad.toString());
@@ -47,7 +50,14 @@ final class WorkLoadListener extends WARPBaseListener {
     	 * instantiates the workLoad. This object is not needed
     	 * after that.
     	 */
-    	new WorkLoadListener(workLoad); 
+    	var listener = new WorkLoadListener(workLoad);
+    	var loader = workLoad.getWorkLoadLoader();
+    	if (loader != null && loader.isParsed()) {
+    		/* the input file was parsed when it was read, so don't parse it again */
+    		loader.replay(listener);
+    	} else {
+    		listener.parse();
+    	}
     }
     
     public void testPrintStdOut(String msg) {
@@ -56,15 +66,28 @@ final class WorkLoadListener extends WARPBaseListener {
     }
 
     @Override public void enterWarpName(WARPParser.WarpNameContext ctx) {
-        var name = ctx.getText();  // get the name of the graph 
-        workLoad.setName(name); // store the  name for later reference
+        warpName(ctx.getText());  // get the name of the graph 
     }
     
+    @Override public void warpName(String name) {
+        workLoad.setName(name); // store the  name for later reference
+    }
 
     @Override public void enterFlowName(WARPParser.FlowNameContext ctx ) {
-        currentFlow = ctx.getText();
+        flowName(ctx.getText());
+    }
+
+    @Override public void flowName(String name) {
+        currentFlow = name;
         workLoad.addFlow(currentFlow);
     }
+
+    @Override public void parameters(int priority, int period, int deadline, int phase) {
+        workLoad.setFlowPriority(currentFlow, priority);
+        workLoad.setFlowPeriod(currentFlow, period);
+        workLoad.setFlowDeadline(currentFlow, deadline);
+        workLoad.setFlowPhase(currentFlow, phase);
+    }
    
     @Override public void exitPriority(WARPParser.PriorityContext ctx ) {
     	var priority = Integer.parseInt(ctx.getText());  // get priority from the AST
@@ -87,19 +110,33 @@ final class WorkLoadListener extends WARPBaseListener {
     }
 
     @Override public void exitSrcNode(WARPParser.SrcNodeContext ctx ) {
-        var nodeName = ctx.getText(); // get the src node name
+        srcNode(ctx.getText()); // get the src node name
+    }
+
+    @Override public void srcNode(String nodeName) {
         workLoad.addNodeToFlow(currentFlow, nodeName);
     }
 
     @Override public void exitSnkNode(WARPParser.SnkNodeContext ctx ) {
-        var nodeName = ctx.getText(); // get the snk node name
+        snkNode(ctx.getText()); // get the snk node name
+    }
+
+    @Override public void snkNode(String nodeName) {
         workLoad.addNodeToFlow(currentFlow, nodeName);
     }
         
     @Override public void exitFlow(WARPParser.FlowContext ctx ) {
+        endFlow();
+    }
+
+    @Override public void endFlow() {
         // Now determine flow length and then set nTXperLink for the Flow
         workLoad.finalizeCurrentFlow(currentFlow);
     }
+
+    @Override public void endWarp() {
+        // nothing to do when the whole workload has been read
+    }
  
 }
 
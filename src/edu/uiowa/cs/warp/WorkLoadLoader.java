@@ -0,0 +1,530 @@
+package edu.uiowa.cs.warp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * WorkLoadLoader reads a workload description file once, through a buffered NIO channel, and
+ * produces everything that used to need separate reads of the file: the file contents, the list of
+ * raw lines, and the parsed workload (warp name and flows). WorkLoadListener and GraphVizListener
+ * replay the parsed workload instead of running the ANTLR parser over the file contents again.
+ *
+ * The scanner accepts the language of the WARP grammar (WARP.g4). When the file doesn't match it,
+ * e.g., it has a syntax error, isParsed() is false and the listeners fall back to ANTLR, so errors
+ * are reported the same way as before.
+ *
+ * Small files are scanned while they are read. Files of PARALLEL_THRESHOLD characters or more are
+ * read first and then split on flow boundaries into chunks that are scanned in parallel on the
+ * common fork-join pool. The chunks are merged in file order, so the flows, and the order in which
+ * nodes are first seen when they are replayed, are the same either way.
+ *
+ * @version 1.1
+ */
+public class WorkLoadLoader {
+
+  /* workload files at least this long are parsed in parallel chunks */
+  public static final int PARALLEL_THRESHOLD = 1 << 20;
+  /* smallest chunk scanned by one fork-join task */
+  public static final int MIN_CHUNK_SIZE = 1 << 16;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Handler receives the parsed workload in the order of the WARP grammar listener events.
+   */
+  interface Handler {
+    void warpName(String name);
+
+    void flowName(String name);
+
+    void parameters(int priority, int period, int deadline, int phase);
+
+    void srcNode(String name);
+
+    void snkNode(String name);
+
+    void endFlow();
+
+    void endWarp();
+  }
+
+  /**
+   * FlowDescription is a flow as it is written in the workload description.
+   */
+  static class FlowDescription {
+    final String name;
+    int[] parameters; // priority, period, deadline, phase; null when not given
+    final ArrayList<String> nodes;
+
+    FlowDescription(String name) {
+      this.name = name;
+      this.parameters = null;
+      this.nodes = new ArrayList<>();
+    }
+  }
+
+  private final StringBuilder contents;
+  private final ArrayList<String> lines;
+  private ArrayList<FlowDescription> flows;
+  private String warpName;
+  private boolean parsed;
+
+  private StringBuilder line; // line being read
+  private boolean afterCarriageReturn;
+  private FlowScanner scanner; // scans while reading, or null when parsing after reading
+
+  private WorkLoadLoader(boolean scanWhileReading) {
+    contents = new StringBuilder();
+    lines = new ArrayList<>();
+    flows = new ArrayList<>();
+    warpName = null;
+    parsed = false;
+    line = new StringBuilder();
+    afterCarriageReturn = false;
+    scanner = scanWhileReading ? new FlowScanner(true) : null;
+  }
+
+  /**
+   * Reads and parses file.
+   *
+   * @param file workload description file
+   * @return the loader, with the results for file
+   * @throws IOException if the file can't be read
+   */
+  public static WorkLoadLoader load(String file) throws IOException {
+    WorkLoadLoader loader;
+    try (var channel = FileChannel.open(Path.of(file), StandardOpenOption.READ);
+        var reader = new BufferedReader(java.nio.channels.Channels.newReader(channel,
+            StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+      /* large files are read first and then parsed in parallel */
+      loader = new WorkLoadLoader(channel.size() < PARALLEL_THRESHOLD);
+      loader.read(reader);
+    }
+    return loader;
+  }
+
+  /**
+   * Parses a workload description that is already in memory.
+   */
+  public static WorkLoadLoader parse(String description) {
+    return parse(description, (description.length() < PARALLEL_THRESHOLD) ? 0 : MIN_CHUNK_SIZE);
+  }
+
+  /**
+   * Parses a workload description that is already in memory, in parallel chunks of at least
+   * chunkSize characters.
+   *
+   * @param chunkSize smallest chunk size, 0 to parse in one pass, or -1 not to parse it, so the
+   *        listeners parse it with ANTLR (see isParsed())
+   */
+  static WorkLoadLoader parse(String description, int chunkSize) {
+    var loader = new WorkLoadLoader(chunkSize == 0);
+    var chars = description.toCharArray();
+    loader.accept(chars, chars.length);
+    loader.finish(chunkSize);
+    return loader;
+  }
+
+  private void read(Reader reader) throws IOException {
+    var buffer = new char[BUFFER_SIZE];
+    int count;
+    while ((count = reader.read(buffer)) >= 0) {
+      accept(buffer, count);
+    }
+    finish(MIN_CHUNK_SIZE);
+  }
+
+  /**
+   * @return the contents of the file
+   */
+  public String getContents() {
+    return contents.toString();
+  }
+
+  /**
+   * @return the lines of the file, without line terminators
+   */
+  public ArrayList<String> getLines() {
+    return lines;
+  }
+
+  /**
+   * @return true if the file is a valid workload description, so the parsed workload can be used
+   */
+  public Boolean isParsed() {
+    return parsed;
+  }
+
+  public String getWarpName() {
+    return warpName;
+  }
+
+  /**
+   * @return the flows, in the order they are in the file
+   */
+  public ArrayList<FlowDescription> getFlows() {
+    return flows;
+  }
+
+  /**
+   * Sends the parsed workload to handler, in the same order the WARP parse tree walker would.
+   */
+  public void replay(Handler handler) {
+    handler.warpName(warpName);
+    for (FlowDescription flow : flows) {
+      handler.flowName(flow.name);
+      if (flow.parameters != null) {
+        handler.parameters(flow.parameters[0], flow.parameters[1], flow.parameters[2],
+            flow.parameters[3]);
+      }
+      var lastNode = flow.nodes.size() - 1;
+      for (int i = 0; i < lastNode; i++) {
+        handler.srcNode(flow.nodes.get(i));
+      }
+      handler.snkNode(flow.nodes.get(lastNode));
+      handler.endFlow();
+    }
+    handler.endWarp();
+  }
+
+  private void accept(char[] buffer, int count) {
+    contents.append(buffer, 0, count);
+    for (int i = 0; i < count; i++) {
+      var c = buffer[i];
+      addToLine(c);
+      if (scanner != null) {
+        scanner.scan(c);
+      }
+    }
+  }
+
+  /**
+   * Ends reading. If the contents weren't scanned while they were read, they are parsed now, in
+   * parallel chunks of at least chunkSize characters, unless chunkSize is negative.
+   */
+  private void finish(int chunkSize) {
+    if (line.length() > 0) {
+      lines.add(line.toString());
+    }
+    if (chunkSize < 0) {
+      return; // left to ANTLR
+    }
+    if (scanner == null) {
+      scanner = new ChunkTask(contents, 0, contents.length(), chunkSize, true).invoke();
+    }
+    parsed = scanner.finish(true);
+    if (parsed) {
+      warpName = scanner.warpName;
+      flows = scanner.flows;
+    }
+    scanner = null;
+  }
+
+  /* lines end with \n, \r\n or \r, as with Scanner.nextLine() */
+  private void addToLine(char c) {
+    if (c == '\n' && afterCarriageReturn) {
+      afterCarriageReturn = false;
+      return;
+    }
+    afterCarriageReturn = (c == '\r');
+    if (c == '\n' || c == '\r') {
+      lines.add(line.toString());
+      line.setLength(0);
+    } else {
+      line.append(c);
+    }
+  }
+
+  /**
+   * Finds a line in text, starting in [from, to), where a flow starts. That is the case when the
+   * line begins with a name followed by ':' or '(', and the last character before the line is part
+   * of a name, which ends the chain of the flow before it. A split anywhere else could be in the
+   * middle of a flow.
+   *
+   * @return the start of the line, or -1 if no flow starts a line in [from, to)
+   */
+  static int findFlowStart(CharSequence text, int from, int to) {
+    for (int i = Math.max(from, 1); i < to; i++) {
+      if (text.charAt(i - 1) != '\n') {
+        continue;
+      }
+      var before = i - 1;
+      while (before >= 0 && Character.isWhitespace(text.charAt(before))) {
+        before--;
+      }
+      var after = i;
+      while (after < text.length() && Character.isWhitespace(text.charAt(after))) {
+        after++;
+      }
+      if (before < 0 || !isNameChar(text.charAt(before)) || after == text.length()
+          || !isNameChar(text.charAt(after))) {
+        continue;
+      }
+      while (after < text.length() && isNameChar(text.charAt(after))) {
+        after++;
+      }
+      while (after < text.length() && Character.isWhitespace(text.charAt(after))) {
+        after++;
+      }
+      if (after < text.length() && (text.charAt(after) == ':' || text.charAt(after) == '(')) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isNameChar(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /**
+   * ChunkTask scans the text in [start, end) on the fork-join pool. A large chunk is split at a
+   * flow start past its middle, the two halves are scanned in parallel, and the flows of the right
+   * half are appended to those of the left half, so the flows stay in file order.
+   */
+  private static class ChunkTask extends RecursiveTask<FlowScanner> {
+    private static final long serialVersionUID = 1L;
+
+    private final CharSequence text;
+    private final int start;
+    private final int end;
+    private final int chunkSize;
+    private final boolean startOfFile;
+
+    ChunkTask(CharSequence text, int start, int end, int chunkSize, boolean startOfFile) {
+      this.text = text;
+      this.start = start;
+      this.end = end;
+      this.chunkSize = chunkSize;
+      this.startOfFile = startOfFile;
+    }
+
+    @Override
+    protected FlowScanner compute() {
+      var split = -1;
+      if (chunkSize > 0 && end - start >= 2 * chunkSize) {
+        split = findFlowStart(text, start + (end - start) / 2, end - chunkSize);
+      }
+      if (split < 0) {
+        var chunkScanner = new FlowScanner(startOfFile);
+        for (int i = start; i < end; i++) {
+          chunkScanner.scan(text.charAt(i));
+        }
+        return chunkScanner;
+      }
+      var left = new ChunkTask(text, start, split, chunkSize, startOfFile);
+      left.fork();
+      var right = new ChunkTask(text, split, end, chunkSize, false).compute();
+      var result = left.join();
+      result.append(right);
+      return result;
+    }
+  }
+
+  /**
+   * FlowScanner scans the WARP grammar one character at a time. A scanner for a chunk that doesn't
+   * start the file starts at a flow name, and a chunk that doesn't end the file has to end right
+   * after the chain of its last flow.
+   */
+  private static class FlowScanner {
+    /* token types */
+    private static final int WORD = 0; // NAME or NUMBER
+    private static final int LBRACE = 1;
+    private static final int RBRACE = 2;
+    private static final int LPAREN = 3;
+    private static final int RPAREN = 4;
+    private static final int COMMA = 5;
+    private static final int COLON = 6;
+    private static final int ARROW = 7;
+
+    /* parser states */
+    private static final int WARP_NAME = 0;
+    private static final int OPEN = 1;
+    private static final int FLOW_NAME = 2; // flow name or '}'
+    private static final int AFTER_FLOW_NAME = 3; // ':' or '('
+    private static final int PARAMETER = 4;
+    private static final int PARAMETER_END = 5; // ',' or ')'
+    private static final int COLON_BEFORE_CHAIN = 6;
+    private static final int CHAIN_NODE = 7;
+    private static final int AFTER_CHAIN_NODE = 8; // '->', or the end of the chain
+    private static final int DONE = 9;
+    private static final int FAILED = 10;
+
+    private String warpName;
+    private final ArrayList<FlowDescription> flows;
+    private final StringBuilder word; // NAME or NUMBER being scanned
+    private boolean wordIsNumber;
+    private boolean afterDash;
+    private int state;
+    private FlowDescription currentFlow;
+    private int numParameters;
+
+    FlowScanner(boolean startOfFile) {
+      warpName = null;
+      flows = new ArrayList<>();
+      word = new StringBuilder();
+      wordIsNumber = true;
+      afterDash = false;
+      state = startOfFile ? WARP_NAME : FLOW_NAME;
+      currentFlow = null;
+      numParameters = 0;
+    }
+
+    /**
+     * Ends the scan.
+     *
+     * @param endOfFile true if the text scanned ends the file
+     * @return true if the text scanned is valid
+     */
+    boolean finish(boolean endOfFile) {
+      endWord();
+      if (afterDash) {
+        state = FAILED;
+      } else if (endOfFile) {
+        if (state != DONE) {
+          state = FAILED; // input ended before the closing '}'
+        }
+      } else if (state != AFTER_CHAIN_NODE || !chainIsComplete()) {
+        state = FAILED; // the chunk doesn't end with a complete flow
+      }
+      return state != FAILED;
+    }
+
+    /**
+     * Appends the results of next, which scanned the text that follows the text of this scanner.
+     */
+    void append(FlowScanner next) {
+      if (!finish(false)) {
+        return;
+      }
+      flows.addAll(next.flows);
+      word.setLength(0);
+      word.append(next.word);
+      wordIsNumber = next.wordIsNumber;
+      afterDash = next.afterDash;
+      state = next.state;
+      currentFlow = next.currentFlow;
+      numParameters = next.numParameters;
+    }
+
+    void scan(char c) {
+      if (state == FAILED) {
+        return;
+      }
+      if (afterDash) {
+        afterDash = false;
+        if (c == '>') {
+          token(ARROW, null);
+        } else {
+          state = FAILED;
+        }
+        return;
+      }
+      if (isNameChar(c)) {
+        word.append(c);
+        wordIsNumber &= (c >= '0' && c <= '9');
+        return;
+      }
+      endWord();
+      switch (c) {
+        case ' ', '\t', '\r', '\n' -> {
+        }
+        case '{' -> token(LBRACE, null);
+        case '}' -> token(RBRACE, null);
+        case '(' -> token(LPAREN, null);
+        case ')' -> token(RPAREN, null);
+        case ',' -> token(COMMA, null);
+        case ':' -> token(COLON, null);
+        case '-' -> afterDash = true;
+        default -> state = FAILED;
+      }
+    }
+
+    private void endWord() {
+      if (word.length() > 0 && state != FAILED) {
+        token(WORD, word.toString());
+      }
+      word.setLength(0);
+      wordIsNumber = true;
+    }
+
+    private void token(int type, String text) {
+      if (state == AFTER_CHAIN_NODE) {
+        if (type == ARROW) {
+          state = CHAIN_NODE;
+          return;
+        }
+        /* the last node was the sink, so this token starts the next flow or ends the warp */
+        state = chainIsComplete() ? FLOW_NAME : FAILED;
+      }
+      switch (state) {
+        case WARP_NAME -> {
+          if (type == WORD && !wordIsNumber) {
+            warpName = text;
+            state = OPEN;
+          } else {
+            state = FAILED;
+          }
+        }
+        case OPEN -> state = (type == LBRACE) ? FLOW_NAME : FAILED;
+        case FLOW_NAME -> {
+          if (type == WORD) {
+            currentFlow = new FlowDescription(text);
+            flows.add(currentFlow);
+            state = AFTER_FLOW_NAME;
+          } else if (type == RBRACE && !flows.isEmpty()) {
+            state = DONE;
+          } else {
+            state = FAILED;
+          }
+        }
+        case AFTER_FLOW_NAME -> {
+          if (type == COLON) {
+            state = CHAIN_NODE;
+          } else if (type == LPAREN) {
+            currentFlow.parameters = new int[4];
+            numParameters = 0;
+            state = PARAMETER;
+          } else {
+            state = FAILED;
+          }
+        }
+        case PARAMETER -> {
+          if (type == WORD && wordIsNumber && text.length() < 10) {
+            currentFlow.parameters[numParameters++] = Integer.parseInt(text);
+            state = PARAMETER_END;
+          } else {
+            state = FAILED; // not a NUMBER, or too large for an int
+          }
+        }
+        case PARAMETER_END -> {
+          if (numParameters < 4) {
+            state = (type == COMMA) ? PARAMETER : FAILED;
+          } else {
+            state = (type == RPAREN) ? COLON_BEFORE_CHAIN : FAILED;
+          }
+        }
+        case COLON_BEFORE_CHAIN -> state = (type == COLON) ? CHAIN_NODE : FAILED;
+        case CHAIN_NODE -> {
+          if (type == WORD) {
+            currentFlow.nodes.add(text);
+            state = AFTER_CHAIN_NODE;
+          } else {
+            state = FAILED;
+          }
+        }
+        default -> state = FAILED; // nothing can follow the closing '}'
+      }
+    }
+
+    private boolean chainIsComplete() {
+      return currentFlow.nodes.size() >= 2; // a chain has at least one edge
+    }
+  }
+}
@@ -3,8 +3,12 @@ package edu.uiowa.cs.warp;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
@@ -12,6 +16,15 @@ import org.junit.jupiter.api.Timeout;
 
 class WorkLoadTest {
 	
+	/* example workload files, which are all built the same way whichever way they are parsed */
+	private static final String[] EXAMPLE_FILES = {"Example.txt", "Example1a.txt", "Example2.txt",
+			"Example3.txt", "Example4.txt", "ExampleX.txt", "IPSN2021figure2.txt", "IPSN2021figure4.txt",
+			"LongChain.txt", "OneFlow.txt", "Preempt1.txt", "SeeSpray.txt", "StressTest.txt",
+			"StressTest4.txt", "Test1.txt", "TestFlows.txt", "TestIndexes.txt", "WARP-INDRIYA-MIX.txt",
+			"WARP-WASHU-MIX.txt"};
+	/* chunk size small enough that even the examples are split into many chunks */
+	private static final int SMALL_CHUNK_SIZE = 16;
+	
 	@Test
 	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
 	//Tests getFlowNames to ensure it returns the correct flow names given a text file of flows
@@ -138,6 +151,34 @@ class WorkLoadTest {
 		assertEquals(expectedHyperPeriod, actualHyperPeriod, "Does not return correct hyper period when input is one flow");
 	}
 	
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests getHyperPeriod to ensure the hyper period is computed again when a period changes
+	public void testGetHyperPeriodAfterPeriodChanges() throws FileNotFoundException {
+		WorkLoad workLoad = new WorkLoad(.9, .99, "OneFlow.txt");
+		assertEquals(50, workLoad.getHyperPeriod(), "Does not return correct hyper period before the change");
+		var modificationCount = workLoad.getModificationCount();
+		workLoad.setFlowPeriod(workLoad.getFlowNames()[0], 70);
+		assertTrue(workLoad.getModificationCount() > modificationCount, "Change was not counted");
+		assertEquals(70, workLoad.getHyperPeriod(), "Hyper period was not computed again after the change");
+	}
+	
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests that the hyper period and flow orders are computed again when flows are changed through getFlows()
+	public void testMetricsAfterFlowsChangedDirectly() throws FileNotFoundException {
+		WorkLoad oneFlow = new WorkLoad(.9, .99, "OneFlow.txt");
+		assertEquals(50, oneFlow.getHyperPeriod(), "Does not return correct hyper period before the change");
+		oneFlow.getFlows().get(oneFlow.getFlowNames()[0]).setPeriod(70);
+		assertEquals(70, oneFlow.getHyperPeriod(), "Hyper period was not computed again after the period changed");
+		WorkLoad workLoad = new WorkLoad(.9, .99, "TestFlows.txt");
+		assertNotEquals("F3", workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY).get(0), "F3 is already first");
+		workLoad.getFlows().get("F3").setPriority(-5);
+		assertEquals("F3", workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY).get(0), "Priority order was not computed again after the priority changed");
+		workLoad.getFlows().keySet().remove("F3");
+		assertFalse(workLoad.getFlowNamesInOrder(WorkLoad.FlowOrder.PRIORITY).contains("F3"), "Priority order was not computed again after the flow was removed");
+	}
+	
 	//getNumTxAttemptsPerLink test
 	@Test
 	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
@@ -176,6 +217,46 @@ class WorkLoadTest {
 	  	}
 	}
 	
+	@Test
+	@Timeout (value = 10000, unit = TimeUnit.MILLISECONDS)
+	//Tests that the tx costs of every flow in the examples are the ones the original Vector based implementation computed
+	public void testLinkTxAndTotalCostOfExamples() throws FileNotFoundException {
+		double[][] parameters = {{.9, .99}, {.8, .95}, {.6, .999}, {1.0, .99}}; // {M, E2E}
+		/* tx costs depend only on M, E2E and the number of nodes in a flow; one array per flow length
+		 * found in the examples, for each of the parameters */
+		Integer[][][] expectedCosts = {
+			{{2, 0, 2}, {3, 3, 0, 4}, {3, 4, 3, 0, 5}, {3, 4, 4, 4, 0, 7}, {3, 4, 4, 5, 4, 0, 8},
+				{3, 4, 5, 5, 5, 4, 0, 9}, {3, 4, 5, 6, 6, 6, 5, 0, 11},
+				{4, 5, 5, 6, 6, 7, 7, 8, 9, 10, 10, 11, 12, 12, 13, 14, 14, 16, 15, 14, 13, 12, 11, 10, 9, 0, 33}},
+			{{2, 0, 2}, {3, 3, 0, 4}, {3, 4, 4, 0, 6}, {3, 4, 5, 4, 0, 7}, {3, 5, 6, 6, 5, 0, 9},
+				{3, 6, 7, 7, 6, 5, 0, 10}, {4, 4, 6, 8, 8, 7, 6, 0, 12},
+				{4, 6, 7, 8, 11, 12, 14, 15, 15, 18, 19, 20, 21, 23, 22, 21, 20, 19, 18, 17, 16, 15, 14, 13, 12, 0, 36}},
+			{{8, 0, 8}, {9, 10, 0, 11}, {9, 13, 12, 0, 14}, {10, 12, 15, 14, 0, 17}, {10, 13, 15, 16, 15, 0, 19},
+				{10, 13, 16, 18, 17, 16, 0, 21}, {10, 14, 16, 19, 20, 19, 18, 0, 24},
+				{12, 14, 18, 21, 24, 27, 30, 33, 35, 38, 40, 43, 45, 48, 47, 46, 45, 44, 43, 42, 41, 40, 39, 38, 37, 0, 61}},
+			{{1, 0, 1}, {1, 1, 0, 2}, {1, 1, 1, 0, 3}, {1, 1, 1, 1, 0, 4}, {1, 1, 1, 1, 1, 0, 5},
+				{1, 1, 1, 1, 1, 1, 0, 6}, {1, 1, 1, 1, 1, 1, 1, 0, 7},
+				{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0, 25}}};
+		for (int i = 0; i < parameters.length; i++) {
+			var m = parameters[i][0];
+			var e2e = parameters[i][1];
+			var expectedByLength = new HashMap<Integer, Integer[]>();
+			for (Integer[] costs : expectedCosts[i]) {
+				expectedByLength.put(costs.length - 1, costs); // one cost per node, then the total
+			}
+			for (String file : EXAMPLE_FILES) {
+				WorkLoad workLoad = new WorkLoad(m, e2e, file);
+				for (String flowName : workLoad.getFlowNames()) {
+					var flow = workLoad.getFlows().get(flowName);
+					var message = String.format("%s %s with M = %s, E2E = %s", file, flowName, m, e2e);
+					var expected = expectedByLength.get(flow.getNodes().size());
+					assertNotNull(expected, message + " has a flow length with no expected tx costs");
+					assertArrayEquals(expected, flow.getLinkTxAndTotalCost().toArray(new Integer[0]), message);
+				}
+			}
+		}
+	}
+	
 	//maxFlowLength tests
 	@Test
 	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
@@ -472,4 +553,223 @@ class WorkLoadTest {
 			assertEquals(currentNode, nodeCheck, "Items were not sorted");
 		}
 	}
+	
+	//apply tests
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests apply to ensure flows are added, removed and modified, and the priority order is kept
+	public void testApplyDelta() throws FileNotFoundException {
+		WorkLoad workLoad = new WorkLoad(.9, .99, "StressTest4.txt");
+		workLoad.setFlowsInPriorityOrder();
+		var delta = WorkLoadDelta.parse("-F7\n+F49 (0, 40, 40, 1) : X -> Y -> A\n~F3 period=100 priority=11\n");
+		var effect = workLoad.apply(delta);
+		assertEquals(Arrays.asList("F49"), effect.getAddedFlows(), "Added flows not reported");
+		assertEquals(Arrays.asList("F7"), effect.getRemovedFlows(), "Removed flows not reported");
+		assertEquals(Arrays.asList("F3"), effect.getModifiedFlows(), "Modified flows not reported");
+		assertEquals(Arrays.asList("X", "Y"), effect.getAddedNodes(), "Added nodes not reported");
+		assertFalse(workLoad.getFlows().containsKey("F7"), "Removed flow is still in the workload");
+		assertEquals(100, workLoad.getFlowPeriod("F3"), "Period was not modified");
+		assertEquals(40, workLoad.getFlowDeadline("F49"), "Added flow has the wrong deadline");
+		assertEquals(3, workLoad.getNumTxAttemptsPerLink("F49").length, "Added flow has no tx costs");
+		var priorityOrder = workLoad.getFlowNamesInPriorityOrder();
+		assertEquals("F49", priorityOrder.get(0), "Added flow is not first in priority order");
+		assertEquals("F3", priorityOrder.get(priorityOrder.size()-1), "Modified flow is not last in priority order");
+	}
+	
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests apply to ensure nodes that are no longer in any flow are removed
+	public void testApplyDeltaRemovesUnusedNodes() throws FileNotFoundException {
+		WorkLoad workLoad = new WorkLoad(.9, .99, "Example4.txt");
+		var effect = workLoad.apply(WorkLoadDelta.parse("-F0\n"));
+		assertEquals(Arrays.asList("D"), effect.getRemovedNodes(), "Removed node not reported");
+		assertFalse(workLoad.getNodes().containsKey("D"), "Unused node is still in the workload");
+		String[] expectedNodes = {"A", "B", "C"};
+		assertArrayEquals(expectedNodes, workLoad.getNodeNamesOrderedAlphabetically(), "Unused node is still a column");
+	}
+	
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests apply to ensure a delta with a change that can't be made leaves the workload unchanged
+	public void testApplyDeltaUnknownFlow() throws FileNotFoundException {
+		WorkLoad workLoad = new WorkLoad(.9, .99, "Example4.txt");
+		var delta = WorkLoadDelta.parse("-F0\n~F9 period=10\n");
+		assertThrows(IllegalArgumentException.class, () -> workLoad.apply(delta));
+		assertTrue(workLoad.getFlows().containsKey("F0"), "Workload was changed");
+	}
+	
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests snapshot to ensure a snapshot can't be changed and doesn't see changes to the workload
+	public void testSnapshot() throws FileNotFoundException {
+		WorkLoad workLoad = new WorkLoad(.9, .99, "Example4.txt");
+		var snapshot = workLoad.snapshot();
+		assertTrue(snapshot.isSnapshot(), "Snapshot is not immutable");
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.setFlowPeriod("F0", 40));
+		workLoad.setFlowPeriod("F0", 40);
+		assertEquals(40, workLoad.getFlowPeriod("F0"), "Workload was not changed");
+		assertEquals(10, snapshot.getFlowPeriod("F0"), "Snapshot was changed with the workload");
+		assertArrayEquals(workLoad.getNodeNamesOrderedAlphabetically(), snapshot.getNodeNamesOrderedAlphabetically(), "Snapshot has different nodes");
+	}
+	
+	@Test
+	@Timeout (value = 1000, unit = TimeUnit.MILLISECONDS)
+	//Tests snapshot to ensure its flows, nodes and flow orders can't be changed through the getters
+	public void testSnapshotIsReadOnly() throws FileNotFoundException {
+		WorkLoad workLoad = new WorkLoad(.9, .99, "Example4.txt");
+		var snapshot = workLoad.snapshot();
+		var flow = snapshot.getFlows().get("F0");
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getFlows().remove("F0"));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getNodes().clear());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getFlowNamesInOriginalOrder().add("F9"));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getFlowNamesInPriorityOrder().clear());
+		assertThrows(UnsupportedOperationException.class, () -> flow.setLinkTxAndTotalCost(new ArrayList<Integer>()));
+		assertThrows(UnsupportedOperationException.class, () -> flow.setPeriod(40));
+		assertThrows(UnsupportedOperationException.class, () -> flow.getNodes().remove(0));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getNodes().get("A").setChannel(3));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getFlows().keySet().remove("F0"));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getNodes().values().clear());
+		assertThrows(UnsupportedOperationException.class, () -> flow.getNodes().removeIf(node -> true));
+		var names = snapshot.getFlowNamesInOriginalOrder().iterator();
+		names.next();
+		assertThrows(UnsupportedOperationException.class, () -> names.remove());
+		var copy = new Flow(flow); // copies, e.g., in a SynthesisContext, can be changed
+		copy.setPeriod(40);
+		assertEquals(40, copy.getPeriod(), "Copy of a snapshot flow was not changed");
+		workLoad.getFlows().get("F0").setPeriod(40);
+		assertEquals(10, flow.getPeriod(), "Snapshot flow was changed with the workload");
+	}
+	
+	//parse path tests
+	@Test
+	@Timeout (value = 10000, unit = TimeUnit.MILLISECONDS)
+	//Tests that the examples parsed in one pass, or in parallel chunks, build the same workloads as the ANTLR parser
+	public void testParsedInChunksMatchesAntlr() throws IOException {
+		for (String file : EXAMPLE_FILES) {
+			var description = Files.readString(Path.of(file));
+			var antlr = new WorkLoad(.9, .99, file, WorkLoadLoader.parse(description, -1));
+			var chunks = WorkLoadLoader.parse(description, SMALL_CHUNK_SIZE);
+			assertTrue(chunks.isParsed(), "Chunks of " + file + " were not parsed");
+			assertSameWorkLoad(antlr, new WorkLoad(.9, .99, file), file + " parsed in one pass");
+			assertSameWorkLoad(antlr, new WorkLoad(.9, .99, file, chunks), file + " parsed in chunks");
+		}
+	}
+	
+	@Test
+	@Timeout (value = 5000, unit = TimeUnit.MILLISECONDS)
+	//Tests parsing in chunks when braces, flow names and chains are not on lines of their own
+	public void testParsedInChunksWithBraces() {
+		var description = new StringBuilder("Braces{F0 (0, 10, 10, 0) : A -> B -> C\n");
+		for (int i = 1; i < 40; i++) {
+			switch (i % 4) {
+				case 0 -> description.append(String.format("F%d (%d, 20, 20, 0):N%d->A\n", i, i, i));
+				case 1 -> description.append(String.format("  F%d : C ->\n  N%d -> A\n", i, i));
+				case 2 -> description.append(String.format("F%d\n(%d, 40, 40, 1) :\nB -> N%d\n\n", i, i, i));
+				default -> description.append(String.format("F%d:N%d->B->C ", i, i));
+			}
+		}
+		description.append("F40 : C -> A}");
+		var text = description.toString();
+		var antlr = new WorkLoad(.9, .99, "Braces.txt", WorkLoadLoader.parse(text, -1));
+		assertEquals(41, antlr.getFlowNamesInOriginalOrder().size(), "ANTLR did not parse every flow");
+		var chunks = WorkLoadLoader.parse(text, SMALL_CHUNK_SIZE);
+		assertTrue(chunks.isParsed(), "Chunks were not parsed");
+		assertSameWorkLoad(antlr, new WorkLoad(.9, .99, "Braces.txt", chunks), "Parsed in chunks");
+		assertSameWorkLoad(antlr, new WorkLoad(.9, .99, "Braces.txt", WorkLoadLoader.parse(text, 0)), "Parsed in one pass");
+	}
+	
+	@Test
+	@Timeout (value = 10000, unit = TimeUnit.MILLISECONDS)
+	//Tests that the examples loaded from compiled workload (.wlb) files are the same as the workloads built by ANTLR
+	public void testLoadedFromCacheMatchesAntlr() throws IOException {
+		var directory = Files.createTempDirectory("wlb");
+		try {
+			var cache = new WorkLoadCache(directory.toString());
+			for (String file : EXAMPLE_FILES) {
+				var description = Files.readString(Path.of(file));
+				var antlr = new WorkLoad(.9, .99, file, WorkLoadLoader.parse(description, -1));
+				var built = new WorkLoad(0, .9, .99, file, cache);
+				assertTrue(Files.isRegularFile(cache.cacheFile(cache.key(built))), "No .wlb file for " + file);
+				var hits = cache.getHits();
+				var loaded = new WorkLoad(0, .9, .99, file, cache);
+				assertEquals(hits + 1, cache.getHits(), file + " was not loaded from its .wlb file");
+				assertSameWorkLoad(antlr, built, file + " built for the cache");
+				assertSameWorkLoad(antlr, loaded, file + " loaded from the cache");
+			}
+		} finally {
+			try (var files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+	
+	@Test
+	@Timeout (value = 5000, unit = TimeUnit.MILLISECONDS)
+	//Tests that WorkLoadGenerator writes the same workload every time it is given the same seed
+	public void testGeneratorIsDeterministic() {
+		for (WorkLoadGenerator.Topology topology : WorkLoadGenerator.Topology.values()) {
+			var first = newGenerator(topology).generate("Generated");
+			var second = newGenerator(topology).generate("Generated");
+			assertEquals(first, second, "Same seed gave different " + topology + " workloads");
+		}
+	}
+	
+	@Test
+	@Timeout (value = 5000, unit = TimeUnit.MILLISECONDS)
+	//Tests that the workloads WorkLoadGenerator writes for each topology are read without errors
+	public void testGeneratedWorkLoadsParse() {
+		for (WorkLoadGenerator.Topology topology : WorkLoadGenerator.Topology.values()) {
+			var text = newGenerator(topology).generate("Generated");
+			var loader = WorkLoadLoader.parse(text, 0);
+			assertTrue(loader.isParsed(), topology + " workload was not parsed");
+			var antlr = new WorkLoad(.9, .99, "Generated.txt", WorkLoadLoader.parse(text, -1));
+			assertEquals("Generated", antlr.getName(), topology + " workload has the wrong name");
+			assertEquals(20, antlr.getFlowNamesInOriginalOrder().size(), topology + " workload has the wrong number of flows");
+			assertSameWorkLoad(antlr, new WorkLoad(.9, .99, "Generated.txt", loader), topology + " workload");
+		}
+	}
+	
+	/* generator with a fixed seed and parameters, so every call writes the same workload */
+	private WorkLoadGenerator newGenerator(WorkLoadGenerator.Topology topology) {
+		var generator = new WorkLoadGenerator(2820);
+		generator.setTopology(topology);
+		generator.setNumNodes(30);
+		generator.setNumFlows(20);
+		return generator;
+	}
+	
+	/* asserts that actual has the same flows, nodes, ids, order and tx costs as expected */
+	private static void assertSameWorkLoad(WorkLoad expected, WorkLoad actual, String message) {
+		assertEquals(expected.getName(), actual.getName(), message + ": wrong name");
+		assertEquals(expected.getFlowNamesInOriginalOrder(), actual.getFlowNamesInOriginalOrder(), message + ": wrong flows");
+		assertEquals(new ArrayList<String>(expected.getNodes().keySet()), new ArrayList<String>(actual.getNodes().keySet()), message + ": wrong nodes");
+		var expectedSymbols = expected.getSymbolTable();
+		var actualSymbols = actual.getSymbolTable();
+		assertEquals(expectedSymbols.getNumNodes(), actualSymbols.getNumNodes(), message + ": wrong number of node ids");
+		for (int id = 0; id < expectedSymbols.getNumNodes(); id++) {
+			assertEquals(expectedSymbols.getNodeName(id), actualSymbols.getNodeName(id), message + ": wrong node with id " + id);
+		}
+		for (String nodeName : expected.getNodes().keySet()) {
+			var expectedNode = expected.getNodes().get(nodeName);
+			var actualNode = actual.getNodes().get(nodeName);
+			assertEquals(expectedNode.getId(), actualNode.getId(), message + ": wrong id of node " + nodeName);
+			assertEquals(expectedNode.getIndex(), actualNode.getIndex(), message + ": wrong index of node " + nodeName);
+		}
+		for (String flowName : expected.getFlowNamesInOriginalOrder()) {
+			var expectedFlow = expected.getFlows().get(flowName);
+			var actualFlow = actual.getFlows().get(flowName);
+			var flowMessage = message + ": flow " + flowName + " has the wrong ";
+			assertEquals(expectedFlow.getId(), actualFlow.getId(), flowMessage + "id");
+			assertEquals(expected.getFlowPriority(flowName), actual.getFlowPriority(flowName), flowMessage + "priority");
+			assertEquals(expected.getFlowPeriod(flowName), actual.getFlowPeriod(flowName), flowMessage + "period");
+			assertEquals(expected.getFlowDeadline(flowName), actual.getFlowDeadline(flowName), flowMessage + "deadline");
+			assertEquals(expected.getFlowPhase(flowName), actual.getFlowPhase(flowName), flowMessage + "phase");
+			assertArrayEquals(expected.getNodesInFlow(flowName), actual.getNodesInFlow(flowName), flowMessage + "nodes");
+			assertEquals(expectedFlow.getNumTxPerLink(), actualFlow.getNumTxPerLink(), flowMessage + "numTxPerLink");
+			assertEquals(expectedFlow.getLinkTxAndTotalCost(), actualFlow.getLinkTxAndTotalCost(), flowMessage + "tx costs");
+		}
+	}
 }